@@ -2,6 +2,7 @@ package dev.lwnd;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import dev.lwnd.book.Book;
 import dev.lwnd.member.Member;
@@ -15,11 +16,42 @@ import dev.lwnd.other.Pair;
 @ObjectDescription(description = "Represents a catalogue of borrowers in a library.")
 public class BorrowerCatalogue {
     List<Pair<Member, List<Book>>> borrowerList = new ArrayList<>();
+    private final List<BorrowerCatalogueListener> listeners = new CopyOnWriteArrayList<>();
+    private final Library library;
 
     /**
      * Constructs an empty BorrowerCatalogue.
      */
     public BorrowerCatalogue() {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty BorrowerCatalogue of the specified library.
+     * Changes to the catalogue hold the change lock of the library.
+     *
+     * @param library the library the catalogue belongs to, or null
+     */
+    public BorrowerCatalogue(Library library) {
+        this.library = library;
+    }
+
+    /**
+     * Registers a listener to be told about every change to the catalogue.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(BorrowerCatalogueListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(BorrowerCatalogueListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -28,7 +60,36 @@ public class BorrowerCatalogue {
      * @param member the member to be added as a borrower
      */
     public void addBorrower(Member member) {
-        this.borrowerList.add(new Pair<>(member, new ArrayList<>()));
+        lockChange();
+        try {
+            this.borrowerList.add(new Pair<>(member, new ArrayList<>()));
+            for (BorrowerCatalogueListener listener : listeners) {
+                listener.borrowerAdded(member);
+            }
+        } finally {
+            unlockChange();
+        }
+    }
+
+    /**
+     * Adds a borrower to the catalogue together with the books already borrowed by the member.
+     *
+     * @param member the member to be added as a borrower
+     * @param books  the books borrowed by the member
+     */
+    public void addBorrower(Member member, List<Book> books) {
+        lockChange();
+        try {
+            this.borrowerList.add(new Pair<>(member, new ArrayList<>(books)));
+            for (BorrowerCatalogueListener listener : listeners) {
+                listener.borrowerAdded(member);
+                for (Book book : books) {
+                    listener.bookBorrowed(member, book);
+                }
+            }
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -38,7 +99,15 @@ public class BorrowerCatalogue {
      * @param book   the book to be added to the member's list of borrowed books
      */
     public void addBookToBorrower(Member member, Book book) {
-        this.borrowerList.get(getIndexOfBorrower(member)).getSecond().add(book);
+        lockChange();
+        try {
+            this.borrowerList.get(getIndexOfBorrower(member)).getSecond().add(book);
+            for (BorrowerCatalogueListener listener : listeners) {
+                listener.bookBorrowed(member, book);
+            }
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -48,11 +117,21 @@ public class BorrowerCatalogue {
      * @param book   the book to be removed from the member's list of borrowed books
      */
     public void removeBookFromBorrower(Member member, Book book) {
-        if (!hasBorrower(member)) {
-            return;
-        }
+        lockChange();
+        try {
+            if (!hasBorrower(member)) {
+                return;
+            }
 
-        this.borrowerList.get(getIndexOfBorrower(member)).getSecond().remove(book);
+            if (!this.borrowerList.get(getIndexOfBorrower(member)).getSecond().remove(book)) {
+                return;
+            }
+            for (BorrowerCatalogueListener listener : listeners) {
+                listener.bookReturned(member, book);
+            }
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -61,11 +140,19 @@ public class BorrowerCatalogue {
      * @param member the member to be removed from the catalogue
      */
     public void removeBorrower(Member member) {
-        if (!hasBorrower(member)) {
-            return;
-        }
+        lockChange();
+        try {
+            if (!hasBorrower(member)) {
+                return;
+            }
 
-        this.borrowerList.remove(getIndexOfBorrower(member));
+            this.borrowerList.remove(getIndexOfBorrower(member));
+            for (BorrowerCatalogueListener listener : listeners) {
+                listener.borrowerRemoved(member);
+            }
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -142,4 +229,22 @@ public class BorrowerCatalogue {
 
         return index;
     }
+
+    /**
+     * Acquires the read lock of the change lock of the library, if the catalogue belongs to one.
+     */
+    private void lockChange() {
+        if (library != null) {
+            library.getChangeLock().readLock().lock();
+        }
+    }
+
+    /**
+     * Releases the read lock acquired by lockChange.
+     */
+    private void unlockChange() {
+        if (library != null) {
+            library.getChangeLock().readLock().unlock();
+        }
+    }
 }
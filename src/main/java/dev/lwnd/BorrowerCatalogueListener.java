@@ -0,0 +1,40 @@
+package dev.lwnd;
+
+import dev.lwnd.book.Book;
+import dev.lwnd.member.Member;
+
+/**
+ * Interface for receiving the changes made to a borrower catalogue.
+ * Listeners are called in the order the changes are applied and must return quickly.
+ */
+public interface BorrowerCatalogueListener {
+    /**
+     * Called after a borrower was added to the catalogue.
+     *
+     * @param member the member added as a borrower
+     */
+    void borrowerAdded(Member member);
+
+    /**
+     * Called after a book was added to the books borrowed by a member.
+     *
+     * @param member the member who borrowed the book
+     * @param book   the borrowed book
+     */
+    void bookBorrowed(Member member, Book book);
+
+    /**
+     * Called after a book was removed from the books borrowed by a member.
+     *
+     * @param member the member who returned the book
+     * @param book   the returned book
+     */
+    void bookReturned(Member member, Book book);
+
+    /**
+     * Called after a borrower was removed from the catalogue.
+     *
+     * @param member the member removed from the catalogue
+     */
+    void borrowerRemoved(Member member);
+}
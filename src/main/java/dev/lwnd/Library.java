@@ -1,8 +1,13 @@
 package dev.lwnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import dev.lwnd.book.Book;
 import dev.lwnd.book.BookCollection;
@@ -11,27 +16,203 @@ import dev.lwnd.member.Member;
 import dev.lwnd.member.MemberCollection;
 import dev.lwnd.member.MemberCollectionBuilder;
 import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.other.Pair;
+import dev.lwnd.persistence.CatalogueImporter;
+import dev.lwnd.persistence.ImportProgressListener;
+import dev.lwnd.persistence.LibraryCheckpointer;
+import dev.lwnd.persistence.LibraryJournal;
+import dev.lwnd.persistence.LibrarySnapshot;
 
 /**
  * The Library class represents a library that contains a collection of books,
  * a collection of members, and a borrower catalogue.
+ *
+ * <p>Every change to the collections and the catalogue holds the read lock of the library's change
+ * lock while it is applied and passed on to the listeners, so changes do not wait for each other
+ * on it. Holding the write lock excludes all changes, which lets a checkpoint read the state of
+ * the whole library together with the journal sequence number it corresponds to.
  */
 @ObjectDescription(description = "Represents a library that contains a collection of books, a collection of members, and a borrower catalogue.")
 public class Library {
     private BookCollection bookCollection;
     private MemberCollection memberCollection;
     private final BorrowerCatalogue borrowerCatalogue;
+    private final LibraryOptions options;
+    private long snapshotLsn;
+    private LibraryJournal journal;
+    private LibraryCheckpointer checkpointer;
+    private final ReadWriteLock changeLock = new ReentrantReadWriteLock();
 
     /**
      * Constructs a Library object and initializes the book collection, member collection,
      * and borrower catalogue.
      */
     public Library() {
-        bookCollection = new BookCollection(this);
+        this(new LibraryOptions());
+    }
+
+    /**
+     * Constructs a Library object with the specified options and initializes the book collection,
+     * member collection, and borrower catalogue.
+     *
+     * @param options the options of the library
+     */
+    public Library(LibraryOptions options) {
+        this.options = options;
+        bookCollection = new BookCollection(this, options.getBookStorage());
         populateBookCollection();
-        memberCollection = new MemberCollection(this);
         populateMemberCollection();
-        borrowerCatalogue = new BorrowerCatalogue();
+        borrowerCatalogue = new BorrowerCatalogue(this);
+    }
+
+    /**
+     * Constructs a Library object whose book and member collections are imported from CSV files.
+     *
+     * @param booksFile   the CSV file holding the books
+     * @param membersFile the CSV file holding the members
+     * @param listener    the listener receiving the progress of the import, or null
+     * @param options     the options of the library
+     * @throws IOException if a file cannot be read or holds a malformed record
+     */
+    private Library(Path booksFile, Path membersFile, ImportProgressListener listener, LibraryOptions options) throws IOException {
+        this.options = options;
+        CatalogueImporter importer = new CatalogueImporter();
+
+        BookCollectionBuilder bookCollectionBuilder = new BookCollectionBuilder(this, options.getBookStorage());
+        importer.importBooks(booksFile, bookCollectionBuilder, listener);
+        bookCollection = bookCollectionBuilder.build();
+
+        MemberCollectionBuilder memberCollectionBuilder = new MemberCollectionBuilder(this, options.isCaseInsensitiveUsernames());
+        importer.importMembers(membersFile, memberCollectionBuilder, listener);
+        memberCollection = memberCollectionBuilder.build();
+
+        borrowerCatalogue = new BorrowerCatalogue(this);
+    }
+
+    /**
+     * Constructs a Library object holding the contents of a snapshot.
+     *
+     * @param snapshot the snapshot to restore
+     * @param options  the options of the library
+     */
+    private Library(LibrarySnapshot snapshot, LibraryOptions options) {
+        this.options = options;
+        bookCollection = new BookCollectionBuilder(this, options.getBookStorage())
+                            .addSlots(snapshot.getBooks())
+                            .build();
+        memberCollection = new MemberCollectionBuilder(this, options.isCaseInsensitiveUsernames())
+                            .addMembers(snapshot.getMembers())
+                            .build();
+        borrowerCatalogue = new BorrowerCatalogue(this);
+        for (Pair<Member, List<Book>> borrower : snapshot.getBorrowers()) {
+            borrowerCatalogue.addBorrower(borrower.getFirst(), borrower.getSecond());
+        }
+        snapshotLsn = snapshot.getJournalLsn();
+    }
+
+    /**
+     * Creates a Library whose books, members and borrowers are read from a snapshot file.
+     *
+     * @param snapshotFile the snapshot file written by saveSnapshot
+     * @return the restored library
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static Library fromSnapshot(Path snapshotFile) throws IOException {
+        return fromSnapshot(snapshotFile, new LibraryOptions());
+    }
+
+    /**
+     * Creates a Library with the specified options whose books, members and borrowers are read from a snapshot file.
+     *
+     * @param snapshotFile the snapshot file written by saveSnapshot
+     * @param options      the options of the library
+     * @return the restored library
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static Library fromSnapshot(Path snapshotFile, LibraryOptions options) throws IOException {
+        return new Library(LibrarySnapshot.read(snapshotFile), options);
+    }
+
+    /**
+     * Creates a Library whose books, members and borrowers are read from a checkpoint directory.
+     *
+     * @param checkpointDirectory the directory written by a LibraryCheckpointer
+     * @return the restored library
+     * @throws IOException if the checkpoint cannot be read or is corrupt
+     */
+    public static Library fromCheckpoint(Path checkpointDirectory) throws IOException {
+        return fromCheckpoint(checkpointDirectory, new LibraryOptions());
+    }
+
+    /**
+     * Creates a Library with the specified options whose books, members and borrowers are read from a checkpoint directory.
+     *
+     * @param checkpointDirectory the directory written by a LibraryCheckpointer
+     * @param options             the options of the library
+     * @return the restored library
+     * @throws IOException if the checkpoint cannot be read or is corrupt
+     */
+    public static Library fromCheckpoint(Path checkpointDirectory, LibraryOptions options) throws IOException {
+        return new Library(LibraryCheckpointer.read(checkpointDirectory), options);
+    }
+
+    /**
+     * Writes the books, members and borrowers of the library to a snapshot file.
+     * The contents are captured under the write lock of the change lock, so the snapshot holds
+     * one consistent state of the library and the journal position it was taken at.
+     * Must not be called by a thread that is changing the library.
+     *
+     * @param snapshotFile the file to write the snapshot to
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(Path snapshotFile) throws IOException {
+        LibrarySnapshot snapshot;
+        changeLock.writeLock().lock();
+        try {
+            snapshot = LibrarySnapshot.of(this);
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+
+        snapshot.write(snapshotFile);
+    }
+
+    /**
+     * Creates a Library whose books and members are imported from CSV files.
+     * The files are streamed into the collections, so they may be much larger than the hard-coded catalogue.
+     *
+     * @param booksFile   the CSV file holding the books
+     * @param membersFile the CSV file holding the members
+     * @param listener    the listener receiving the progress of the import, or null
+     * @return the imported library
+     * @throws IOException if a file cannot be read or holds a malformed record
+     */
+    public static Library fromCsv(Path booksFile, Path membersFile, ImportProgressListener listener) throws IOException {
+        return fromCsv(booksFile, membersFile, listener, new LibraryOptions());
+    }
+
+    /**
+     * Creates a Library with the specified options whose books and members are imported from CSV files.
+     *
+     * @param booksFile   the CSV file holding the books
+     * @param membersFile the CSV file holding the members
+     * @param listener    the listener receiving the progress of the import, or null
+     * @param options     the options of the library
+     * @return the imported library
+     * @throws IOException if a file cannot be read or holds a malformed record
+     */
+    public static Library fromCsv(Path booksFile, Path membersFile, ImportProgressListener listener, LibraryOptions options)
+            throws IOException {
+        return new Library(booksFile, membersFile, listener, options);
+    }
+
+    /**
+     * Returns the options the library was created with.
+     *
+     * @return the options of the library
+     */
+    public LibraryOptions getOptions() {
+        return options;
     }
 
     /**
@@ -61,6 +242,76 @@ public class Library {
         return borrowerCatalogue;
     }
 
+    /**
+     * Returns the sequence number of the last journal record reflected in the library.
+     * This is the last record of the attached journal, or the record the library's snapshot was taken at.
+     *
+     * @return the journal sequence number of the library
+     */
+    public long getJournalLsn() {
+        return journal == null ? snapshotLsn : journal.getLastLsn();
+    }
+
+    /**
+     * Sets the journal recording the changes made to the library.
+     * Called by the journal once it is attached to the collections of the library.
+     *
+     * @param journal the journal of the library
+     */
+    public void setJournal(LibraryJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the journal recording the changes made to the library.
+     *
+     * @return the journal of the library, or null if it has none
+     */
+    public LibraryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the lock guarding the changes to the library.
+     * The collections and the catalogue hold its read lock while they change and tell their listeners;
+     * the write lock must not be taken by a thread that is changing the library.
+     *
+     * @return the change lock of the library
+     */
+    public ReadWriteLock getChangeLock() {
+        return changeLock;
+    }
+
+    /**
+     * Sets the checkpointer keeping a checkpoint of the library up to date.
+     * Called by the checkpointer once it tracks the collections of the library.
+     *
+     * @param checkpointer the checkpointer of the library
+     */
+    public void setCheckpointer(LibraryCheckpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    /**
+     * Makes the changes made to the library so far durable according to the policy of its journal,
+     * and writes a checkpoint if the journal has grown enough since the last one.
+     * Does nothing if the library has no journal.
+     *
+     * @throws UncheckedIOException if the journal or the checkpoint cannot be written
+     */
+    public void commit() throws UncheckedIOException {
+        if (journal != null) {
+            journal.commit();
+        }
+        if (checkpointer != null) {
+            try {
+                checkpointer.checkpointIfDue();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write the library checkpoint", e);
+            }
+        }
+    }
+
     /**
      * Populates the book collection with a list of books.
      */
@@ -102,7 +353,7 @@ public class Library {
             }
         }
 
-        bookCollection = new BookCollectionBuilder(this)
+        bookCollection = new BookCollectionBuilder(this, options.getBookStorage())
                             .addBooks(books)
                             .build();
     }
@@ -123,7 +374,7 @@ public class Library {
         members.add(new Member("user8", false));
         members.add(new Member("user9", false));
         members.add(new Member("user10", false));
-        memberCollection = new MemberCollectionBuilder(this)
+        memberCollection = new MemberCollectionBuilder(this, options.isCaseInsensitiveUsernames())
                             .addMembers(members)
                             .build();
     }
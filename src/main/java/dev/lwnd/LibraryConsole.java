@@ -1,11 +1,17 @@
 package dev.lwnd;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
 
+import dev.lwnd.book.BookStorage;
 import dev.lwnd.menu.MainMenu;
+import dev.lwnd.persistence.FsyncPolicy;
+import dev.lwnd.persistence.LibraryCheckpointer;
+import dev.lwnd.persistence.LibraryJournal;
 
 
 /**
@@ -23,9 +29,22 @@ public class LibraryConsole {
 
     /**
      * Initializes the library, creates a terminal, and starts the main menu.
+     * When the library.snapshot system property names a file, the library is exported to it as a
+     * snapshot on exit, and a new library with no checkpoint is restored from it.
      */
     void run(){
-        Library library = new Library();
+        String snapshotProperty = System.getProperty("library.snapshot");
+        Path snapshotFile = snapshotProperty == null ? null : Path.of(snapshotProperty);
+        Path journalFile = Path.of(System.getProperty("library.journal", LibraryJournal.DEFAULT_FILE_NAME));
+        Path checkpointDirectory = Path.of(System.getProperty("library.checkpoint", LibraryCheckpointer.DEFAULT_DIRECTORY_NAME));
+        Library library = createLibrary(checkpointDirectory, snapshotFile, journalFile, readOptions());
+        boolean restored = LibraryCheckpointer.exists(checkpointDirectory);
+        LibraryCheckpointer checkpointer = createCheckpointer(library, checkpointDirectory, restored);
+        LibraryJournal journal = openJournal(library, journalFile);
+        if (!restored) {
+            checkpoint(checkpointer);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(library, checkpointer, journal, snapshotFile)));
 
         Terminal terminal;
         try {
@@ -37,4 +56,156 @@ public class LibraryConsole {
 
         new MainMenu(terminal, library);
     }
+
+    /**
+     * Reads the options of the library from system properties.
+     * The library.books.storage property names the {@link BookStorage} of the book collection, and
+     * library.members.caseInsensitive set to true makes usernames that differ only in case the same username.
+     *
+     * @return the options of the library
+     */
+    LibraryOptions readOptions() {
+        BookStorage storage = BookStorage.valueOf(System.getProperty("library.books.storage", BookStorage.HEAP.name()));
+        boolean caseInsensitive = Boolean.parseBoolean(System.getProperty("library.members.caseInsensitive", "false"));
+        return new LibraryOptions()
+                .setBookStorage(storage)
+                .setCaseInsensitiveUsernames(caseInsensitive);
+    }
+
+    /**
+     * Creates the library. When the library.import.books and library.import.members system properties
+     * name CSV files, the books and members are imported from them. Otherwise the library is restored
+     * from the checkpoint if there is one, then from the snapshot file if one is configured and exists,
+     * and built from the built-in catalogue otherwise.
+     *
+     * An imported library starts a new journal and checkpoint, as the old ones do not apply to it.
+     *
+     * @param checkpointDirectory the checkpoint directory of the library
+     * @param snapshotFile        the snapshot file of the library, or null if none is configured
+     * @param journalFile         the journal file of the library
+     * @param options             the options of the library
+     * @return the library
+     */
+    Library createLibrary(Path checkpointDirectory, Path snapshotFile, Path journalFile, LibraryOptions options) {
+        String booksFile = System.getProperty("library.import.books");
+        String membersFile = System.getProperty("library.import.members");
+        if (booksFile == null || membersFile == null) {
+            if (LibraryCheckpointer.exists(checkpointDirectory)) {
+                try {
+                    return Library.fromCheckpoint(checkpointDirectory, options);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    throw new RuntimeException("Failed to load library checkpoint");
+                }
+            }
+
+            if (snapshotFile == null || !Files.exists(snapshotFile)) {
+                return new Library(options);
+            }
+
+            try {
+                return Library.fromSnapshot(snapshotFile, options);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Failed to load library snapshot");
+            }
+        }
+
+        try {
+            Files.deleteIfExists(journalFile);
+            LibraryCheckpointer.delete(checkpointDirectory);
+            return Library.fromCsv(Path.of(booksFile), Path.of(membersFile), (bytesRead, totalBytes, records) ->
+                    System.out.printf("Imported %d records (%d%%)%n", records, totalBytes == 0 ? 100 : bytesRead * 100 / totalBytes),
+                    options);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to import library");
+        }
+    }
+
+    /**
+     * Creates the checkpointer of the library. It is created before the journal is opened,
+     * so that the changes replayed from the journal are written by the next checkpoint.
+     *
+     * @param library             the library to checkpoint
+     * @param checkpointDirectory the checkpoint directory
+     * @param restored            true if the library was restored from the checkpoint
+     * @return the checkpointer
+     */
+    LibraryCheckpointer createCheckpointer(Library library, Path checkpointDirectory, boolean restored) {
+        try {
+            return new LibraryCheckpointer(checkpointDirectory, library, restored);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to read library checkpoint");
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the library.
+     *
+     * @param checkpointer the checkpointer of the library
+     */
+    void checkpoint(LibraryCheckpointer checkpointer) {
+        try {
+            checkpointer.checkpoint();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to write library checkpoint");
+        }
+    }
+
+    /**
+     * Opens the journal of the library, replaying the changes made since the last checkpoint.
+     * The fsync policy is read from the library.journal.fsync system property and the interval
+     * of the INTERVAL policy from library.journal.interval, in milliseconds.
+     *
+     * @param library     the library to journal
+     * @param journalFile the journal file
+     * @return the opened journal
+     */
+    LibraryJournal openJournal(Library library, Path journalFile) {
+        FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty("library.journal.fsync", FsyncPolicy.ALWAYS.name()));
+        long syncIntervalMillis = Long.getLong("library.journal.interval", LibraryJournal.DEFAULT_SYNC_INTERVAL_MILLIS);
+
+        try {
+            return LibraryJournal.open(journalFile, library, policy, syncIntervalMillis);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to open library journal");
+        }
+    }
+
+    /**
+     * Writes a last checkpoint and closes the journal, so that the next start replays nothing.
+     * Only the segments changed since the previous checkpoint are written; if writing fails,
+     * the journal keeps the changes and they are replayed on top of the previous checkpoint.
+     * The library is then exported to the snapshot file, if one is configured.
+     *
+     * @param library      the library to shut down
+     * @param checkpointer the checkpointer of the library
+     * @param journal      the journal of the library
+     * @param snapshotFile the snapshot file to export the library to, or null if none is configured
+     */
+    void shutdown(Library library, LibraryCheckpointer checkpointer, LibraryJournal journal, Path snapshotFile) {
+        try {
+            checkpointer.checkpoint();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (snapshotFile != null) {
+            try {
+                library.saveSnapshot(snapshotFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 }
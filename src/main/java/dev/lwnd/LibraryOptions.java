@@ -0,0 +1,60 @@
+package dev.lwnd;
+
+import dev.lwnd.book.BookStorage;
+import dev.lwnd.other.ObjectDescription;
+
+/**
+ * The options a Library is created with.
+ * The setters return the options object for method chaining.
+ */
+@ObjectDescription(description = "Represents the options a library is created with.")
+public class LibraryOptions {
+    private BookStorage bookStorage = BookStorage.HEAP;
+    private boolean caseInsensitiveUsernames;
+
+    /**
+     * Constructs a LibraryOptions object holding the default options.
+     */
+    public LibraryOptions() {
+    }
+
+    /**
+     * Returns the way the book collection of the library keeps its books.
+     *
+     * @return the book storage, HEAP by default
+     */
+    public BookStorage getBookStorage() {
+        return bookStorage;
+    }
+
+    /**
+     * Sets the way the book collection of the library keeps its books.
+     *
+     * @param bookStorage the book storage
+     * @return the LibraryOptions object for method chaining
+     */
+    public LibraryOptions setBookStorage(BookStorage bookStorage) {
+        this.bookStorage = bookStorage;
+        return this;
+    }
+
+    /**
+     * Checks if the member collection of the library looks up usernames regardless of case.
+     *
+     * @return true if usernames differing only in case are the same username, false by default
+     */
+    public boolean isCaseInsensitiveUsernames() {
+        return caseInsensitiveUsernames;
+    }
+
+    /**
+     * Sets whether the member collection of the library looks up usernames regardless of case.
+     *
+     * @param caseInsensitiveUsernames true to treat usernames differing only in case as the same username
+     * @return the LibraryOptions object for method chaining
+     */
+    public LibraryOptions setCaseInsensitiveUsernames(boolean caseInsensitiveUsernames) {
+        this.caseInsensitiveUsernames = caseInsensitiveUsernames;
+        return this;
+    }
+}
@@ -0,0 +1,216 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A dictionary that assigns every distinct author an int id.
+ * It keeps one canonical copy of each author name, the books written by each author,
+ * and a table ranking the ids in alphabetical order of the names so that authors
+ * can be compared as ints.
+ *
+ * <p>The rank table is rebuilt in one sort whenever the authors added since the last rebuild
+ * outnumber the ranked ones, so interning n authors sorts O(n log n) names in total however
+ * the additions are interleaved with comparisons. Authors added since the last rebuild are
+ * compared by name, which gives the same order as their ranks will.
+ */
+public class AuthorDictionary {
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<BookSet> booksByAuthor = new ArrayList<>();
+    private volatile int[] ranks = new int[0];
+
+    /**
+     * Constructs an empty AuthorDictionary.
+     */
+    public AuthorDictionary() {
+    }
+
+    /**
+     * Returns the id of an author, assigning a new id if the author is not yet known.
+     *
+     * @param author the name of the author
+     * @return the id of the author
+     */
+    public int intern(String author) {
+        Integer id = ids.get(author);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = names.size();
+        names.add(author);
+        ids.put(author, newId);
+        booksByAuthor.add(new BookSet());
+        if (names.size() >= 2 * ranks.length) {
+            rebuildRanks();
+        }
+        return newId;
+    }
+
+    /**
+     * Returns the id of an author.
+     *
+     * @param author the name of the author
+     * @return the id of the author, or -1 if the author is not known
+     */
+    public int getId(String author) {
+        Integer id = ids.get(author);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the canonical name of the author with the specified id.
+     *
+     * @param id the id of the author
+     * @return the name of the author
+     * @throws IndexOutOfBoundsException if no author has the id
+     */
+    public String getName(int id) throws IndexOutOfBoundsException {
+        return names.get(id);
+    }
+
+    /**
+     * Returns the number of distinct authors in the dictionary.
+     *
+     * @return the number of authors
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Returns the alphabetical rank of the author with the specified id in the last rebuilt rank table.
+     *
+     * @param id the id of the author
+     * @return the rank of the author among the ranked authors, or -1 if the author was added
+     *         after the last rebuild
+     * @throws IndexOutOfBoundsException if no author has the id
+     */
+    public int getRank(int id) throws IndexOutOfBoundsException {
+        int[] ranks = this.ranks;
+        if (id >= ranks.length) {
+            Objects.checkIndex(id, names.size());
+            return -1;
+        }
+
+        return ranks[id];
+    }
+
+    /**
+     * Rebuilds the rank table if authors were added since the last rebuild,
+     * so that {@link #getRank(int)} ranks every author of the dictionary.
+     */
+    void rankAll() {
+        if (ranks.length != names.size()) {
+            rebuildRanks();
+        }
+    }
+
+    /**
+     * Returns the books written by the specified author.
+     *
+     * @param author the name of the author
+     * @return the books of the author, or an empty list if the author is not known
+     */
+    public List<Book> getBooks(String author) {
+        int id = getId(author);
+        if (id == -1) {
+            return new ArrayList<>();
+        }
+
+        return booksByAuthor.get(id).toList();
+    }
+
+    /**
+     * Adds a book to the list of books of its author.
+     * The author of the book is replaced by the canonical copy of the name, and the book
+     * remembers its author id so that comparisons need not look it up.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        int id = intern(book.getAuthor());
+        book.setAuthor(names.get(id));
+        book.setAuthorId(id);
+        booksByAuthor.get(id).add(book);
+    }
+
+    /**
+     * Removes a book from the list of books of its author.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        int id = idOf(book);
+        if (id == -1) {
+            return;
+        }
+
+        booksByAuthor.get(id).remove(book);
+    }
+
+    /**
+     * Compares the authors of two books by their ranks.
+     * Books whose author is not in the dictionary or not yet ranked are compared by name.
+     * The comparison never changes the dictionary.
+     *
+     * @param book1 the first book to compare
+     * @param book2 the second book to compare
+     * @return a negative integer, zero, or a positive integer as the author of book1
+     *         comes before, is equal to, or comes after the author of book2
+     */
+    int compare(Book book1, Book book2) {
+        int id1 = idOf(book1);
+        int id2 = idOf(book2);
+        if (id1 == -1 || id2 == -1) {
+            return book1.getAuthor().compareTo(book2.getAuthor());
+        }
+        if (id1 == id2) {
+            return 0;
+        }
+
+        int[] ranks = this.ranks;
+        if (id1 < ranks.length && id2 < ranks.length) {
+            return Integer.compare(ranks[id1], ranks[id2]);
+        }
+        return names.get(id1).compareTo(names.get(id2));
+    }
+
+    /**
+     * Returns the id of the author of a book.
+     * The id remembered by the book is used when it refers to this dictionary's copy of the name.
+     *
+     * @param book the book
+     * @return the id of the author, or -1 if the author is not known
+     */
+    private int idOf(Book book) {
+        int id = book.getAuthorId();
+        if (id >= 0 && id < names.size() && names.get(id) == book.getAuthor()) {
+            return id;
+        }
+
+        return getId(book.getAuthor());
+    }
+
+    /**
+     * Sorts the author ids by name and stores the position of every id in the rank table.
+     */
+    private void rebuildRanks() {
+        Integer[] sortedIds = new Integer[names.size()];
+        for (int i = 0; i < sortedIds.length; i++) {
+            sortedIds[i] = i;
+        }
+        Arrays.sort(sortedIds, (first, second) -> names.get(first).compareTo(names.get(second)));
+
+        int[] newRanks = new int[sortedIds.length];
+        for (int rank = 0; rank < sortedIds.length; rank++) {
+            newRanks[sortedIds[rank]] = rank;
+        }
+        ranks = newRanks;
+    }
+}
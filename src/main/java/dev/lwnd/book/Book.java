@@ -2,19 +2,32 @@ package dev.lwnd.book;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 
 import dev.lwnd.other.Loggable;
 import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.util.DateUtil;
+import dev.lwnd.util.TextUtil;
 
 /**
  * Represents a book with a title, author, and publication date.
+ * Every book has a numeric id that is unique within the running application and stays the same
+ * wherever the book is stored; two books are equal if they have the same id.
  */
 @Loggable
 @ObjectDescription(description = "Represents a book with a title, author, and publication date.")
 public class Book {
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
     private String title;
+    private String searchKey;
     private String author;
+    private int authorId = -1;
     private Date publicationDate;
+    private long publicationEpochDay;
+    private volatile CollationKey titleCollationKey;
+    private volatile CollationKey authorCollationKey;
 
     /**
      * Constructs a Book object with the specified title, author, and publication date.
@@ -24,9 +37,57 @@ public class Book {
      * @param publicationDate the publication date of the book
      */
     public Book(String title, String author, Date publicationDate) {
+        this.id = NEXT_ID.getAndIncrement();
         this.title = title;
+        this.searchKey = TextUtil.fold(title);
         this.author = author;
         this.publicationDate = publicationDate;
+        this.publicationEpochDay = DateUtil.toEpochDay(publicationDate);
+    }
+
+    /**
+     * Constructs a Book object with the specified title, author, and publication date
+     * given as the number of days since 1970-01-01.
+     *
+     * @param title               the title of the book
+     * @param author              the author of the book
+     * @param publicationEpochDay the publication epoch day of the book
+     */
+    public Book(String title, String author, long publicationEpochDay) {
+        this(NEXT_ID.getAndIncrement(), title, author, publicationEpochDay);
+    }
+
+    /**
+     * Constructs a Book object with a known id, as when a stored book is read back.
+     * Books constructed afterwards get ids above it.
+     *
+     * @param id                  the id of the book
+     * @param title               the title of the book
+     * @param author              the author of the book
+     * @param publicationEpochDay the publication epoch day of the book
+     * @throws IllegalArgumentException if the id is negative
+     */
+    public Book(long id, String title, String author, long publicationEpochDay) throws IllegalArgumentException {
+        if (id < 0) {
+            throw new IllegalArgumentException("Book id must not be negative");
+        }
+
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.title = title;
+        this.searchKey = TextUtil.fold(title);
+        this.author = author;
+        this.publicationDate = DateUtil.toDate(publicationEpochDay);
+        this.publicationEpochDay = publicationEpochDay;
+    }
+
+    /**
+     * Returns the id of the book.
+     *
+     * @return the id of the book
+     */
+    public long getId() {
+        return id;
     }
 
     /**
@@ -45,6 +106,19 @@ public class Book {
      */
     public void setTitle(String title) {
         this.title = title;
+        this.searchKey = TextUtil.fold(title);
+        this.titleCollationKey = CollationKey.recompute(titleCollationKey, title);
+    }
+
+    /**
+     * Returns the search key of the book.
+     * The search key is the title folded to lowercase with accents stripped,
+     * and is computed once whenever the title is set.
+     *
+     * @return the search key of the book
+     */
+    public String getSearchKey() {
+        return searchKey;
     }
 
     /**
@@ -63,6 +137,60 @@ public class Book {
      */
     public void setAuthor(String author) {
         this.author = author;
+        this.authorId = -1;
+        this.authorCollationKey = CollationKey.recompute(authorCollationKey, author);
+    }
+
+    /**
+     * Returns the author id assigned to the book by an author dictionary.
+     *
+     * @return the author id, or -1 if none is assigned
+     */
+    int getAuthorId() {
+        return authorId;
+    }
+
+    /**
+     * Sets the author id of the book.
+     *
+     * @param authorId the author id assigned by an author dictionary
+     */
+    void setAuthorId(int authorId) {
+        this.authorId = authorId;
+    }
+
+    /**
+     * Returns the collation key bytes of the title in the specified collation.
+     * The key is computed on first use and kept, for the most recently used collation,
+     * until the title changes.
+     *
+     * @param collation the collation to order by
+     * @return the collation key bytes of the title
+     */
+    byte[] getTitleCollationKey(BookCollation collation) {
+        CollationKey key = titleCollationKey;
+        if (key == null || key.collation != collation) {
+            key = new CollationKey(collation, collation.key(title));
+            titleCollationKey = key;
+        }
+        return key.bytes;
+    }
+
+    /**
+     * Returns the collation key bytes of the author in the specified collation.
+     * The key is computed on first use and kept, for the most recently used collation,
+     * until the author changes.
+     *
+     * @param collation the collation to order by
+     * @return the collation key bytes of the author
+     */
+    byte[] getAuthorCollationKey(BookCollation collation) {
+        CollationKey key = authorCollationKey;
+        if (key == null || key.collation != collation) {
+            key = new CollationKey(collation, collation.key(author));
+            authorCollationKey = key;
+        }
+        return key.bytes;
     }
 
     /**
@@ -81,6 +209,38 @@ public class Book {
      */
     public void setPublicationDate(Date publicationDate) {
         this.publicationDate = publicationDate;
+        this.publicationEpochDay = DateUtil.toEpochDay(publicationDate);
+    }
+
+    /**
+     * Returns the publication date of the book as the number of days since 1970-01-01.
+     * The value is computed once whenever the publication date is set.
+     *
+     * @return the publication epoch day of the book
+     */
+    public long getPublicationEpochDay() {
+        return publicationEpochDay;
+    }
+
+    /**
+     * Checks if another object is a book with the same id.
+     *
+     * @param other the object to compare with
+     * @return true if the other object is a book with the same id, false otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Book book && book.id == id;
+    }
+
+    /**
+     * Returns a hash code derived from the id of the book.
+     *
+     * @return the hash code of the book
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
     }
 
     /**
@@ -91,4 +251,35 @@ public class Book {
         System.out.println("Author: " + author);
         System.out.println("Publication date: " + new SimpleDateFormat("yyyy.MM.dd").format(publicationDate));
     }
+
+    /**
+     * The collation key bytes of a text, together with the collation they were computed in.
+     */
+    private static class CollationKey {
+        private final BookCollation collation;
+        private final byte[] bytes;
+
+        /**
+         * Constructs a CollationKey.
+         *
+         * @param collation the collation the key was computed in
+         * @param bytes     the key bytes
+         */
+        CollationKey(BookCollation collation, byte[] bytes) {
+            this.collation = collation;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the key of a changed text in the collation of a cached key,
+         * so that a book sorted once stays ready to sort after an edit.
+         *
+         * @param cached the cached key of the previous text, or null if none is cached
+         * @param text   the changed text
+         * @return the key of the changed text, or null if none was cached
+         */
+        static CollationKey recompute(CollationKey cached, String text) {
+            return cached == null ? null : new CollationKey(cached.collation, cached.collation.key(text));
+        }
+    }
 }
@@ -6,6 +6,25 @@ import java.util.Comparator;
  * A comparator for comparing books based on their authors.
  */
 public class BookAuthorComparator implements Comparator<Book> {
+    private final AuthorDictionary dictionary;
+
+    /**
+     * Constructs a BookAuthorComparator that compares the author names.
+     */
+    public BookAuthorComparator() {
+        this.dictionary = null;
+    }
+
+    /**
+     * Constructs a BookAuthorComparator that compares the ranks of the authors in the provided dictionary.
+     * Authors not in the dictionary are compared by name.
+     *
+     * @param dictionary the dictionary ranking the authors
+     */
+    public BookAuthorComparator(AuthorDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
     /**
      * Compares two books based on their authors.
      *
@@ -16,6 +35,10 @@ public class BookAuthorComparator implements Comparator<Book> {
      */
     @Override
     public int compare(Book book1, Book book2) {
+        if (dictionary != null) {
+            return dictionary.compare(book1, book2);
+        }
+
         return book1.getAuthor().compareTo(book2.getAuthor());
     }
 }
@@ -0,0 +1,90 @@
+package dev.lwnd.book;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.lwnd.other.ObjectDescription;
+
+/**
+ * Orders book titles and authors by the collation rules of a locale, so that "Húrin" sorts next to
+ * "Hurin" rather than after "Z".
+ *
+ * <p>Comparing with a {@link Collator} directly re-parses both strings on every comparison.
+ * Instead, each book computes the collation key bytes of its title and author once, caches them
+ * and recomputes them when its title or author is set, and the comparators compare those bytes
+ * as unsigned values, which is as cheap as comparing the raw strings.
+ */
+@ObjectDescription(description = "Represents the locale-aware ordering of book titles and authors.")
+public class BookCollation {
+    private static final Map<Locale, BookCollation> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final Collator collator;
+    private final Comparator<Book> titleComparator;
+    private final Comparator<Book> authorComparator;
+
+    /**
+     * Constructs a BookCollation for the specified locale.
+     *
+     * @param locale the locale whose collation rules order the books
+     */
+    private BookCollation(Locale locale) {
+        this.locale = locale;
+        this.collator = Collator.getInstance(locale);
+        this.titleComparator = (book1, book2) -> Arrays.compareUnsigned(book1.getTitleCollationKey(this), book2.getTitleCollationKey(this));
+        this.authorComparator = (book1, book2) -> Arrays.compareUnsigned(book1.getAuthorCollationKey(this), book2.getAuthorCollationKey(this));
+    }
+
+    /**
+     * Returns the collation of the specified locale.
+     * There is one collation per locale, so the keys cached by the books are shared by every sort in that locale.
+     *
+     * @param locale the locale whose collation rules order the books
+     * @return the collation of the locale
+     */
+    public static BookCollation forLocale(Locale locale) {
+        return INSTANCES.computeIfAbsent(locale, BookCollation::new);
+    }
+
+    /**
+     * Returns the locale of the collation.
+     *
+     * @return the locale
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns a comparator ordering books by the collation keys of their titles.
+     *
+     * @return the title comparator
+     */
+    public Comparator<Book> titleComparator() {
+        return titleComparator;
+    }
+
+    /**
+     * Returns a comparator ordering books by the collation keys of their authors.
+     *
+     * @return the author comparator
+     */
+    public Comparator<Book> authorComparator() {
+        return authorComparator;
+    }
+
+    /**
+     * Computes the collation key bytes of a text.
+     * The collator is shared, and collators are not safe for concurrent use, so computing is synchronized.
+     *
+     * @param text the text to compute the key of
+     * @return the collation key bytes
+     */
+    synchronized byte[] key(String text) {
+        return collator.getCollationKey(text).toByteArray();
+    }
+}
@@ -1,10 +1,28 @@
 package dev.lwnd.book;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jline.terminal.Terminal;
 import org.jline.utils.NonBlockingReader;
@@ -12,173 +30,1334 @@ import org.jline.utils.NonBlockingReader;
 import dev.lwnd.Library;
 import dev.lwnd.other.ObjectDescription;
 import dev.lwnd.util.ScreenUtil;
+import dev.lwnd.util.TextUtil;
 
 /**
  * Represents a collection of books in a library.
+ *
+ * <p>The books are kept in slots in the order they were added, and a map from book ids to slots
+ * finds any book in constant time. Removing a book only empties its slot, so no other book moves;
+ * once more than half of the slots are empty, the remaining books are moved together in one pass.
+ * The index of a book is its position among the books of the collection, which equals its slot as
+ * long as no slot is empty.
+ *
+ * <p>By default the slots hold Book objects, and the collection keeps lookup indexes over them.
+ * A collection created with a {@link BookStorage} other than HEAP keeps its slots in a
+ * {@link BookStore} instead, which holds the books in a compact layout and materializes a Book only
+ * when one is read. Such a collection keeps no lookup indexes, as they would hold every book on the
+ * heap again: title lookups, filters and sorted listings scan the store, and the fuzzy, completion
+ * and full-text searches find nothing.
  */
 @ObjectDescription(description = "Represents a collection of books in a library.")
 public class BookCollection {
-    private final List<Book> books;
+    /**
+     * The default number of books from which bulk operations run in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
+    private final BookStorage storage;
+    private final BookStore store;
+    private final List<Book> slots;
+    private final BookSlotMap slotsById = new BookSlotMap();
+    private int emptySlots;
+    private final Map<String, BookSet> titleIndex = new HashMap<>();
+    private final TitleTrigramIndex trigramIndex = new TitleTrigramIndex();
+    private final TitleWordTree titleWordTree = new TitleWordTree();
+    private final TitleTrie titleTrie = new TitleTrie();
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+    private final AuthorDictionary authorDictionary = new AuthorDictionary();
+    private final SortedBookView titleView = new SortedBookView(new BookTitleComparator());
+    private final SortedBookView authorView = new SortedBookView(new BookAuthorComparator(authorDictionary));
+    private final PublicationDateIndex publicationDateIndex = new PublicationDateIndex();
     private final Library owningLibrary;
+    private final List<BookCollectionListener> listeners = new CopyOnWriteArrayList<>();
+    private final StampedLock lock;
+    private volatile Book[] snapshot;
+    private volatile List<Book> unindexedBooks;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Constructs a new BookCollection object with the specified owning library.
+     *
+     * @param owningLibrary the library that owns this book collection
+     */
+    public BookCollection(Library owningLibrary) {
+        this(owningLibrary, false);
+    }
+
+    /**
+     * Constructs a new BookCollection object with the specified owning library.
+     * A thread-safe collection serializes its writers and lets readers proceed in parallel:
+     * lookups share the read lock, the size is read optimistically without locking,
+     * and listings are served from immutable snapshots.
+     *
+     * @param owningLibrary the library that owns this book collection
+     * @param threadSafe    true to make the collection safe to share between threads, false otherwise
+     */
+    public BookCollection(Library owningLibrary, boolean threadSafe) {
+        this.owningLibrary = owningLibrary;
+        this.lock = threadSafe ? new StampedLock() : null;
+        this.storage = BookStorage.HEAP;
+        this.store = null;
+        this.slots = new ArrayList<>();
+    }
+
+    /**
+     * Constructs a new BookCollection object with the specified owning library that keeps its books as specified.
+     * A collection that keeps its books in a store is not thread-safe.
+     *
+     * @param owningLibrary the library that owns this book collection
+     * @param storage       the way the collection keeps its books
+     */
+    public BookCollection(Library owningLibrary, BookStorage storage) {
+        this.owningLibrary = owningLibrary;
+        this.lock = null;
+        this.storage = storage;
+        this.store = storage.createStore();
+        this.slots = store == null ? new ArrayList<>() : new StoredSlots(store);
+    }
+
+    /**
+     * Constructs a new BookCollection object with the specified owning library and initial books.
+     *
+     * @param owningLibrary the library that owns this book collection
+     * @param books         the initial books in the collection
+     */
+    public BookCollection(Library owningLibrary, List<Book> books) {
+        this.owningLibrary = owningLibrary;
+        this.lock = null;
+        this.storage = BookStorage.HEAP;
+        this.store = null;
+        this.slots = new ArrayList<>();
+        occupyAll(books);
+        indexAll(books);
+    }
+
+    /**
+     * Returns the library that owns this book collection.
+     *
+     * @return the owning library
+     */
+    public Library getOwningLibrary() {
+        return owningLibrary;
+    }
+
+    /**
+     * Checks if the collection is safe to share between threads.
+     *
+     * @return true if the collection is thread-safe, false otherwise
+     */
+    public boolean isThreadSafe() {
+        return lock != null;
+    }
+
+    /**
+     * Returns the way the collection keeps its books.
+     *
+     * @return the storage of the collection
+     */
+    public BookStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Registers a listener to be told about every change to the collection.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(BookCollectionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(BookCollectionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a book to the collection.
+     *
+     * @param book the book to add
+     * @throws IllegalArgumentException if a book with the same id is already in the collection
+     */
+    public void addBook(Book book) throws IllegalArgumentException {
+        long stamp = lockWrite();
+        try {
+            occupy(book);
+            index(book);
+            for (BookCollectionListener listener : listeners) {
+                listener.bookAdded(book);
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a list of books to the collection.
+     *
+     * @param books the list of books to add
+     * @throws IllegalArgumentException if a book with the same id as one of the books is already in the collection
+     */
+    public void addBooks(List<Book> books) throws IllegalArgumentException {
+        long stamp = lockWrite();
+        try {
+            occupyAll(books);
+            indexAll(books);
+            for (BookCollectionListener listener : listeners) {
+                listener.booksAdded(books);
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds the books of a list of slots to the collection, keeping each book in the same slot
+     * relative to the slots already in the collection. A null entry leaves its slot empty.
+     * Used to restore a collection from storage that records its slots; listeners are told about
+     * the books only, so the slots should be restored before listeners are added.
+     *
+     * @param slots the books of the slots, with null for an empty slot
+     * @throws IllegalArgumentException if a book with the same id as one of the books is already in the collection
+     */
+    void addSlots(List<Book> slots) throws IllegalArgumentException {
+        List<Book> books = new ArrayList<>(slots.size());
+        for (Book book : slots) {
+            if (book != null) {
+                books.add(book);
+            }
+        }
+
+        long stamp = lockWrite();
+        try {
+            occupyAll(slots);
+            indexAll(books);
+            for (BookCollectionListener listener : listeners) {
+                listener.booksAdded(books);
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Updates a book in the collection with the provided updated book.
+     * The updated book takes the slot and the id of the original book; an updated book with another id
+     * is stored as a copy carrying the id of the original book.
+     *
+     * @param originalBook the original book to update
+     * @param updatedBook  the updated book
+     * @throws BookNotFoundException if the original book is not found in the collection
+     */
+    public void updateBook(Book originalBook, Book updatedBook) throws BookNotFoundException {
+        long stamp = lockWrite();
+        try {
+            int slot = slotsById.get(originalBook.getId());
+            if (slot == -1) {
+                throw new BookNotFoundException("Book not found");
+            }
+
+            replace(slot, updatedBook);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Updates a book in the collection at the specified index with the provided updated book.
+     * The updated book takes the id of the original book, as with {@link #updateBook(Book, Book)}.
+     * Finding the book by index takes a scan of the slots while any slot is empty.
+     *
+     * @param index        the index of the book to update
+     * @param updatedBook  the updated book
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size)
+     */
+    public void updateBook(int index, Book updatedBook) throws IndexOutOfBoundsException {
+        long stamp = lockWrite();
+        try {
+            replace(slotOfIndex(index), updatedBook);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a book from the collection, leaving its slot empty.
+     *
+     * @param book the book to remove
+     * @throws BookNotFoundException if the book is not found in the collection
+     */
+    public void removeBook(Book book) throws BookNotFoundException {
+        long stamp = lockWrite();
+        try {
+            int slot = slotsById.remove(book.getId());
+            if (slot == -1) {
+                throw new BookNotFoundException("Book not found");
+            }
+
+            Book removedBook = slots.set(slot, null);
+            emptySlots++;
+            unindex(removedBook);
+            for (BookCollectionListener listener : listeners) {
+                listener.bookRemoved(slot, removedBook);
+            }
+            compactIfNeeded();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the book at the specified index in the collection.
+     * Finding the book by index takes a scan of the slots while any slot is empty.
+     *
+     * @param index the index of the book
+     * @return the book at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size)
+     */
+    public Book getBook(int index) throws IndexOutOfBoundsException {
+        return read(() -> slots.get(slotOfIndex(index)));
+    }
+
+    /**
+     * Returns the book with the specified id.
+     *
+     * @param id the id of the book
+     * @return the book with the id
+     * @throws BookNotFoundException if the collection holds no book with the id
+     */
+    public Book getBookById(long id) throws BookNotFoundException {
+        return read(() -> {
+            int slot = slotsById.get(id);
+            if (slot == -1) {
+                throw new BookNotFoundException("Book not found");
+            }
+
+            return slots.get(slot);
+        });
+    }
+
+    /**
+     * Returns the index of a book in the collection.
+     * Counting the index takes a scan of the slots before the book while any slot is empty.
+     *
+     * @param book the book to look for
+     * @return the index of the book, or -1 if the collection does not contain it
+     */
+    public int indexOf(Book book) {
+        return read(() -> {
+            int slot = slotsById.get(book.getId());
+            if (slot == -1 || emptySlots == 0) {
+                return slot;
+            }
+
+            int index = 0;
+            for (int i = 0; i < slot; i++) {
+                if (isOccupied(i)) {
+                    index++;
+                }
+            }
+            return index;
+        });
+    }
+
+    /**
+     * Returns the number of books in the collection.
+     *
+     * @return the number of books
+     */
+    public int size() {
+        if (lock == null) {
+            return slotsById.size();
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        int size = slotsById.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = slotsById.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the slots of the collection, in which removed books leave null until the collection
+     * is compacted. The slot of a book does not change until the next compaction.
+     * The list is a read-only view; a thread-safe collection returns a copy instead.
+     *
+     * @return the books of the slots, with null for an empty slot
+     */
+    public List<Book> getSlots() {
+        if (lock == null) {
+            return Collections.unmodifiableList(slots);
+        }
+
+        long stamp = lockRead();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(slots));
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a window of the books of the collection, in the order they were added.
+     * Only the books of the window are copied, so listing a page costs the same however large
+     * the collection is, apart from finding the first book while any slot is empty.
+     *
+     * @param from  the index of the first book of the window
+     * @param count the maximum number of books in the window
+     * @return the books of the window, fewer than count at the end of the collection
+     * @throws IndexOutOfBoundsException if from is out of range (from < 0 || from > size) or count is negative
+     */
+    public List<Book> getBooks(int from, int count) throws IndexOutOfBoundsException {
+        return read(() -> {
+            checkWindow(from, count, slotsById.size());
+            List<Book> window = new ArrayList<>(Math.min(count, slotsById.size() - from));
+            if (from == slotsById.size()) {
+                return window;
+            }
+
+            for (int slot = slotOfIndex(from); slot < slots.size() && window.size() < count; slot++) {
+                if (isOccupied(slot)) {
+                    window.add(slots.get(slot));
+                }
+            }
+            return window;
+        });
+    }
+
+    /**
+     * Returns a window of the books of the collection in the specified order.
+     * The orders are maintained by the collection, so only the books of the window are copied.
+     *
+     * @param order the order of the books
+     * @param from  the index of the first book of the window in that order
+     * @param count the maximum number of books in the window
+     * @return the books of the window, fewer than count at the end of the collection
+     * @throws IndexOutOfBoundsException if from is out of range (from < 0 || from > size) or count is negative
+     */
+    public List<Book> getBooks(BookSortOrder order, int from, int count) throws IndexOutOfBoundsException {
+        if (store != null) {
+            return read(() -> {
+                checkWindow(from, count, slotsById.size());
+                return store.sorted(order, from, count);
+            });
+        }
+
+        return readIndexed(() -> {
+            if (order == BookSortOrder.PUBLICATION_DATE) {
+                checkWindow(from, count, publicationDateIndex.size());
+                return publicationDateIndex.window(from, count);
+            }
+
+            SortedBookView view = order == BookSortOrder.TITLE ? titleView : authorView;
+            checkWindow(from, count, view.size());
+            return view.window(from, count);
+        });
+    }
+
+    /**
+     * Returns the book with the specified title from the collection.
+     *
+     * @param title the title of the book
+     * @return the book with the specified title
+     * @throws BookNotFoundException if the book with the specified title is not found in the collection
+     */
+    public Book getBook(String title) throws BookNotFoundException {
+        if (store != null) {
+            List<Book> booksWithTitle = scanTitle(title);
+            if (booksWithTitle.isEmpty()) {
+                throw new BookNotFoundException("Book not found");
+            }
+            return booksWithTitle.get(0);
+        }
+
+        return readIndexed(() -> {
+            BookSet booksWithTitle = titleIndex.get(title);
+            if (booksWithTitle == null) {
+                throw new BookNotFoundException("Book not found");
+            }
+
+            return booksWithTitle.first();
+        });
+    }
+
+    /**
+     * Returns all books with the specified title from the collection.
+     * Several copies of the same title may be held by the library.
+     *
+     * @param title the title of the books
+     * @return the books with the specified title, or an empty list if there are none
+     */
+    public List<Book> getBooks(String title) {
+        if (store != null) {
+            return scanTitle(title);
+        }
+
+        return readIndexed(() -> {
+            BookSet booksWithTitle = titleIndex.get(title);
+            if (booksWithTitle == null) {
+                return new ArrayList<>();
+            }
+
+            return booksWithTitle.toList();
+        });
+    }
+
+    /**
+     * Checks if the collection contains the specified book, that is a book with its id.
+     *
+     * @param book the book to check
+     * @return true if the collection contains the book, false otherwise
+     */
+    public boolean hasBook(Book book) {
+        return read(() -> slotsById.get(book.getId()) != -1);
+    }
+
+    /**
+     * Checks if the collection contains a book with the specified title.
+     *
+     * @param title the title of the book
+     * @return true if the collection contains a book with the specified title, false otherwise
+     */
+    public boolean hasBook(String title) {
+        if (store != null) {
+            return !scanTitle(title).isEmpty();
+        }
+
+        return readIndexed(() -> titleIndex.containsKey(title));
+    }
+
+    /**
+     * Returns the books written by the specified author.
+     *
+     * @param author the name of the author
+     * @return the books of the author, or an empty list if there are none
+     */
+    public List<Book> getBooksByAuthor(String author) {
+        if (store != null) {
+            return stream().filter(book -> book.getAuthor().equals(author)).toList();
+        }
+
+        return readIndexed(() -> authorDictionary.getBooks(author));
+    }
+
+    /**
+     * Returns the dictionary of the authors of the books in the collection.
+     * The dictionary itself is not thread-safe, and it is empty for a collection that keeps its books in a store.
+     *
+     * @return the author dictionary
+     */
+    public AuthorDictionary getAuthorDictionary() {
+        ensureIndexed();
+        return authorDictionary;
+    }
+
+    /**
+     * Returns a list of all the books in the collection.
+     * The list is an immutable snapshot, shared between callers until the collection changes.
+     * A collection that keeps its books in a store returns a read-only view instead,
+     * which materializes every book as it is read.
+     *
+     * @return a list of all the books
+     */
+    public List<Book> getAllBooks() {
+        return snapshotList();
+    }
+
+    /**
+     * Returns the number of books from which bulk operations run in parallel.
+     *
+     * @return the parallel threshold
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of books from which bulk operations run in parallel on the common ForkJoinPool.
+     *
+     * @param parallelThreshold the parallel threshold
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public void setParallelThreshold(int parallelThreshold) throws IllegalArgumentException {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold must not be negative");
+        }
+
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns a stream over a snapshot of the books in the collection.
+     * The snapshot is not affected by later changes to the collection, and its spliterator is sized,
+     * so it splits evenly across cores. The stream is parallel when the snapshot holds at least
+     * the parallel threshold of books. A collection that keeps its books in a store streams them
+     * sequentially, materializing every book as it is reached.
+     *
+     * @return a stream of the books in the collection
+     */
+    public Stream<Book> stream() {
+        if (store != null) {
+            return storedBooks().stream();
+        }
+
+        Book[] books = snapshot();
+        Spliterator<Book> spliterator = Spliterators.spliterator(books,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, books.length >= parallelThreshold);
+    }
+
+    /**
+     * Returns the books of the collection that match the predicate, in collection order.
+     *
+     * @param predicate the predicate the books must match
+     * @return the matching books
+     */
+    public List<Book> query(Predicate<Book> predicate) {
+        return stream().filter(predicate).toList();
+    }
+
+    /**
+     * Returns the books of the collection that match the predicate, in the order of the comparator.
+     *
+     * @param predicate  the predicate the books must match
+     * @param comparator the comparator to order the matching books by
+     * @return the matching books in order
+     */
+    public List<Book> query(Predicate<Book> predicate, Comparator<Book> comparator) {
+        return stream().filter(predicate).sorted(comparator).toList();
+    }
+
+    /**
+     * Returns all books of the collection in the order of the comparator.
+     *
+     * @param comparator the comparator to order the books by
+     * @return the books in order
+     */
+    public List<Book> sorted(Comparator<Book> comparator) {
+        return stream().sorted(comparator).toList();
+    }
+
+    /**
+     * Returns a window of the books of the collection in the order of the comparator,
+     * without sorting the whole collection. See {@link #sorted(List, Comparator, int, int)}.
+     *
+     * @param comparator the comparator to order the books by
+     * @param from       the index of the first book of the window in that order
+     * @param count      the maximum number of books in the window
+     * @return the books of the window in order, fewer than count at the end of the collection
+     * @throws IndexOutOfBoundsException if from is out of range (from < 0 || from > size) or count is negative
+     */
+    public List<Book> sorted(Comparator<Book> comparator, int from, int count) throws IndexOutOfBoundsException {
+        return sorted(Arrays.asList(snapshot()), comparator, from, count);
+    }
+
+    /**
+     * Returns a window of the provided books in the order of the comparator, without sorting the whole list.
+     * The first from + count books are selected in a single pass with a bounded heap, which takes
+     * O(n log k) time for k = from + count, so the first pages of a large list come cheaply and
+     * later pages are only paid for when they are asked for. Books that compare equal keep the
+     * order of the list, as they would with a full sort.
+     *
+     * @param books      the books to select from
+     * @param comparator the comparator to order the books by
+     * @param from       the index of the first book of the window in that order
+     * @param count      the maximum number of books in the window
+     * @return the books of the window in order, fewer than count at the end of the list
+     * @throws IndexOutOfBoundsException if from is out of range (from < 0 || from > size) or count is negative
+     */
+    public static List<Book> sorted(List<Book> books, Comparator<Book> comparator, int from, int count) throws IndexOutOfBoundsException {
+        checkWindow(from, count, books.size());
+        int limit = (int) Math.min((long) from + count, books.size());
+        if (from == limit) {
+            return new ArrayList<>();
+        }
+
+        Book[] candidates = books.toArray(new Book[0]);
+        IndexOrder order = (first, second) -> {
+            int compared = comparator.compare(candidates[first], candidates[second]);
+            return compared != 0 ? compared : Integer.compare(first, second);
+        };
+
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (heapSize < limit) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, order);
+            } else if (order.compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, heapSize, order);
+            }
+        }
+
+        Book[] window = new Book[limit - from];
+        for (int i = limit - 1; i >= from; i--) {
+            window[i - from] = candidates[heap[0]];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, order);
+        }
+        return new ArrayList<>(Arrays.asList(window));
+    }
+
+    /**
+     * Counts the books of the collection that match the predicate.
+     *
+     * @param predicate the predicate the books must match
+     * @return the number of matching books
+     */
+    public long count(Predicate<Book> predicate) {
+        return stream().filter(predicate).count();
+    }
+
+    /**
+     * Applies the mapper to every book of the collection and returns the results in collection order.
+     *
+     * @param mapper the function to apply to each book
+     * @param <R>    the type of the results
+     * @return the results of the mapper
+     */
+    public <R> List<R> map(Function<Book, ? extends R> mapper) {
+        return stream().<R>map(mapper).toList();
+    }
+
+    /**
+     * Returns an array of the books in the collection as of the last change.
+     * The array is shared between callers until the collection changes and must not be modified.
+     * A collection that keeps its books in a store materializes a new array on every call.
+     *
+     * @return the snapshot of the books
+     */
+    private Book[] snapshot() {
+        Book[] current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        if (store != null) {
+            return storedBooks().toArray(new Book[0]);
+        }
+
+        long stamp = lockRead();
+        try {
+            current = new Book[slotsById.size()];
+            int i = 0;
+            for (Book book : slots) {
+                if (book != null) {
+                    current[i++] = book;
+                }
+            }
+            snapshot = current;
+            return current;
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the snapshot of the books as an immutable list.
+     *
+     * @return the snapshot of the books
+     */
+    private List<Book> snapshotList() {
+        if (store != null) {
+            return storedBooks();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(snapshot()));
+    }
+
+    /**
+     * Returns a read-only view of the books of a collection that keeps them in a store.
+     * Reading the view materializes the books; iterating it skips the empty slots as it goes.
+     *
+     * @return the books of the store
+     */
+    private List<Book> storedBooks() {
+        return new AbstractList<>() {
+            @Override
+            public Book get(int index) {
+                return slots.get(slotOfIndex(index));
+            }
+
+            @Override
+            public int size() {
+                return slotsById.size();
+            }
+
+            @Override
+            public Iterator<Book> iterator() {
+                return new Iterator<>() {
+                    private int slot = nextOccupied(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < slots.size();
+                    }
+
+                    @Override
+                    public Book next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Book book = slots.get(slot);
+                        slot = nextOccupied(slot + 1);
+                        return book;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns the books of a collection that keeps them in a store that have exactly the specified title.
+     * The title is looked for in the search keys of the store, so only the candidates are materialized.
+     *
+     * @param title the title of the books
+     * @return the books with the title, in collection order
+     */
+    private List<Book> scanTitle(String title) {
+        List<Book> booksWithTitle = new ArrayList<>();
+        for (Book book : store.filterByTitle(title)) {
+            if (book.getTitle().equals(title)) {
+                booksWithTitle.add(book);
+            }
+        }
+        return booksWithTitle;
+    }
+
+    /**
+     * Checks if a slot holds a book, without materializing a stored book.
+     *
+     * @param slot the slot to check
+     * @return true if the slot holds a book, false if it is empty
+     */
+    private boolean isOccupied(int slot) {
+        return store == null ? slots.get(slot) != null : store.getId(slot) != -1;
+    }
+
+    /**
+     * Returns the first slot from the specified one that holds a book.
+     *
+     * @param slot the slot to start from
+     * @return the first occupied slot, or the number of slots if there is none
+     */
+    private int nextOccupied(int slot) {
+        while (slot < slots.size() && !isOccupied(slot)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the id of the book in a slot, without materializing a stored book.
+     *
+     * @param slot the slot of the book
+     * @return the id of the book, or -1 if the slot is empty
+     */
+    private long idOfSlot(int slot) {
+        if (store != null) {
+            return store.getId(slot);
+        }
+
+        Book book = slots.get(slot);
+        return book == null ? -1 : book.getId();
+    }
+
+    /**
+     * Returns a list maintained by the collection for handing out to callers.
+     * A thread-safe collection hands out an immutable copy taken under the read lock instead of a view.
+     *
+     * @param maintained the list maintained by the collection
+     * @return the list to hand out
+     */
+    private List<Book> expose(List<Book> maintained) {
+        if (lock == null) {
+            return maintained;
+        }
+
+        long stamp = lockRead();
+        try {
+            return List.copyOf(maintained);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Replaces the book in the specified slot and updates the indexes.
+     * The book stored in the slot keeps the id of the original book, so the id map is left as it is.
+     * The caller must hold the write lock.
+     *
+     * @param slot        the slot of the book to replace
+     * @param updatedBook the updated book
+     */
+    private void replace(int slot, Book updatedBook) {
+        Book originalBook = slots.get(slot);
+        if (updatedBook.getId() != originalBook.getId()) {
+            updatedBook = new Book(originalBook.getId(), updatedBook.getTitle(), updatedBook.getAuthor(),
+                    updatedBook.getPublicationEpochDay());
+        }
+
+        unindex(originalBook);
+        slots.set(slot, updatedBook);
+        index(updatedBook);
+        for (BookCollectionListener listener : listeners) {
+            listener.bookUpdated(slot, originalBook, updatedBook);
+        }
+    }
+
+    /**
+     * Puts a book into a new slot at the end of the collection.
+     * The caller must hold the write lock.
+     *
+     * @param book the book to add
+     * @throws IllegalArgumentException if a book with the same id is already in the collection
+     */
+    private void occupy(Book book) throws IllegalArgumentException {
+        if (slotsById.get(book.getId()) != -1) {
+            throw new IllegalArgumentException("Book is already in the collection");
+        }
+
+        slotsById.put(book.getId(), slots.size());
+        slots.add(book);
+    }
+
+    /**
+     * Puts a list of books into new slots at the end of the collection, leaving the slot of a null
+     * entry empty. If one of the books is already in the collection, none of them is added.
+     * The caller must hold the write lock.
+     *
+     * @param books the books to add
+     * @throws IllegalArgumentException if a book with the same id is already in the collection
+     */
+    private void occupyAll(List<Book> books) throws IllegalArgumentException {
+        int firstSlot = slots.size();
+        int addedEmptySlots = 0;
+        try {
+            for (Book book : books) {
+                if (book == null) {
+                    slots.add(null);
+                    addedEmptySlots++;
+                } else {
+                    occupy(book);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            for (int slot = firstSlot; slot < slots.size(); slot++) {
+                long id = idOfSlot(slot);
+                if (id != -1) {
+                    slotsById.remove(id);
+                }
+            }
+            slots.subList(firstSlot, slots.size()).clear();
+            throw e;
+        }
+        emptySlots += addedEmptySlots;
+    }
 
     /**
-     * Constructs a new BookCollection object with the specified owning library.
+     * Returns the slot of the book at the specified index.
+     * The caller must hold a lock or run inside read.
      *
-     * @param owningLibrary the library that owns this book collection
+     * @param index the index of the book
+     * @return the slot of the book
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size)
      */
-    public BookCollection(Library owningLibrary) {
-        books = new ArrayList<>();
-        this.owningLibrary = owningLibrary;
+    private int slotOfIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= slotsById.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (emptySlots == 0) {
+            return index;
+        }
+
+        int remaining = index;
+        for (int slot = 0; ; slot++) {
+            if (isOccupied(slot) && remaining-- == 0) {
+                return slot;
+            }
+        }
     }
 
     /**
-     * Constructs a new BookCollection object with the specified owning library and initial books.
+     * Moves the last element of a max-heap of book indexes up to its place.
      *
-     * @param owningLibrary the library that owns this book collection
-     * @param books         the initial books in the collection
+     * @param heap  the heap
+     * @param index the index of the element to move up
+     * @param order the order of the book indexes
      */
-    public BookCollection(Library owningLibrary, List<Book> books) {
-        this.owningLibrary = owningLibrary;
-        this.books = books;
+    private static void siftUp(int[] heap, int index, IndexOrder order) {
+        int element = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (order.compare(element, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = element;
     }
 
     /**
-     * Returns the library that owns this book collection.
+     * Moves the root of a max-heap of book indexes down to its place.
      *
-     * @return the owning library
+     * @param heap  the heap
+     * @param size  the number of elements in the heap
+     * @param order the order of the book indexes
      */
-    public Library getOwningLibrary() {
-        return owningLibrary;
+    private static void siftDown(int[] heap, int size, IndexOrder order) {
+        if (size == 0) {
+            return;
+        }
+
+        int element = heap[0];
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(element, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = element;
     }
 
     /**
-     * Adds a book to the collection.
+     * Checks that a window starts within a list of books and has a non-negative length.
      *
-     * @param book the book to add
+     * @param from  the index of the first book of the window
+     * @param count the maximum number of books in the window
+     * @param size  the number of books in the list
+     * @throws IndexOutOfBoundsException if from is out of range (from < 0 || from > size) or count is negative
      */
-    public void addBook(Book book) {
-        books.add(book);
+    private static void checkWindow(int from, int count, int size) throws IndexOutOfBoundsException {
+        if (from < 0 || from > size || count < 0) {
+            throw new IndexOutOfBoundsException();
+        }
     }
 
     /**
-     * Adds a list of books to the collection.
+     * Moves the books together into the first slots once more than half of the slots are empty,
+     * so that the cost of compacting is spread over the removals that emptied the slots.
+     * The caller must hold the write lock.
+     */
+    private void compactIfNeeded() {
+        if (emptySlots * 2 <= slots.size()) {
+            return;
+        }
+
+        if (store != null) {
+            store.compact();
+        } else {
+            slots.removeIf(Objects::isNull);
+        }
+        slotsById.clear();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            slotsById.put(idOfSlot(slot), slot);
+        }
+        emptySlots = 0;
+        for (BookCollectionListener listener : listeners) {
+            listener.booksCompacted();
+        }
+    }
+
+    /**
+     * Runs a read of the collection that uses its lookup indexes, indexing queued books first.
+     * Indexing takes the write lock, so a bulk addition may queue more books before the read lock
+     * is taken; the queue is checked again under the read lock and indexed until it stays empty.
      *
-     * @param books the list of books to add
+     * @param reader the read to run
+     * @param <T>    the type of the result
+     * @return the result of the read
      */
-    public void addBooks(List<Book> books) {
-        this.books.addAll(books);
+    private <T> T readIndexed(Supplier<T> reader) {
+        while (true) {
+            ensureIndexed();
+            long stamp = lockRead();
+            try {
+                if (unindexedBooks == null) {
+                    return reader.get();
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+        }
     }
 
     /**
-     * Updates a book in the collection with the provided updated book.
+     * Runs a read of the collection.
+     * In a thread-safe collection the read runs under the read lock. Reads never run optimistically,
+     * as a writer could leave an index half updated under them and make them loop or throw.
      *
-     * @param originalBook the original book to update
-     * @param updatedBook  the updated book
-     * @throws BookNotFoundException if the original book is not found in the collection
+     * @param reader the read to run
+     * @param <T>    the type of the result
+     * @return the result of the read
      */
-    public void updateBook(Book originalBook, Book updatedBook) throws BookNotFoundException {
-        if (!books.contains(originalBook)) {
-            throw new BookNotFoundException("Book not found");
+    private <T> T read(Supplier<T> reader) {
+        if (lock == null) {
+            return reader.get();
         }
 
-        int index = books.indexOf(originalBook);
-        updateBook(index, updatedBook);
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Updates a book in the collection at the specified index with the provided updated book.
+     * Acquires the read lock of a thread-safe collection.
      *
-     * @param index        the index of the book to update
-     * @param updatedBook  the updated book
-     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= books.size())
+     * @return the stamp of the lock, or 0 if the collection is not thread-safe
      */
-    public void updateBook(int index, Book updatedBook) throws IndexOutOfBoundsException {
-        if (index < 0 || index >= books.size()) {
-            throw new IndexOutOfBoundsException();
+    private long lockRead() {
+        return lock == null ? 0L : lock.readLock();
+    }
+
+    /**
+     * Releases the read lock of a thread-safe collection.
+     *
+     * @param stamp the stamp returned by lockRead
+     */
+    private void unlockRead(long stamp) {
+        if (lock != null) {
+            lock.unlockRead(stamp);
         }
+    }
 
-        books.set(index, updatedBook);
+    /**
+     * Acquires the read lock of the change lock of the owning library, if there is one,
+     * and then the write lock of a thread-safe collection.
+     *
+     * @return the stamp of the lock, or 0 if the collection is not thread-safe
+     */
+    private long lockWrite() {
+        if (owningLibrary != null) {
+            owningLibrary.getChangeLock().readLock().lock();
+        }
+        return lock == null ? 0L : lock.writeLock();
     }
 
     /**
-     * Removes a book from the collection.
+     * Releases the locks acquired by lockWrite.
      *
-     * @param book the book to remove
-     * @throws BookNotFoundException if the book is not found in the collection
+     * @param stamp the stamp returned by lockWrite
      */
-    public void removeBook(Book book) throws BookNotFoundException {
-        if (!books.contains(book)) {
-            throw new BookNotFoundException("Book not found");
+    private void unlockWrite(long stamp) {
+        if (lock != null) {
+            lock.unlockWrite(stamp);
+        }
+        if (owningLibrary != null) {
+            owningLibrary.getChangeLock().readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the book to the lookup indexes of the collection and drops the snapshot.
+     * Books must be changed through updateBook so that the indexes stay in line with their contents.
+     *
+     * @param book the book to index
+     */
+    private void index(Book book) {
+        snapshot = null;
+        if (store != null) {
+            return;
         }
 
-        books.remove(book);
+        indexPending();
+        indexForLookup(book);
+        titleView.add(book);
+        authorView.add(book);
+        publicationDateIndex.add(book);
     }
 
     /**
-     * Returns the book at the specified index in the collection.
+     * Queues a list of books for the lookup indexes of the collection and drops the snapshot.
+     * Bulk additions are only indexed when the indexes are next used, so loading a large library
+     * costs no more than filling the list, and consecutive bulk additions are indexed in one pass.
      *
-     * @param index the index of the book
-     * @return the book at the specified index
-     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= books.size())
+     * @param books the books to index
      */
-    public Book getBook(int index) throws IndexOutOfBoundsException {
-        if (index < 0 || index >= books.size()) {
-            throw new IndexOutOfBoundsException();
+    private void indexAll(List<Book> books) {
+        snapshot = null;
+        if (store != null) {
+            return;
         }
 
-        return books.get(index);
+        if (unindexedBooks == null) {
+            unindexedBooks = new ArrayList<>(books);
+        } else {
+            unindexedBooks.addAll(books);
+        }
     }
 
     /**
-     * Returns the book with the specified title from the collection.
+     * Indexes the books queued by bulk additions, taking the write lock of a thread-safe collection.
+     */
+    private void ensureIndexed() {
+        if (unindexedBooks == null) {
+            return;
+        }
+
+        long stamp = lockWrite();
+        try {
+            indexPending();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Indexes the books queued by bulk additions.
+     * The sorted views take the whole list at once.
+     * The caller must hold the write lock.
+     */
+    private void indexPending() {
+        List<Book> pending = unindexedBooks;
+        if (pending == null) {
+            return;
+        }
+
+        unindexedBooks = null;
+        for (Book book : pending) {
+            indexForLookup(book);
+        }
+        titleView.addAll(pending);
+        authorView.addAll(pending);
+        publicationDateIndex.addAll(pending);
+    }
+
+    /**
+     * Adds the book to the title and author lookup indexes of the collection.
      *
-     * @param title the title of the book
-     * @return the book with the specified title
-     * @throws BookNotFoundException if the book with the specified title is not found in the collection
+     * @param book the book to index
      */
-    public Book getBook(String title) throws BookNotFoundException {
-        for (Book book : books) {
-            if (book.getTitle().equals(title)) {
-                return book;
-            }
+    private void indexForLookup(Book book) {
+        authorDictionary.add(book);
+        titleIndex.computeIfAbsent(book.getTitle(), title -> new BookSet()).add(book);
+        trigramIndex.add(book);
+        titleWordTree.add(book);
+        titleTrie.add(book);
+        fullTextIndex.add(book);
+    }
+
+    /**
+     * Removes the book from the lookup indexes of the collection and drops the snapshot.
+     *
+     * @param book the book to remove from the indexes
+     */
+    private void unindex(Book book) {
+        snapshot = null;
+        if (store != null) {
+            return;
         }
 
-        throw new BookNotFoundException("Book not found");
+        indexPending();
+        trigramIndex.remove(book);
+        titleWordTree.remove(book);
+        titleTrie.remove(book);
+        fullTextIndex.remove(book);
+        authorDictionary.remove(book);
+        titleView.remove(book);
+        authorView.remove(book);
+        publicationDateIndex.remove(book);
+
+        BookSet booksWithTitle = titleIndex.get(book.getTitle());
+        if (booksWithTitle != null && booksWithTitle.remove(book) && booksWithTitle.isEmpty()) {
+            titleIndex.remove(book.getTitle());
+        }
     }
 
     /**
-     * Checks if the collection contains the specified book.
+     * Returns the books of the collection ordered by title.
+     * The order is maintained as books are added, removed and updated, so no sorting takes place here.
      *
-     * @param book the book to check
-     * @return true if the collection contains the book, false otherwise
+     * @return an unmodifiable list of the books ordered by title
      */
-    public boolean hasBook(Book book) {
-        return books.contains(book);
+    public List<Book> getBooksSortedByTitle() {
+        if (store != null) {
+            return store.sorted(BookSortOrder.TITLE);
+        }
+
+        ensureIndexed();
+        return expose(titleView.asList());
     }
 
     /**
-     * Checks if the collection contains a book with the specified title.
+     * Returns the books of the collection ordered by author.
+     * The order is maintained as books are added, removed and updated, so no sorting takes place here.
      *
-     * @param title the title of the book
-     * @return true if the collection contains a book with the specified title, false otherwise
+     * @return an unmodifiable list of the books ordered by author
      */
-    public boolean hasBook(String title) {
-        for (Book book : books) {
-            if (book.getTitle().equals(title)) {
-                return true;
-            }
+    public List<Book> getBooksSortedByAuthor() {
+        if (store != null) {
+            return store.sorted(BookSortOrder.AUTHOR);
         }
 
-        return false;
+        ensureIndexed();
+        return expose(authorView.asList());
     }
 
     /**
-     * Returns a list of all the books in the collection.
+     * Returns the books of the collection ordered by publication date.
+     * The order is maintained as books are added, removed and updated, so no sorting takes place here.
      *
-     * @return a list of all the books
+     * @return an unmodifiable list of the books ordered by publication date
      */
-    public List<Book> getAllBooks() {
-        return books;
+    public List<Book> getBooksSortedByPublicationDate() {
+        if (store != null) {
+            return store.sorted(BookSortOrder.PUBLICATION_DATE);
+        }
+
+        ensureIndexed();
+        return expose(publicationDateIndex.asList());
+    }
+
+    /**
+     * Returns the books published between the two dates, both inclusive, ordered by publication date.
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the books published in the range, or an empty list if from is after to
+     */
+    public List<Book> getBooksPublishedBetween(LocalDate from, LocalDate to) {
+        if (store != null) {
+            long fromDay = from.toEpochDay();
+            long toDay = to.toEpochDay();
+            return query(book -> book.getPublicationEpochDay() >= fromDay && book.getPublicationEpochDay() <= toDay,
+                    new BookPublicationDateComparator());
+        }
+
+        return readIndexed(() -> publicationDateIndex.between(from.toEpochDay(), to.toEpochDay()));
+    }
+
+    /**
+     * Returns the books published in the specified year, ordered by publication date.
+     *
+     * @param year the year of publication
+     * @return the books published in the year
+     */
+    public List<Book> getBooksPublishedIn(int year) {
+        return getBooksPublishedBetween(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
     }
 
     /**
@@ -217,6 +1396,21 @@ public class BookCollection {
         return sortedBooks;
     }
 
+    /**
+     * Displays a search book menu in the terminal and returns the selected book.
+     * Titles are matched through the trigram index of the collection.
+     *
+     * @param terminal the terminal to display the menu
+     * @return the selected book, or null if no book is selected
+     */
+    public Book searchBookMenu(Terminal terminal) {
+        Book book = searchBookMenu(terminal, newSearchSession());
+        if (book != null) {
+            recordPick(book);
+        }
+        return book;
+    }
+
     /**
      * Displays a search book menu in the terminal and returns the selected book.
      *
@@ -225,30 +1419,43 @@ public class BookCollection {
      * @return the selected book, or null if no book is selected
      */
     public static Book searchBookMenu(Terminal terminal, List<Book> books) {
+        return searchBookMenu(terminal, new BookSearchSession(books));
+    }
+
+    /**
+     * Displays a search book menu in the terminal and returns the selected book.
+     *
+     * @param terminal the terminal to display the menu
+     * @param session  the search session narrowing the books as the title is typed
+     * @return the selected book, or null if no book is selected
+     */
+    private static Book searchBookMenu(Terminal terminal, BookSearchSession session) {
         NonBlockingReader reader = terminal.reader();
 
-        List<Book> filteredBooks = new ArrayList<>();
+        List<Book> filteredBooks;
 
-        StringBuilder input = new StringBuilder();
         while (true) {
             ScreenUtil.clearScreen();
-            filteredBooks.clear();
 
             System.out.println("1. Type book title");
             System.out.println("2. If you are satisfied with the list, press enter");
             System.out.println("3. Select book from list using index or type -1 to go back");
             System.out.println("___________________________________________________________");
 
-            for (Book book : books) {
-                if (book.getTitle().toLowerCase().contains(input.toString().toLowerCase())) {
-                    filteredBooks.add(book);
+            filteredBooks = session.getResults();
+            if (filteredBooks.isEmpty() && !session.getQuery().isEmpty()) {
+                filteredBooks = session.getFuzzyResults();
+                if (!filteredBooks.isEmpty()) {
+                    System.out.println("No exact matches, showing close matches:");
                 }
             }
             for (int i = 0; i < filteredBooks.size(); i++) {
                 System.out.println(i + ". " + filteredBooks.get(i).getTitle());
             }
 
-            System.out.println("Enter title: \n" + input);
+            String completion = session.getCompletion();
+            System.out.println("Enter title: \n" + session.getQuery()
+                               + (completion == null ? "" : "    [Tab: " + completion + "]"));
 
             int ch;
             try {
@@ -261,11 +1468,11 @@ public class BookCollection {
             if (ch == '\n' || ch == '\r') {
                 break;
             } else if (ch == '\b') {
-                if (!input.isEmpty()) {
-                    input = new StringBuilder(input.substring(0, input.length() - 1));
-                }
+                session.backspace();
+            } else if (ch == '\t') {
+                session.complete();
             } else {
-                input.append((char) ch);
+                session.append((char) ch);
             }
         }
 
@@ -296,22 +1503,238 @@ public class BookCollection {
         }
     }
 
+    /**
+     * Starts a new incremental title search over the books of the collection.
+     *
+     * @return a new search session
+     */
+    public BookSearchSession newSearchSession() {
+        return new BookSearchSession(snapshotList(), this::filterBooksByTitle,
+                query -> fuzzySearchByTitle(query, TitleWordTree.MAX_DISTANCE),
+                query -> completeTitle(query, 1));
+    }
+
+    /**
+     * Filters the books of the collection by title and returns the filtered list.
+     * Titles are matched ignoring case and accents. Queries of at least three characters are answered by the trigram index,
+     * shorter ones fall back to scanning the collection.
+     *
+     * @param title the title to filter by
+     * @return the filtered list of books
+     */
+    public List<Book> filterBooksByTitle(String title) {
+        if (store != null) {
+            return store.filterByTitle(title);
+        }
+
+        String query = TextUtil.fold(title);
+        if (!trigramIndex.canSearch(query)) {
+            return filterBooksByKey(snapshotList(), query);
+        }
+
+        return readIndexed(() -> trigramIndex.search(query));
+    }
+
+    /**
+     * Returns the books whose title and author together contain every word of the query, best match first.
+     * Words are matched whole, ignoring case and accents, so "tolkien lost tales" finds
+     * "The Book of Lost Tales" by J.R.R. Tolkien. Matches are ranked by BM25, which favours words
+     * that are rare in the collection and books with few other words.
+     * The query is answered by intersecting the compressed posting lists of its words,
+     * starting from the rarest, so its cost follows the number of books containing the rarest word.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of books to return
+     * @return the matching books, best match first
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Book> searchText(String query, int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        if (store != null) {
+            return new ArrayList<>();
+        }
+
+        return readIndexed(() -> fullTextIndex.search(query, limit));
+    }
+
+    /**
+     * Returns the most popular titles starting with a prefix, ignoring case and accents.
+     * Titles are ranked by the number of books with them plus the number of times one of those
+     * books was picked in the search menu. The completions are cached in a radix tree of the titles,
+     * so the cost depends on the length of the prefix and the number of completions, not on the size
+     * of the collection.
+     *
+     * @param prefix the prefix to complete
+     * @param limit  the maximum number of completions, from 1 to 10
+     * @return the completed titles, most popular first
+     * @throws IllegalArgumentException if limit is out of range
+     */
+    public List<String> completeTitle(String prefix, int limit) throws IllegalArgumentException {
+        if (limit < 1 || limit > TitleTrie.MAX_COMPLETIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + TitleTrie.MAX_COMPLETIONS);
+        }
+
+        if (store != null) {
+            return new ArrayList<>();
+        }
+
+        String key = TextUtil.fold(prefix);
+        return readIndexed(() -> titleTrie.complete(key, limit));
+    }
+
+    /**
+     * Raises the popularity of the title of a book in the completions, after the book was picked.
+     *
+     * @param book the picked book
+     */
+    public void recordPick(Book book) {
+        if (store != null) {
+            return;
+        }
+
+        ensureIndexed();
+        long stamp = lockWrite();
+        try {
+            titleTrie.recordPick(book);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the books whose titles contain a word close to every word of the query, tolerating typos.
+     * Words are matched ignoring case and accents within maxDistance insertions, deletions or
+     * substitutions, fewer for short words, through a BK-tree of the title words, so only the
+     * words near the query are compared. The books are ordered by how close they are.
+     *
+     * @param title       the title to search for
+     * @param maxDistance the maximum number of edits per word, from 1 to 2
+     * @return the matching books, closest first
+     * @throws IllegalArgumentException if maxDistance is out of range
+     */
+    public List<Book> fuzzySearchByTitle(String title, int maxDistance) throws IllegalArgumentException {
+        if (maxDistance < 1 || maxDistance > TitleWordTree.MAX_DISTANCE) {
+            throw new IllegalArgumentException("Maximum distance must be between 1 and " + TitleWordTree.MAX_DISTANCE);
+        }
+
+        if (store != null) {
+            return new ArrayList<>();
+        }
+
+        String query = TextUtil.fold(title);
+        return readIndexed(() -> titleWordTree.search(query, maxDistance));
+    }
+
     /**
      * Filters the provided list of books by title and returns the filtered list.
+     * Titles are matched ignoring case and accents.
      *
      * @param books the list of books to filter
      * @param title the title to filter by
      * @return the filtered list of books
      */
     public static List<Book> filterBooksByTitle(List<Book> books, String title) {
+        return filterBooksByKey(books, TextUtil.fold(title));
+    }
+
+    /**
+     * Filters the provided list of books by search key and returns the filtered list.
+     *
+     * @param books the list of books to filter
+     * @param key   the folded query the search keys must contain
+     * @return the filtered list of books
+     */
+    private static List<Book> filterBooksByKey(List<Book> books, String key) {
         List<Book> filteredBooks = new ArrayList<>();
 
         for (Book book : books) {
-            if (book.getTitle().toLowerCase().contains(title.toLowerCase())) {
+            if (book.getSearchKey().contains(key)) {
                 filteredBooks.add(book);
             }
         }
 
         return filteredBooks;
     }
+
+    /**
+     * The slots of a collection that keeps its books in a store, seen as a list.
+     * Reading a slot materializes its book, and setting a slot to null empties it in the store.
+     * Books can only be appended, and only slots at the end removed.
+     */
+    private static class StoredSlots extends AbstractList<Book> {
+        private final BookStore store;
+
+        /**
+         * Constructs a StoredSlots over a store.
+         *
+         * @param store the store holding the slots
+         */
+        StoredSlots(BookStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public Book get(int index) {
+            return store.get(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+
+        @Override
+        public Book set(int index, Book book) {
+            Book previous = store.get(index);
+            if (book == null) {
+                store.clear(index);
+            } else {
+                store.set(index, book);
+            }
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Book book) {
+            if (index != store.size()) {
+                throw new UnsupportedOperationException("Books can only be appended to a store");
+            }
+
+            store.add(book);
+            modCount++;
+        }
+
+        @Override
+        public Book remove(int index) {
+            Book previous = store.get(index);
+            store.remove(index);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            for (int index = toIndex - 1; index >= fromIndex; index--) {
+                store.remove(index);
+            }
+            modCount++;
+        }
+    }
+
+    /**
+     * An order of the indexes of books, compared without boxing.
+     */
+    @FunctionalInterface
+    private interface IndexOrder {
+        /**
+         * Compares two book indexes.
+         *
+         * @param first  the first index
+         * @param second the second index
+         * @return a negative, zero or positive value as the first index orders before, with or after the second
+         */
+        int compare(int first, int second);
+    }
 }
@@ -8,9 +8,13 @@ import dev.lwnd.Library;
 /**
  * The BookCollectionBuilder class is responsible for building a BookCollection object.
  * It provides methods to add books to the collection and finally build the BookCollection.
+ * Books added one at a time are gathered into batches that are passed on to the collection
+ * as they fill up, so the builder never holds more than one batch of books.
  */
 public class BookCollectionBuilder {
-    private final List<Book> books;
+    private static final int BATCH_SIZE = 65_536;
+
+    private List<Book> pendingBooks;
     private final BookCollection bookCollection;
 
     /**
@@ -19,8 +23,32 @@ public class BookCollectionBuilder {
      * @param library the Library object to associate with the BookCollection
      */
     public BookCollectionBuilder(Library library) {
-        this.books = new ArrayList<>();
-        this.bookCollection = new BookCollection(library);
+        this(library, false);
+    }
+
+    /**
+     * Constructs a new BookCollectionBuilder object with the given Library.
+     *
+     * @param library    the Library object to associate with the BookCollection
+     * @param threadSafe true to build a BookCollection that is safe to share between threads
+     */
+    public BookCollectionBuilder(Library library, boolean threadSafe) {
+        this.pendingBooks = new ArrayList<>();
+        this.bookCollection = new BookCollection(library, threadSafe);
+    }
+
+    /**
+     * Constructs a new BookCollectionBuilder object with the given Library that builds a
+     * BookCollection keeping its books as specified.
+     * With a store, every batch is copied into the store as it fills up and the Book objects
+     * of the batch are dropped, so building a large collection never holds more than one batch of them.
+     *
+     * @param library the Library object to associate with the BookCollection
+     * @param storage the way the BookCollection keeps its books
+     */
+    public BookCollectionBuilder(Library library, BookStorage storage) {
+        this.pendingBooks = new ArrayList<>();
+        this.bookCollection = new BookCollection(library, storage);
     }
 
     /**
@@ -30,18 +58,36 @@ public class BookCollectionBuilder {
      * @return the BookCollectionBuilder object for method chaining
      */
     public BookCollectionBuilder addBook(Book book) {
-        this.books.add(book);
+        this.pendingBooks.add(book);
+        if (pendingBooks.size() >= BATCH_SIZE) {
+            flush();
+        }
         return this;
     }
 
     /**
      * Adds a list of books to the collection being built.
+     * The list is passed on to the collection as a whole without being copied by the builder.
      *
      * @param books the list of Book objects to add
      * @return the BookCollectionBuilder object for method chaining
      */
     public BookCollectionBuilder addBooks(List<Book> books) {
-        this.books.addAll(books);
+        flush();
+        bookCollection.addBooks(books);
+        return this;
+    }
+
+    /**
+     * Adds the books of a list of slots to the collection being built, keeping every book in its slot.
+     * A null entry stands for an empty slot, as recorded by a checkpoint of the collection.
+     *
+     * @param slots the books of the slots, with null for an empty slot
+     * @return the BookCollectionBuilder object for method chaining
+     */
+    public BookCollectionBuilder addSlots(List<Book> slots) {
+        flush();
+        bookCollection.addSlots(slots);
         return this;
     }
 
@@ -52,7 +98,19 @@ public class BookCollectionBuilder {
      * @return the built BookCollection object
      */
     public BookCollection build() {
-        bookCollection.addBooks(this.books);
+        flush();
         return bookCollection;
     }
+
+    /**
+     * Passes the books gathered so far on to the collection.
+     */
+    private void flush() {
+        if (pendingBooks.isEmpty()) {
+            return;
+        }
+
+        bookCollection.addBooks(pendingBooks);
+        pendingBooks = new ArrayList<>();
+    }
 }
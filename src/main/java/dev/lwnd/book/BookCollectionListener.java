@@ -0,0 +1,53 @@
+package dev.lwnd.book;
+
+import java.util.List;
+
+/**
+ * Interface for receiving the changes made to a book collection.
+ * Listeners are called while the collection is being changed, in the order the changes are applied,
+ * so they must return quickly and must not call back into the collection.
+ */
+public interface BookCollectionListener {
+    /**
+     * Called after a book was added to the end of the collection.
+     *
+     * @param book the added book
+     */
+    void bookAdded(Book book);
+
+    /**
+     * Called after a list of books was added to the end of the collection.
+     * By default every book is reported through bookAdded.
+     *
+     * @param books the added books
+     */
+    default void booksAdded(List<Book> books) {
+        for (Book book : books) {
+            bookAdded(book);
+        }
+    }
+
+    /**
+     * Called after the book in a slot of the collection was replaced.
+     *
+     * @param slot         the slot of the book
+     * @param originalBook the book that was replaced
+     * @param updatedBook  the book that took its place
+     */
+    void bookUpdated(int slot, Book originalBook, Book updatedBook);
+
+    /**
+     * Called after a book was removed from the collection, leaving its slot empty.
+     *
+     * @param slot the slot the book was in
+     * @param book the removed book
+     */
+    void bookRemoved(int slot, Book book);
+
+    /**
+     * Called after the books of the collection were moved together into the first slots,
+     * removing the empty slots. Does nothing by default.
+     */
+    default void booksCompacted() {
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Comparator;
 public class BookPublicationDateComparator implements Comparator<Book> {
 
     /**
-     * Compares two books based on their publication dates.
+     * Compares two books based on the days of their publication dates.
      *
      * @param book1 the first book to compare
      * @param book2 the second book to compare
@@ -18,6 +18,6 @@ public class BookPublicationDateComparator implements Comparator<Book> {
      */
     @Override
     public int compare(Book book1, Book book2) {
-        return book1.getPublicationDate().compareTo(book2.getPublicationDate());
+        return Long.compare(book1.getPublicationEpochDay(), book2.getPublicationEpochDay());
     }
 }
@@ -0,0 +1,168 @@
+package dev.lwnd.book;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import dev.lwnd.util.TextUtil;
+
+/**
+ * Represents an interactive title search that is typed one character at a time.
+ * The session keeps the result set of every prefix of the query, so appending a character
+ * only filters the current matches and removing one steps back to the cached earlier set.
+ */
+public class BookSearchSession {
+    private final List<Book> books;
+    private final Function<String, List<Book>> indexedSearch;
+    private final Function<String, List<Book>> fuzzySearch;
+    private final Function<String, List<String>> completion;
+    private final StringBuilder query = new StringBuilder();
+    private final Deque<List<Book>> results = new ArrayDeque<>();
+    private String fuzzyQuery;
+    private List<Book> fuzzyResults;
+
+    /**
+     * Constructs a BookSearchSession over the provided list of books.
+     *
+     * @param books the list of books to search from
+     */
+    public BookSearchSession(List<Book> books) {
+        this(books, null, null, null);
+    }
+
+    /**
+     * Constructs a BookSearchSession over the provided list of books.
+     * Once the query is long enough to be looked up in an index, the results are taken
+     * from the indexed search instead of narrowing the shorter query's results.
+     *
+     * @param books         the list of books to search from
+     * @param indexedSearch the function returning the books whose titles contain a query, or null
+     * @param fuzzySearch   the function returning the books whose titles are close to a query, or null
+     * @param completion    the function returning the titles completing a prefix, most likely first, or null
+     */
+    BookSearchSession(List<Book> books, Function<String, List<Book>> indexedSearch, Function<String, List<Book>> fuzzySearch,
+                      Function<String, List<String>> completion) {
+        this.books = books;
+        this.indexedSearch = indexedSearch;
+        this.fuzzySearch = fuzzySearch;
+        this.completion = completion;
+    }
+
+    /**
+     * Returns the query typed so far.
+     *
+     * @return the current query
+     */
+    public String getQuery() {
+        return query.toString();
+    }
+
+    /**
+     * Returns the books whose titles contain the current query, ignoring case and accents.
+     *
+     * @return the books matching the current query
+     */
+    public List<Book> getResults() {
+        if (results.isEmpty()) {
+            return books;
+        }
+
+        return results.peek();
+    }
+
+    /**
+     * Returns the books whose titles are close to the current query, for when no title contains it.
+     * The results are kept until the query changes.
+     *
+     * @return the books close to the current query, or an empty list if the session has no fuzzy search
+     */
+    public List<Book> getFuzzyResults() {
+        if (fuzzySearch == null) {
+            return new ArrayList<>();
+        }
+
+        String current = query.toString();
+        if (!current.equals(fuzzyQuery)) {
+            fuzzyResults = fuzzySearch.apply(current);
+            fuzzyQuery = current;
+        }
+        return fuzzyResults;
+    }
+
+    /**
+     * Returns the most likely title starting with the current query.
+     *
+     * @return the completed title, or null if the query is empty, nothing completes it or the session has no completion
+     */
+    public String getCompletion() {
+        if (completion == null || query.isEmpty()) {
+            return null;
+        }
+
+        List<String> completions = completion.apply(query.toString());
+        return completions.isEmpty() ? null : completions.get(0);
+    }
+
+    /**
+     * Replaces the query with its most likely completion, narrowing the results one character at a time.
+     * Does nothing if there is no completion.
+     */
+    public void complete() {
+        String completed = getCompletion();
+        if (completed == null) {
+            return;
+        }
+
+        reset();
+        for (int i = 0; i < completed.length(); i++) {
+            append(completed.charAt(i));
+        }
+    }
+
+    /**
+     * Appends a character to the query and narrows the results.
+     *
+     * @param ch the character to append
+     */
+    public void append(char ch) {
+        List<Book> current = getResults();
+        query.append(ch);
+
+        if (indexedSearch != null && query.length() == TitleTrigramIndex.GRAM_LENGTH) {
+            results.push(indexedSearch.apply(query.toString()));
+            return;
+        }
+
+        String foldedQuery = TextUtil.fold(query.toString());
+        List<Book> narrowed = new ArrayList<>();
+        for (Book book : current) {
+            if (book.getSearchKey().contains(foldedQuery)) {
+                narrowed.add(book);
+            }
+        }
+        results.push(narrowed);
+    }
+
+    /**
+     * Removes the last character of the query and restores the results cached for the shorter query.
+     * Does nothing if the query is empty.
+     */
+    public void backspace() {
+        if (query.isEmpty()) {
+            return;
+        }
+
+        query.setLength(query.length() - 1);
+        results.pop();
+    }
+
+    /**
+     * Clears the query and all cached results.
+     */
+    public void reset() {
+        query.setLength(0);
+        results.clear();
+    }
+}
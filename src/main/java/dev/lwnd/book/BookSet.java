@@ -0,0 +1,225 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of books keyed by their ids, iterated in the order the books were added.
+ *
+ * <p>The books are kept in an array in the order they were added. Removing a book only empties its
+ * entry, and the entries are moved together once more than half of them are empty. Small sets find
+ * a book by scanning the array; larger sets also keep a map from book ids to entries, so adding,
+ * removing and finding a book take constant time however many books the set holds.
+ */
+class BookSet implements Iterable<Book> {
+    private static final int SCAN_LIMIT = 8;
+
+    private Book[] books = new Book[2];
+    private int end;
+    private int first;
+    private int size;
+    private BookSlotMap entries;
+
+    /**
+     * Returns the number of books in the set.
+     *
+     * @return the size of the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the set holds no books.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds a book to the end of the set.
+     *
+     * @param book the book to add
+     * @return true if the book was added, false if a book with its id is already in the set
+     */
+    boolean add(Book book) {
+        if (entryOf(book.getId()) != -1) {
+            return false;
+        }
+
+        if (end == books.length) {
+            if (size * 2 <= end) {
+                compact();
+            } else {
+                books = Arrays.copyOf(books, books.length * 2);
+            }
+        }
+        if (entries == null && size >= SCAN_LIMIT) {
+            entries = new BookSlotMap();
+            for (int i = first; i < end; i++) {
+                if (books[i] != null) {
+                    entries.put(books[i].getId(), i);
+                }
+            }
+        }
+
+        if (entries != null) {
+            entries.put(book.getId(), end);
+        }
+        books[end++] = book;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the book with the id of a book from the set.
+     *
+     * @param book the book to remove
+     * @return true if a book was removed, false if no book with its id is in the set
+     */
+    boolean remove(Book book) {
+        int entry = entries == null ? entryOf(book.getId()) : entries.remove(book.getId());
+        if (entry == -1) {
+            return false;
+        }
+
+        books[entry] = null;
+        size--;
+        if (size == 0) {
+            Arrays.fill(books, first, end, null);
+            end = 0;
+            first = 0;
+            entries = null;
+        } else if (entry == first) {
+            while (books[first] == null) {
+                first++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a book with the id of a book is in the set.
+     *
+     * @param book the book to check
+     * @return true if the set holds a book with its id, false otherwise
+     */
+    boolean contains(Book book) {
+        return entryOf(book.getId()) != -1;
+    }
+
+    /**
+     * Returns the book that was added first among the books of the set.
+     *
+     * @return the first book
+     * @throws NoSuchElementException if the set is empty
+     */
+    Book first() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return books[first];
+    }
+
+    /**
+     * Returns the books of the set in the order they were added.
+     *
+     * @return a new list of the books
+     */
+    List<Book> toList() {
+        List<Book> list = new ArrayList<>(size);
+        for (Book book : this) {
+            list.add(book);
+        }
+        return list;
+    }
+
+    /**
+     * Returns an iterator over the books of the set in the order they were added.
+     * The set must not be changed while it is iterated.
+     *
+     * @return an iterator over the books
+     */
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private int next = skipEmpty(first);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Book next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+
+                Book book = books[next];
+                next = skipEmpty(next + 1);
+                return book;
+            }
+        };
+    }
+
+    /**
+     * Returns the entry holding the book with an id.
+     *
+     * @param id the id of the book
+     * @return the index of the entry, or -1 if no book with the id is in the set
+     */
+    private int entryOf(long id) {
+        if (entries != null) {
+            return entries.get(id);
+        }
+
+        for (int i = first; i < end; i++) {
+            if (books[i] != null && books[i].getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first entry from an index on that holds a book.
+     *
+     * @param index the index to start at
+     * @return the index of the entry, or the end of the entries if there is none
+     */
+    private int skipEmpty(int index) {
+        while (index < end && books[index] == null) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Moves the books together into the first entries, keeping their order.
+     */
+    private void compact() {
+        int moved = 0;
+        for (int i = first; i < end; i++) {
+            if (books[i] != null) {
+                books[moved++] = books[i];
+            }
+        }
+        Arrays.fill(books, moved, end, null);
+        end = moved;
+        first = 0;
+
+        if (entries != null) {
+            entries.clear();
+            for (int i = 0; i < end; i++) {
+                entries.put(books[i].getId(), i);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package dev.lwnd.book;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from book ids to the slots of a book collection, kept in two primitive arrays.
+ * Collisions are resolved by linear probing, and removals shift the following entries of the
+ * probe sequence back instead of leaving deleted markers, so lookups never slow down over time.
+ */
+class BookSlotMap {
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] ids;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs an empty BookSlotMap.
+     */
+    BookSlotMap() {
+        ids = new long[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY];
+        Arrays.fill(ids, EMPTY);
+    }
+
+    /**
+     * Returns the number of ids in the map.
+     *
+     * @return the size of the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of a book id.
+     *
+     * @param id the book id
+     * @return the slot, or -1 if the id is not in the map
+     */
+    int get(long id) {
+        for (int i = bucket(id); ; i = (i + 1) & (ids.length - 1)) {
+            if (ids[i] == id) {
+                return slots[i];
+            }
+            if (ids[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Maps a book id to a slot, replacing the slot it was mapped to before.
+     *
+     * @param id   the book id
+     * @param slot the slot of the book
+     * @return the previous slot of the id, or -1 if it was not in the map
+     */
+    int put(long id, int slot) {
+        if ((size + 1) * 2 > ids.length) {
+            resize(ids.length * 2);
+        }
+
+        int i = bucket(id);
+        while (ids[i] != EMPTY) {
+            if (ids[i] == id) {
+                int previous = slots[i];
+                slots[i] = slot;
+                return previous;
+            }
+            i = (i + 1) & (ids.length - 1);
+        }
+
+        ids[i] = id;
+        slots[i] = slot;
+        size++;
+        return -1;
+    }
+
+    /**
+     * Removes a book id from the map.
+     *
+     * @param id the book id
+     * @return the slot the id was mapped to, or -1 if it was not in the map
+     */
+    int remove(long id) {
+        int mask = ids.length - 1;
+        int i = bucket(id);
+        while (ids[i] != id) {
+            if (ids[i] == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int removed = slots[i];
+        int hole = i;
+        for (int j = (i + 1) & mask; ids[j] != EMPTY; j = (j + 1) & mask) {
+            int home = bucket(ids[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                ids[hole] = ids[j];
+                slots[hole] = slots[j];
+                hole = j;
+            }
+        }
+        ids[hole] = EMPTY;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes every id from the map, keeping its capacity.
+     */
+    void clear() {
+        Arrays.fill(ids, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Returns the bucket an id hashes to.
+     *
+     * @param id the book id
+     * @return the index of the bucket
+     */
+    private int bucket(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (ids.length - 1);
+    }
+
+    /**
+     * Rehashes the map into arrays of the specified capacity.
+     *
+     * @param capacity the new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        int[] oldSlots = slots;
+        ids = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(ids, EMPTY);
+        size = 0;
+
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                put(oldIds[i], oldSlots[i]);
+            }
+        }
+    }
+}
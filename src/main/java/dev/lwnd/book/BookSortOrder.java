@@ -0,0 +1,49 @@
+package dev.lwnd.book;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * The orders in which books can be listed.
+ */
+public enum BookSortOrder {
+    TITLE(new BookTitleComparator()),
+    AUTHOR(new BookAuthorComparator()),
+    PUBLICATION_DATE(new BookPublicationDateComparator());
+
+    private final Comparator<Book> comparator;
+
+    /**
+     * Constructs a BookSortOrder with the comparator defining it.
+     *
+     * @param comparator the comparator defining the order
+     */
+    BookSortOrder(Comparator<Book> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the comparator defining the order.
+     *
+     * @return the comparator of the order
+     */
+    public Comparator<Book> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the comparator defining the order under the collation rules of a locale.
+     * Titles and authors are compared by their cached collation keys; publication dates
+     * are not affected by the locale.
+     *
+     * @param locale the locale to collate titles and authors in
+     * @return the comparator of the order in the locale
+     */
+    public Comparator<Book> comparator(Locale locale) {
+        return switch (this) {
+            case TITLE -> BookCollation.forLocale(locale).titleComparator();
+            case AUTHOR -> BookCollation.forLocale(locale).authorComparator();
+            case PUBLICATION_DATE -> comparator;
+        };
+    }
+}
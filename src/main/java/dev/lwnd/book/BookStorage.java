@@ -0,0 +1,32 @@
+package dev.lwnd.book;
+
+/**
+ * The ways a BookCollection can keep its books.
+ */
+public enum BookStorage {
+    /**
+     * Books are kept as Book objects, with every lookup index of the collection.
+     */
+    HEAP,
+    /**
+     * Books are kept in the primitive columns of a {@link ColumnarBookStore} and materialized when read.
+     */
+    COLUMNAR,
+    /**
+     * Books are kept outside the Java heap in an {@link OffHeapBookStore} and materialized when read.
+     */
+    OFF_HEAP;
+
+    /**
+     * Creates an empty store of this kind.
+     *
+     * @return the new store, or null for HEAP, which keeps no store
+     */
+    BookStore createStore() {
+        return switch (this) {
+            case HEAP -> null;
+            case COLUMNAR -> new ColumnarBookStore();
+            case OFF_HEAP -> new OffHeapBookStore();
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package dev.lwnd.book;
+
+import java.util.List;
+
+/**
+ * A compact storage of books addressed by index.
+ * Unlike a BookCollection, a store does not keep the Book objects it is given; it copies their
+ * contents into its own layout and materializes a new Book each time one is requested.
+ * A materialized book has the id of the book it was stored from, so the two are equal.
+ *
+ * <p>An index of a store is a slot: emptying it leaves the other books where they are,
+ * until the store is compacted. A BookCollection can keep its books in a store, see
+ * {@link BookStorage}.
+ */
+public interface BookStore {
+    /**
+     * Returns the number of books in the store.
+     *
+     * @return the number of books
+     */
+    int size();
+
+    /**
+     * Materializes the book at the specified index.
+     *
+     * @param index the index of the book
+     * @return a new Book holding the id and contents stored at the index, or null if the slot is empty
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    Book get(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Returns the id of the book at the specified index without materializing the book.
+     *
+     * @param index the index of the book
+     * @return the id of the book, or -1 if the slot is empty
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    long getId(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Appends the contents of a book to the store.
+     *
+     * @param book the book to add, or null to append an empty slot
+     */
+    void add(Book book);
+
+    /**
+     * Replaces the contents stored at the specified index with those of the provided book.
+     *
+     * @param index the index of the book to update
+     * @param book  the updated book
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    void set(int index, Book book) throws IndexOutOfBoundsException;
+
+    /**
+     * Removes the book at the specified index, shifting the following books down by one.
+     *
+     * @param index the index of the book to remove
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    void remove(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Empties the slot at the specified index, leaving the other books where they are.
+     *
+     * @param index the index of the book to remove
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    void clear(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Removes the empty slots in one pass, moving the following books down.
+     */
+    void compact();
+
+    /**
+     * Returns the books whose titles contain the provided title, ignoring case and accents.
+     *
+     * @param title the title to filter by
+     * @return the matching books, in store order
+     */
+    List<Book> filterByTitle(String title);
+
+    /**
+     * Returns all books of the store in the provided order.
+     *
+     * @param order the order to list the books in
+     * @return the books in order
+     */
+    List<Book> sorted(BookSortOrder order);
+
+    /**
+     * Returns a window of the books of the store in the provided order.
+     * The books are ordered on their stored columns, and only the books of the window are materialized.
+     *
+     * @param order the order to list the books in
+     * @param from  the index of the first book of the window in that order
+     * @param count the maximum number of books in the window
+     * @return the books of the window, fewer than count at the end of the store
+     */
+    List<Book> sorted(BookSortOrder order, int from, int count);
+}
@@ -0,0 +1,416 @@
+package dev.lwnd.book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.util.TextUtil;
+
+/**
+ * A book store that keeps its books in parallel primitive arrays instead of one object per book.
+ * Titles and their search keys are packed as UTF-8 into a single byte array, authors are stored
+ * as ids into an author dictionary, publication dates as epoch days, and book ids alongside.
+ * Filtering and sorting scan the arrays directly and only materialize the books they return.
+ * The sorted order of the slots is kept per sort order until the store changes, so paging
+ * through a sorted store sorts it once rather than once per page.
+ * An empty slot has the id -1 and no text.
+ */
+@ObjectDescription(description = "Represents a column-oriented store of books.")
+public class ColumnarBookStore implements BookStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long EMPTY = -1;
+
+    private byte[] text = new byte[INITIAL_CAPACITY * 32];
+    private int textLength;
+    private int garbageLength;
+
+    private int[] titleStarts = new int[INITIAL_CAPACITY];
+    private int[] keyStarts = new int[INITIAL_CAPACITY];
+    private int[] keyEnds = new int[INITIAL_CAPACITY];
+    private int[] authorIds = new int[INITIAL_CAPACITY];
+    private int[] publicationDays = new int[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+    private final int[][] sortedIndexes = new int[BookSortOrder.values().length][];
+
+    private final AuthorDictionary authors = new AuthorDictionary();
+
+    /**
+     * Constructs an empty ColumnarBookStore.
+     */
+    public ColumnarBookStore() {
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Book get(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if (ids[index] == EMPTY) {
+            return null;
+        }
+
+        String title = new String(text, titleStarts[index], keyStarts[index] - titleStarts[index], StandardCharsets.UTF_8);
+        return new Book(ids[index], title, authors.getName(authorIds[index]), publicationDays[index]);
+    }
+
+    @Override
+    public long getId(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    @Override
+    public void add(Book book) {
+        if (size == titleStarts.length) {
+            int capacity = size * 2;
+            titleStarts = Arrays.copyOf(titleStarts, capacity);
+            keyStarts = Arrays.copyOf(keyStarts, capacity);
+            keyEnds = Arrays.copyOf(keyEnds, capacity);
+            authorIds = Arrays.copyOf(authorIds, capacity);
+            publicationDays = Arrays.copyOf(publicationDays, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+
+        if (book == null) {
+            writeEmpty(size);
+        } else {
+            write(size, book);
+        }
+        size++;
+        dropSortedIndexes();
+    }
+
+    @Override
+    public void set(int index, Book book) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += keyEnds[index] - titleStarts[index];
+        write(index, book);
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += keyEnds[index] - titleStarts[index];
+        int moved = size - index - 1;
+        System.arraycopy(titleStarts, index + 1, titleStarts, index, moved);
+        System.arraycopy(keyStarts, index + 1, keyStarts, index, moved);
+        System.arraycopy(keyEnds, index + 1, keyEnds, index, moved);
+        System.arraycopy(authorIds, index + 1, authorIds, index, moved);
+        System.arraycopy(publicationDays, index + 1, publicationDays, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        size--;
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void clear(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += keyEnds[index] - titleStarts[index];
+        writeEmpty(index);
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void compact() {
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != EMPTY) {
+                titleStarts[live] = titleStarts[i];
+                keyStarts[live] = keyStarts[i];
+                keyEnds[live] = keyEnds[i];
+                authorIds[live] = authorIds[i];
+                publicationDays[live] = publicationDays[i];
+                ids[live] = ids[i];
+                live++;
+            }
+        }
+        size = live;
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public List<Book> filterByTitle(String title) {
+        byte[] key = TextUtil.fold(title).getBytes(StandardCharsets.UTF_8);
+
+        List<Book> filteredBooks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != EMPTY && containsKey(i, key)) {
+                filteredBooks.add(get(i));
+            }
+        }
+
+        return filteredBooks;
+    }
+
+    @Override
+    public List<Book> sorted(BookSortOrder order) {
+        return sorted(order, 0, size);
+    }
+
+    @Override
+    public List<Book> sorted(BookSortOrder order, int from, int count) {
+        int[] indexes = sortedIndexes(order);
+        int to = (int) Math.min((long) from + count, indexes.length);
+        List<Book> sortedBooks = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            sortedBooks.add(get(indexes[i]));
+        }
+
+        return sortedBooks;
+    }
+
+    /**
+     * Returns the indexes of the books in the provided order, sorting them only if the store
+     * has changed since they were last sorted in that order.
+     *
+     * @param order the order of the books
+     * @return the sorted indexes, which must not be modified
+     */
+    private int[] sortedIndexes(BookSortOrder order) {
+        int[] indexes = sortedIndexes[order.ordinal()];
+        if (indexes == null) {
+            indexes = switch (order) {
+                case TITLE -> sortedByTitle();
+                case AUTHOR -> sortedByAuthor();
+                case PUBLICATION_DATE -> sortedByPublicationDate();
+            };
+            sortedIndexes[order.ordinal()] = indexes;
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Forgets the sorted orders of the books after a change to the store.
+     */
+    private void dropSortedIndexes() {
+        Arrays.fill(sortedIndexes, null);
+    }
+
+    /**
+     * Writes the contents of a book into the columns at the specified index.
+     * The title and search key are appended to the end of the text array.
+     *
+     * @param index the index to write to
+     * @param book  the book to write
+     */
+    private void write(int index, Book book) {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] key = book.getSearchKey().getBytes(StandardCharsets.UTF_8);
+
+        int required = textLength + title.length + key.length;
+        if (required > text.length) {
+            text = Arrays.copyOf(text, Math.max(required, text.length * 2));
+        }
+
+        titleStarts[index] = textLength;
+        System.arraycopy(title, 0, text, textLength, title.length);
+        textLength += title.length;
+        keyStarts[index] = textLength;
+        System.arraycopy(key, 0, text, textLength, key.length);
+        textLength += key.length;
+        keyEnds[index] = textLength;
+
+        authorIds[index] = authors.intern(book.getAuthor());
+        publicationDays[index] = (int) book.getPublicationEpochDay();
+        ids[index] = book.getId();
+    }
+
+    /**
+     * Makes the slot at the specified index empty, with no text.
+     *
+     * @param index the index to empty
+     */
+    private void writeEmpty(int index) {
+        titleStarts[index] = 0;
+        keyStarts[index] = 0;
+        keyEnds[index] = 0;
+        authorIds[index] = 0;
+        publicationDays[index] = 0;
+        ids[index] = EMPTY;
+    }
+
+    /**
+     * Returns the indexes of the slots holding a book, in store order.
+     *
+     * @return the indexes of the books
+     */
+    private int[] liveIndexes() {
+        int[] indexes = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != EMPTY) {
+                indexes[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(indexes, count);
+    }
+
+    /**
+     * Rewrites the text array without the titles of removed and replaced books
+     * once they take up more than half of it.
+     */
+    private void compactIfNeeded() {
+        if (garbageLength <= textLength / 2) {
+            return;
+        }
+
+        byte[] compacted = new byte[Math.max(textLength - garbageLength, INITIAL_CAPACITY)];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int start = titleStarts[i];
+            int entryLength = keyEnds[i] - start;
+            System.arraycopy(text, start, compacted, length, entryLength);
+            titleStarts[i] = length;
+            keyStarts[i] = length + keyStarts[i] - start;
+            keyEnds[i] = length + entryLength;
+            length += entryLength;
+        }
+
+        text = compacted;
+        textLength = length;
+        garbageLength = 0;
+    }
+
+    /**
+     * Checks if the search key stored at the specified index contains the provided key bytes.
+     *
+     * @param index the index of the book
+     * @param key   the UTF-8 bytes of the folded query
+     * @return true if the search key contains the query, false otherwise
+     */
+    private boolean containsKey(int index, byte[] key) {
+        int last = keyEnds[index] - key.length;
+        for (int start = keyStarts[index]; start <= last; start++) {
+            int j = 0;
+            while (j < key.length && text[start + j] == key[j]) {
+                j++;
+            }
+            if (j == key.length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the indexes of the books ordered by the UTF-8 bytes of their titles.
+     *
+     * @return the sorted indexes
+     */
+    private int[] sortedByTitle() {
+        int[] indexes = liveIndexes();
+        mergeSort(indexes, new int[indexes.length], 0, indexes.length, (first, second) -> Arrays.compareUnsigned(
+                text, titleStarts[first], keyStarts[first],
+                text, titleStarts[second], keyStarts[second]));
+        return indexes;
+    }
+
+    /**
+     * Returns the indexes of the books ordered by author.
+     * The books are sorted on the primitive ranks of their author ids.
+     *
+     * @return the sorted indexes
+     */
+    private int[] sortedByAuthor() {
+        authors.rankAll();
+        int[] indexes = liveIndexes();
+        long[] keys = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            keys[i] = ((long) authors.getRank(authorIds[indexes[i]]) << 32) | indexes[i];
+        }
+
+        return sortedIndexes(keys);
+    }
+
+    /**
+     * Returns the indexes of the books ordered by publication date.
+     *
+     * @return the sorted indexes
+     */
+    private int[] sortedByPublicationDate() {
+        int[] indexes = liveIndexes();
+        long[] keys = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            keys[i] = ((long) publicationDays[indexes[i]] << 32) | indexes[i];
+        }
+
+        return sortedIndexes(keys);
+    }
+
+    /**
+     * Sorts keys holding a sort value in the upper and an index in the lower 32 bits, and returns the indexes.
+     *
+     * @param keys the packed keys
+     * @return the indexes in key order
+     */
+    static int[] sortedIndexes(long[] keys) {
+        Arrays.sort(keys);
+
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = (int) keys[i];
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Stable merge sort of a range of primitive indexes.
+     *
+     * @param indexes    the indexes to sort
+     * @param buffer     a scratch array at least as long as the range
+     * @param from       the start of the range, inclusive
+     * @param to         the end of the range, exclusive
+     * @param comparator the comparator of two indexes
+     */
+    static void mergeSort(int[] indexes, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(indexes, buffer, from, mid, comparator);
+        mergeSort(indexes, buffer, mid, to, comparator);
+
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && comparator.applyAsInt(buffer[i], buffer[j]) <= 0)) {
+                indexes[k] = buffer[i++];
+            } else {
+                indexes[k] = buffer[j++];
+            }
+        }
+    }
+
+    /**
+     * Checks that the index addresses a book in the store.
+     *
+     * @param index the index to check
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import dev.lwnd.util.TextUtil;
+
+/**
+ * An inverted index from the words of the titles and authors of the books to the books containing them,
+ * answering multi-word queries ranked by BM25.
+ *
+ * <p>Every book added gets the next document number, so each posting list is in increasing
+ * document order and is stored as varint-encoded gaps between document numbers, each followed by
+ * the number of times the word occurs in the book. Every {@value #SKIP_INTERVAL} entries a skip
+ * entry records where decoding can resume, so intersecting a rare word with a common one only
+ * decodes the blocks of the common list that may hold a match.
+ *
+ * <p>Each document keeps the posting lists it was added to, so removing a book updates exactly the
+ * words it was indexed under even if its title or author has changed since.
+ * Matches are scored into a min-heap of the best {@code limit} scores and document numbers held in
+ * primitive arrays, so a query costs O(m log k) for m matches and keeps no per-match objects.
+ *
+ * <p>Removing a book only clears its document number; its postings are dropped when more than half
+ * of the document numbers are cleared and the index is rebuilt from the remaining books.
+ */
+class FullTextIndex {
+    static final int SKIP_INTERVAL = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_REBUILD_DOCUMENTS = 1024;
+
+    private final Map<String, Posting> postings = new HashMap<>();
+    private final BookSlotMap documentsById = new BookSlotMap();
+    private Book[] documents = new Book[16];
+    private Posting[][] documentPostings = new Posting[16][];
+    private int[] documentLengths = new int[16];
+    private int documentCount;
+    private int liveDocumentCount;
+    private long totalLength;
+
+    /**
+     * Adds a book to the index under the words of its title and author.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        if (documentCount == documents.length) {
+            documents = Arrays.copyOf(documents, documentCount * 2);
+            documentPostings = Arrays.copyOf(documentPostings, documentCount * 2);
+            documentLengths = Arrays.copyOf(documentLengths, documentCount * 2);
+        }
+
+        int document = documentCount++;
+        List<String> words = words(book);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : words) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        Posting[] bookPostings = new Posting[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Posting posting = postings.computeIfAbsent(entry.getKey(), word -> new Posting());
+            posting.add(document, entry.getValue());
+            bookPostings[i++] = posting;
+        }
+
+        documents[document] = book;
+        documentPostings[document] = bookPostings;
+        documentLengths[document] = words.size();
+        documentsById.put(book.getId(), document);
+        liveDocumentCount++;
+        totalLength += words.size();
+    }
+
+    /**
+     * Removes a book from the index, rebuilding the index once most of its document numbers are unused.
+     * The book is removed from the posting lists it was added to, whatever its title and author are now.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        int document = documentsById.remove(book.getId());
+        if (document == -1) {
+            return;
+        }
+
+        for (Posting posting : documentPostings[document]) {
+            posting.liveCount--;
+        }
+        documents[document] = null;
+        documentPostings[document] = null;
+        liveDocumentCount--;
+        totalLength -= documentLengths[document];
+
+        if (documentCount >= MIN_REBUILD_DOCUMENTS && liveDocumentCount * 2 < documentCount) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the books containing every word of the query, best match first, ranked by BM25
+     * over their title and author words.
+     *
+     * @param query the query
+     * @param limit the maximum number of books to return
+     * @return the matching books
+     */
+    List<Book> search(String query, int limit) {
+        List<String> words = tokens(TextUtil.fold(query));
+        if (words.isEmpty() || limit == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Posting> queryPostings = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            Posting posting = postings.get(word);
+            if (posting == null || posting.liveCount == 0) {
+                return new ArrayList<>();
+            }
+            queryPostings.add(posting);
+        }
+        queryPostings.sort((first, second) -> Integer.compare(first.count, second.count));
+
+        double averageLength = liveDocumentCount == 0 ? 1 : (double) totalLength / liveDocumentCount;
+        double[] idfs = new double[queryPostings.size()];
+        Cursor[] cursors = new Cursor[queryPostings.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            int documentFrequency = queryPostings.get(i).liveCount;
+            idfs[i] = Math.log(1 + (liveDocumentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            cursors[i] = new Cursor(queryPostings.get(i));
+        }
+
+        int capacity = Math.min(limit, queryPostings.get(0).liveCount);
+        double[] heapScores = new double[capacity];
+        int[] heapDocuments = new int[capacity];
+        int heapSize = 0;
+        Cursor lead = cursors[0];
+        candidates:
+        while (lead.next()) {
+            int document = lead.document;
+            if (documents[document] == null) {
+                continue;
+            }
+
+            for (int i = 1; i < cursors.length; i++) {
+                if (!cursors[i].advance(document)) {
+                    break candidates;
+                }
+                if (cursors[i].document != document) {
+                    continue candidates;
+                }
+            }
+
+            double score = 0;
+            double lengthNorm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+            for (int i = 0; i < cursors.length; i++) {
+                int frequency = cursors[i].frequency;
+                score += idfs[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+            }
+            if (heapSize < capacity) {
+                heapScores[heapSize] = score;
+                heapDocuments[heapSize] = document;
+                siftUp(heapScores, heapDocuments, heapSize++);
+            } else if (score > heapScores[0]) {
+                heapScores[0] = score;
+                heapDocuments[0] = document;
+                siftDown(heapScores, heapDocuments, heapSize);
+            }
+        }
+
+        Book[] result = new Book[heapSize];
+        while (heapSize > 0) {
+            result[--heapSize] = documents[heapDocuments[0]];
+            heapScores[0] = heapScores[heapSize];
+            heapDocuments[0] = heapDocuments[heapSize];
+            siftDown(heapScores, heapDocuments, heapSize);
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    /**
+     * Checks if the heap entry at one position ranks below the entry at another.
+     * Lower scores rank below, and of equal scores the later document ranks below,
+     * so the results keep the order in which the books were added.
+     *
+     * @param scores    the scores of the heap
+     * @param documents the document numbers of the heap
+     * @param first     the position of the first entry
+     * @param second    the position of the second entry
+     * @return true if the first entry ranks below the second, false otherwise
+     */
+    private static boolean ranksBelow(double[] scores, int[] documents, int first, int second) {
+        int compared = Double.compare(scores[first], scores[second]);
+        return compared != 0 ? compared < 0 : documents[first] > documents[second];
+    }
+
+    /**
+     * Moves a heap entry up until its parent ranks below it.
+     *
+     * @param scores    the scores of the heap
+     * @param documents the document numbers of the heap
+     * @param index     the position of the entry
+     */
+    private static void siftUp(double[] scores, int[] documents, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(scores, documents, index, parent)) {
+                return;
+            }
+            swap(scores, documents, index, parent);
+            index = parent;
+        }
+    }
+
+    /**
+     * Moves the root of the heap down until no child ranks below it.
+     *
+     * @param scores    the scores of the heap
+     * @param documents the document numbers of the heap
+     * @param size      the number of entries in the heap
+     */
+    private static void siftDown(double[] scores, int[] documents, int size) {
+        int index = 0;
+        while (true) {
+            int lowest = index;
+            int left = 2 * index + 1;
+            if (left < size && ranksBelow(scores, documents, left, lowest)) {
+                lowest = left;
+            }
+            if (left + 1 < size && ranksBelow(scores, documents, left + 1, lowest)) {
+                lowest = left + 1;
+            }
+            if (lowest == index) {
+                return;
+            }
+            swap(scores, documents, index, lowest);
+            index = lowest;
+        }
+    }
+
+    /**
+     * Swaps two heap entries.
+     *
+     * @param scores    the scores of the heap
+     * @param documents the document numbers of the heap
+     * @param first     the position of the first entry
+     * @param second    the position of the second entry
+     */
+    private static void swap(double[] scores, int[] documents, int first, int second) {
+        double score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+        int document = documents[first];
+        documents[first] = documents[second];
+        documents[second] = document;
+    }
+
+    /**
+     * Rebuilds the index from the books still in it, in the order they were added.
+     */
+    private void rebuild() {
+        Book[] live = new Book[liveDocumentCount];
+        int i = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (documents[document] != null) {
+                live[i++] = documents[document];
+            }
+        }
+
+        postings.clear();
+        documentsById.clear();
+        documents = new Book[Math.max(16, live.length)];
+        documentPostings = new Posting[documents.length][];
+        documentLengths = new int[documents.length];
+        documentCount = 0;
+        liveDocumentCount = 0;
+        totalLength = 0;
+        for (Book book : live) {
+            add(book);
+        }
+    }
+
+    /**
+     * Returns the words of the title and the author of a book, with repeats.
+     *
+     * @param book the book
+     * @return the folded words
+     */
+    private static List<String> words(Book book) {
+        List<String> words = tokens(book.getSearchKey());
+        words.addAll(tokens(TextUtil.fold(book.getAuthor())));
+        return words;
+    }
+
+    /**
+     * Splits a folded text into its words, the runs of letters and digits.
+     *
+     * @param text the folded text
+     * @return the words in order of appearance, with repeats
+     */
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start == -1) {
+                start = i;
+            } else if (!wordChar && start != -1) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * The compressed list of the documents containing one word.
+     */
+    private static class Posting {
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int liveCount;
+        private int lastDocument = -1;
+        private int[] skipDocuments = new int[0];
+        private int[] skipBases = new int[0];
+        private int[] skipOffsets = new int[0];
+
+        /**
+         * Appends a document, which must come after every document already in the list.
+         *
+         * @param document  the document number
+         * @param frequency the number of times the word occurs in the document
+         */
+        void add(int document, int frequency) {
+            if (count % SKIP_INTERVAL == 0 && count > 0) {
+                int skip = count / SKIP_INTERVAL - 1;
+                if (skip == skipDocuments.length) {
+                    int capacity = Math.max(4, skip * 2);
+                    skipDocuments = Arrays.copyOf(skipDocuments, capacity);
+                    skipBases = Arrays.copyOf(skipBases, capacity);
+                    skipOffsets = Arrays.copyOf(skipOffsets, capacity);
+                }
+                skipDocuments[skip] = document;
+                skipBases[skip] = lastDocument;
+                skipOffsets[skip] = length;
+            }
+
+            writeVarint(document - lastDocument);
+            writeVarint(frequency);
+            lastDocument = document;
+            count++;
+            liveCount++;
+        }
+
+        /**
+         * Returns the number of skip entries.
+         *
+         * @return the number of skips
+         */
+        int skipCount() {
+            return count == 0 ? 0 : (count - 1) / SKIP_INTERVAL;
+        }
+
+        /**
+         * Appends a varint to the data.
+         *
+         * @param value the non-negative value
+         */
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Decodes a posting list in document order.
+     */
+    private static class Cursor {
+        private final Posting posting;
+        private int offset;
+        private int index;
+        private int nextSkip;
+        private int document = -1;
+        private int frequency;
+
+        /**
+         * Constructs a Cursor before the first entry of a posting list.
+         *
+         * @param posting the posting list to decode
+         */
+        Cursor(Posting posting) {
+            this.posting = posting;
+        }
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return true if there was a next entry, false at the end of the list
+         */
+        boolean next() {
+            if (index == posting.count) {
+                return false;
+            }
+
+            document += readVarint();
+            frequency = readVarint();
+            index++;
+            return true;
+        }
+
+        /**
+         * Moves to the first entry at or after a document, skipping whole blocks where possible.
+         * Does not move if the current entry is already there.
+         *
+         * @param target the document number to move to
+         * @return true if such an entry exists, false at the end of the list
+         */
+        boolean advance(int target) {
+            if (index > 0 && document >= target) {
+                return true;
+            }
+
+            int skipCount = posting.skipCount();
+            while (nextSkip < skipCount && posting.skipDocuments[nextSkip] <= target) {
+                if ((nextSkip + 1) * SKIP_INTERVAL > index) {
+                    offset = posting.skipOffsets[nextSkip];
+                    document = posting.skipBases[nextSkip];
+                    index = (nextSkip + 1) * SKIP_INTERVAL;
+                }
+                nextSkip++;
+            }
+
+            while (next()) {
+                if (document >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Reads a varint from the posting data.
+         *
+         * @return the value
+         */
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = posting.data[offset++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package dev.lwnd.book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.util.TextUtil;
+
+/**
+ * A book store that keeps its books outside the Java heap.
+ *
+ * <p>Each book is encoded as one record in an arena of direct byte buffers: the lengths of the
+ * title and its search key, the author id, the publication epoch day and the book id, followed by the UTF-8
+ * bytes of the title and the search key. A slot table, itself off the heap, holds the address of
+ * the record of every index, or -1 for an empty slot. The heap only holds the handful of arena chunks and the author
+ * dictionary, so the amount of memory the garbage collector has to trace stays the same however
+ * many books the store holds. Books are materialized from their records only when requested.
+ *
+ * <p>Records of removed and replaced books are left in the arena until they take up more than
+ * half of it, at which point the live records are copied into a fresh arena.
+ *
+ * <p>The sorted order of the slots is kept on the heap per sort order until the store changes,
+ * so paging through a sorted store sorts it once rather than once per page.
+ */
+@ObjectDescription(description = "Represents a store of books kept outside the Java heap.")
+public class OffHeapBookStore implements BookStore {
+    private static final int KEY_LENGTH_OFFSET = 4;
+    private static final int AUTHOR_ID_OFFSET = 8;
+    private static final int PUBLICATION_DAY_OFFSET = 12;
+    private static final int ID_OFFSET = 16;
+    private static final int RECORD_HEADER_SIZE = 24;
+    private static final int INITIAL_CHUNK_SIZE = 1 << 16;
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long EMPTY = -1;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer currentChunk;
+    private long arenaLength;
+    private long garbageLength;
+
+    private ByteBuffer slots = ByteBuffer.allocateDirect(INITIAL_CAPACITY * Long.BYTES);
+    private int size;
+    private final int[][] sortedIndexes = new int[BookSortOrder.values().length][];
+
+    private final AuthorDictionary authors = new AuthorDictionary();
+
+    /**
+     * Constructs an empty OffHeapBookStore.
+     */
+    public OffHeapBookStore() {
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Book get(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        long address = address(index);
+        if (address == EMPTY) {
+            return null;
+        }
+
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        byte[] title = new byte[chunk.getInt(offset)];
+        chunk.get(offset + RECORD_HEADER_SIZE, title);
+        return new Book(chunk.getLong(offset + ID_OFFSET), new String(title, StandardCharsets.UTF_8),
+                authors.getName(chunk.getInt(offset + AUTHOR_ID_OFFSET)), chunk.getInt(offset + PUBLICATION_DAY_OFFSET));
+    }
+
+    @Override
+    public long getId(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        long address = address(index);
+        return address == EMPTY ? EMPTY : chunk(address).getLong(offset(address) + ID_OFFSET);
+    }
+
+    @Override
+    public void add(Book book) {
+        if ((size + 1) * Long.BYTES > slots.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(slots.capacity() * 2);
+            grown.put(0, slots, 0, size * Long.BYTES);
+            slots = grown;
+        }
+
+        slots.putLong(size * Long.BYTES, book == null ? EMPTY : write(book));
+        size++;
+        dropSortedIndexes();
+    }
+
+    @Override
+    public void set(int index, Book book) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += recordLength(address(index));
+        slots.putLong(index * Long.BYTES, write(book));
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void remove(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += recordLength(address(index));
+        slots.put(index * Long.BYTES, slots, (index + 1) * Long.BYTES, (size - index - 1) * Long.BYTES);
+        size--;
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void clear(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        garbageLength += recordLength(address(index));
+        slots.putLong(index * Long.BYTES, EMPTY);
+        dropSortedIndexes();
+        compactIfNeeded();
+    }
+
+    @Override
+    public void compact() {
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            long address = address(i);
+            if (address != EMPTY) {
+                slots.putLong(live++ * Long.BYTES, address);
+            }
+        }
+        size = live;
+        dropSortedIndexes();
+    }
+
+    @Override
+    public List<Book> filterByTitle(String title) {
+        byte[] key = TextUtil.fold(title).getBytes(StandardCharsets.UTF_8);
+
+        List<Book> filteredBooks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long address = address(i);
+            if (address != EMPTY && containsKey(address, key)) {
+                filteredBooks.add(get(i));
+            }
+        }
+
+        return filteredBooks;
+    }
+
+    @Override
+    public List<Book> sorted(BookSortOrder order) {
+        return sorted(order, 0, size);
+    }
+
+    @Override
+    public List<Book> sorted(BookSortOrder order, int from, int count) {
+        int[] indexes = sortedIndexes(order);
+        int to = (int) Math.min((long) from + count, indexes.length);
+        List<Book> sortedBooks = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            sortedBooks.add(get(indexes[i]));
+        }
+
+        return sortedBooks;
+    }
+
+    /**
+     * Returns the number of bytes the records of the store take up off the heap,
+     * including those of removed books not yet compacted away.
+     *
+     * @return the length of the arena in bytes
+     */
+    public long getArenaLength() {
+        return arenaLength;
+    }
+
+    /**
+     * Returns the indexes of the books in the provided order, sorting them only if the store
+     * has changed since they were last sorted in that order.
+     *
+     * @param order the order of the books
+     * @return the sorted indexes, which must not be modified
+     */
+    private int[] sortedIndexes(BookSortOrder order) {
+        int[] indexes = sortedIndexes[order.ordinal()];
+        if (indexes == null) {
+            indexes = switch (order) {
+                case TITLE -> sortedByTitle();
+                case AUTHOR -> sortedByColumn(AUTHOR_ID_OFFSET);
+                case PUBLICATION_DATE -> sortedByColumn(PUBLICATION_DAY_OFFSET);
+            };
+            sortedIndexes[order.ordinal()] = indexes;
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Forgets the sorted orders of the books after a change to the store.
+     */
+    private void dropSortedIndexes() {
+        Arrays.fill(sortedIndexes, null);
+    }
+
+    /**
+     * Appends the record of a book to the arena.
+     *
+     * @param book the book to write
+     * @return the address of the record
+     */
+    private long write(Book book) {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] key = book.getSearchKey().getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER_SIZE + title.length + key.length;
+
+        ByteBuffer chunk = reserve(length);
+        int offset = chunk.position();
+        chunk.putInt(title.length)
+             .putInt(key.length)
+             .putInt(authors.intern(book.getAuthor()))
+             .putInt((int) book.getPublicationEpochDay())
+             .putLong(book.getId())
+             .put(title)
+             .put(key);
+        arenaLength += length;
+
+        return ((long) (chunks.size() - 1) << 32) | offset;
+    }
+
+    /**
+     * Returns the current chunk if it has room for a record of the specified length,
+     * or starts a new chunk that does.
+     * Chunks double in size up to a maximum, and a record larger than that gets a chunk of its own.
+     *
+     * @param length the length of the record
+     * @return the chunk, positioned where the record is to be written
+     */
+    private ByteBuffer reserve(int length) {
+        if (currentChunk == null || currentChunk.remaining() < length) {
+            int chunkSize = currentChunk == null ? INITIAL_CHUNK_SIZE : Math.min(currentChunk.capacity() * 2, MAX_CHUNK_SIZE);
+            currentChunk = ByteBuffer.allocateDirect(Math.max(chunkSize, length));
+            chunks.add(currentChunk);
+        }
+
+        return currentChunk;
+    }
+
+    /**
+     * Copies the live records into a fresh arena once the records of removed and replaced books
+     * take up more than half of the current one.
+     */
+    private void compactIfNeeded() {
+        if (garbageLength <= arenaLength / 2) {
+            return;
+        }
+
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        chunks.clear();
+        currentChunk = null;
+        arenaLength = 0;
+        garbageLength = 0;
+
+        for (int i = 0; i < size; i++) {
+            long address = address(i);
+            if (address == EMPTY) {
+                continue;
+            }
+
+            ByteBuffer oldChunk = oldChunks.get((int) (address >>> 32));
+            int offset = offset(address);
+            int length = recordLength(oldChunk, offset);
+
+            ByteBuffer chunk = reserve(length);
+            int newOffset = chunk.position();
+            chunk.put(newOffset, oldChunk, offset, length).position(newOffset + length);
+            arenaLength += length;
+            slots.putLong(i * Long.BYTES, ((long) (chunks.size() - 1) << 32) | newOffset);
+        }
+    }
+
+    /**
+     * Checks if the search key of a record contains the provided key bytes.
+     *
+     * @param address the address of the record
+     * @param key     the UTF-8 bytes of the folded query
+     * @return true if the search key contains the query, false otherwise
+     */
+    private boolean containsKey(long address, byte[] key) {
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        int keyStart = offset + RECORD_HEADER_SIZE + chunk.getInt(offset);
+        int last = keyStart + chunk.getInt(offset + KEY_LENGTH_OFFSET) - key.length;
+        for (int start = keyStart; start <= last; start++) {
+            int j = 0;
+            while (j < key.length && chunk.get(start + j) == key[j]) {
+                j++;
+            }
+            if (j == key.length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the indexes of the books ordered by the UTF-8 bytes of their titles.
+     *
+     * @return the sorted indexes
+     */
+    private int[] sortedByTitle() {
+        int[] indexes = liveIndexes();
+        ColumnarBookStore.mergeSort(indexes, new int[indexes.length], 0, indexes.length,
+                (first, second) -> compareTitles(address(first), address(second)));
+        return indexes;
+    }
+
+    /**
+     * Returns the indexes of the books ordered by an int column of their records.
+     * Author ids are replaced by their alphabetical rank before sorting.
+     *
+     * @param column the offset of the column in the record header
+     * @return the sorted indexes
+     */
+    private int[] sortedByColumn(int column) {
+        if (column == AUTHOR_ID_OFFSET) {
+            authors.rankAll();
+        }
+        int[] indexes = liveIndexes();
+        long[] keys = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            long address = address(indexes[i]);
+            int value = chunk(address).getInt(offset(address) + column);
+            keys[i] = ((long) (column == AUTHOR_ID_OFFSET ? authors.getRank(value) : value) << 32) | indexes[i];
+        }
+
+        return ColumnarBookStore.sortedIndexes(keys);
+    }
+
+    /**
+     * Returns the indexes of the slots holding a book, in store order.
+     *
+     * @return the indexes of the books
+     */
+    private int[] liveIndexes() {
+        int[] indexes = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (address(i) != EMPTY) {
+                indexes[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(indexes, count);
+    }
+
+    /**
+     * Compares the UTF-8 bytes of the titles of two records as unsigned bytes.
+     *
+     * @param first  the address of the first record
+     * @param second the address of the second record
+     * @return a negative, zero or positive value as the first title sorts before, with or after the second
+     */
+    private int compareTitles(long first, long second) {
+        ByteBuffer firstChunk = chunk(first);
+        ByteBuffer secondChunk = chunk(second);
+        int firstOffset = offset(first);
+        int secondOffset = offset(second);
+        int firstLength = firstChunk.getInt(firstOffset);
+        int secondLength = secondChunk.getInt(secondOffset);
+
+        int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            int compared = Byte.compareUnsigned(firstChunk.get(firstOffset + RECORD_HEADER_SIZE + i),
+                    secondChunk.get(secondOffset + RECORD_HEADER_SIZE + i));
+            if (compared != 0) {
+                return compared;
+            }
+        }
+
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    /**
+     * Returns the address of the record at the specified index.
+     *
+     * @param index the index of the book
+     * @return the chunk number in the upper and the offset in the lower 32 bits
+     */
+    private long address(int index) {
+        return slots.getLong(index * Long.BYTES);
+    }
+
+    /**
+     * Returns the chunk holding a record.
+     *
+     * @param address the address of the record
+     * @return the chunk
+     */
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    /**
+     * Returns the offset of a record within its chunk.
+     *
+     * @param address the address of the record
+     * @return the offset
+     */
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Returns the length of a record.
+     *
+     * @param address the address of the record, or -1 for an empty slot
+     * @return the length in bytes, 0 for an empty slot
+     */
+    private int recordLength(long address) {
+        if (address == EMPTY) {
+            return 0;
+        }
+
+        return recordLength(chunk(address), offset(address));
+    }
+
+    /**
+     * Returns the length of the record at an offset of a chunk.
+     *
+     * @param chunk  the chunk holding the record
+     * @param offset the offset of the record
+     * @return the length in bytes
+     */
+    private static int recordLength(ByteBuffer chunk, int offset) {
+        return RECORD_HEADER_SIZE + chunk.getInt(offset) + chunk.getInt(offset + KEY_LENGTH_OFFSET);
+    }
+
+    /**
+     * Checks that the index addresses a book in the store.
+     *
+     * @param index the index to check
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
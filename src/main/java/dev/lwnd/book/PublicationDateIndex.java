@@ -0,0 +1,88 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An index of books ordered by publication date.
+ * The books are kept in a sorted view, so a date range is found by two descents of the tree
+ * and returned without touching any other book, and a book is removed by its id in O(log n).
+ * Books published on the same day are ordered by id, which is the order in which they were created.
+ */
+class PublicationDateIndex {
+    private final SortedBookView view = new SortedBookView(new BookPublicationDateComparator());
+
+    /**
+     * Inserts a book at its position in the index.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        view.add(book);
+    }
+
+    /**
+     * Inserts a list of books into the index.
+     * The books are sorted on their own and merged with the index in a single pass.
+     *
+     * @param added the books to add
+     */
+    void addAll(List<Book> added) {
+        view.addAll(added);
+    }
+
+    /**
+     * Removes the book with the id of a book from the index.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        view.remove(book);
+    }
+
+    /**
+     * Returns the number of books in the index.
+     *
+     * @return the size of the index
+     */
+    int size() {
+        return view.size();
+    }
+
+    /**
+     * Returns the books published between the two epoch days, both inclusive, ordered by date.
+     *
+     * @param fromDay the first epoch day of the range
+     * @param toDay   the last epoch day of the range
+     * @return the books published in the range
+     */
+    List<Book> between(long fromDay, long toDay) {
+        if (fromDay > toDay) {
+            return new ArrayList<>();
+        }
+
+        int from = view.countWhile(book -> book.getPublicationEpochDay() < fromDay);
+        int to = view.countWhile(book -> book.getPublicationEpochDay() <= toDay);
+        return view.window(from, to - from);
+    }
+
+    /**
+     * Returns a window of the books of the index ordered by publication date.
+     *
+     * @param from  the position of the first book of the window
+     * @param count the maximum number of books in the window
+     * @return the books of the window, fewer than count at the end of the index
+     */
+    List<Book> window(int from, int count) {
+        return view.window(from, count);
+    }
+
+    /**
+     * Returns the books of the index ordered by publication date.
+     *
+     * @return an unmodifiable list of the books in order
+     */
+    List<Book> asList() {
+        return view.asList();
+    }
+}
@@ -0,0 +1,493 @@
+package dev.lwnd.book;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A list of books that is kept in the order of a comparator as books are added and removed.
+ * Books that compare equal are ordered by id, which is the order in which they were created.
+ *
+ * <p>The books are held in an AVL tree in which every node also counts the books below it,
+ * so adding, removing and finding the book at a position all take O(log n) time,
+ * and a window of k books is read in O(log n + k) without touching the rest of the tree.
+ * The nodes are also kept by book id and linked to their parents, so a book is removed by walking up
+ * from its node rather than by comparing it; a book is found again even if its fields changed.
+ * A book must not change the fields the comparator reads while it is in the view.
+ */
+class SortedBookView {
+    private final Comparator<Book> comparator;
+    private final Map<Long, Node> nodesById = new HashMap<>();
+    private Node root;
+
+    /**
+     * Constructs an empty SortedBookView ordered by the given comparator.
+     *
+     * @param comparator the comparator defining the order of the view
+     */
+    SortedBookView(Comparator<Book> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the number of books in the view.
+     *
+     * @return the size of the view
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Inserts a book at its position in the view.
+     * A book that is already in the view is not added again.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        if (nodesById.containsKey(book.getId())) {
+            return;
+        }
+
+        setRoot(insert(root, book));
+    }
+
+    /**
+     * Inserts a list of books into the view.
+     * The books are sorted on their own, merged with the books of the view in a single pass,
+     * and the tree is rebuilt balanced from the merged books. Books already in the view are not added again.
+     *
+     * @param added the books to add
+     */
+    void addAll(List<Book> added) {
+        Book[] sortedAdded = added.stream().filter(book -> !nodesById.containsKey(book.getId())).toArray(Book[]::new);
+        Arrays.sort(sortedAdded, this::order);
+        Book[] current = new Book[size()];
+        int size = 0;
+        Deque<Node> path = new ArrayDeque<>();
+        pushLeft(path, root);
+        while (!path.isEmpty()) {
+            Node node = path.pop();
+            current[size++] = node.book;
+            pushLeft(path, node.right);
+        }
+
+        Book[] merged = new Book[current.length + sortedAdded.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < current.length || j < sortedAdded.length) {
+            Book next;
+            if (j == sortedAdded.length || (i < current.length && order(current[i], sortedAdded[j]) <= 0)) {
+                next = current[i++];
+            } else {
+                next = sortedAdded[j++];
+            }
+            if (k == 0 || order(merged[k - 1], next) != 0) {
+                merged[k++] = next;
+            }
+        }
+        nodesById.clear();
+        setRoot(build(merged, 0, k));
+    }
+
+    /**
+     * Removes the book with the id of a book from the view.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        Node node = nodesById.remove(book.getId());
+        if (node == null) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        for (; node != null; node = node.parent) {
+            path.add(node);
+        }
+        setRoot(delete(path, path.size() - 1));
+    }
+
+    /**
+     * Returns the book at the specified position in the view.
+     *
+     * @param index the position of the book
+     * @return the book at the position
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    Book get(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.book;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns a window of the books of the view in order.
+     *
+     * @param from  the position of the first book of the window
+     * @param count the maximum number of books in the window
+     * @return the books of the window, fewer than count at the end of the view
+     */
+    List<Book> window(int from, int count) {
+        List<Book> window = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int skip = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip <= leftSize) {
+                path.push(node);
+                if (skip == leftSize) {
+                    break;
+                }
+                node = node.left;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        while (!path.isEmpty() && window.size() < count) {
+            Node next = path.pop();
+            window.add(next.book);
+            pushLeft(path, next.right);
+        }
+        return window;
+    }
+
+    /**
+     * Counts the books at the start of the view that match a predicate.
+     * The predicate must hold for a prefix of the view and for no book after it,
+     * as "published before a day" does for a view ordered by publication date.
+     *
+     * @param before the predicate holding for the books of the prefix
+     * @return the length of the prefix
+     */
+    int countWhile(Predicate<Book> before) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (before.test(node.book)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the books of the view in order.
+     * The list is a read-only view that follows the changes to the view;
+     * finding a book in it by position takes O(log n) time.
+     *
+     * @return an unmodifiable list of the books in order
+     */
+    List<Book> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Book get(int index) {
+                return SortedBookView.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return SortedBookView.this.size();
+            }
+        };
+    }
+
+    /**
+     * Compares two books by the comparator of the view and then by id.
+     *
+     * @param book1 the first book
+     * @param book2 the second book
+     * @return a negative, zero or positive value as the first book orders before, with or after the second
+     */
+    private int order(Book book1, Book book2) {
+        int compared = comparator.compare(book1, book2);
+        return compared != 0 ? compared : Long.compare(book1.getId(), book2.getId());
+    }
+
+    /**
+     * Inserts a book into a subtree.
+     *
+     * @param node the root of the subtree
+     * @param book the book to insert
+     * @return the new root of the subtree
+     */
+    private Node insert(Node node, Book book) {
+        if (node == null) {
+            return newNode(book);
+        }
+
+        int compared = order(book, node.book);
+        if (compared < 0) {
+            setLeft(node, insert(node.left, book));
+        } else if (compared > 0) {
+            setRight(node, insert(node.right, book));
+        } else {
+            return node;
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes the last node of a path from the subtree rooted at a node of the path.
+     *
+     * @param path  the nodes from the node to delete up to the root of the tree
+     * @param depth the position in the path of the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node delete(List<Node> path, int depth) {
+        Node node = path.get(depth);
+        if (depth > 0) {
+            if (path.get(depth - 1) == node.left) {
+                setLeft(node, delete(path, depth - 1));
+            } else {
+                setRight(node, delete(path, depth - 1));
+            }
+            return balance(node);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        setRight(successor, deleteFirst(node.right));
+        setLeft(successor, node.left);
+        return balance(successor);
+    }
+
+    /**
+     * Deletes the first book of a subtree.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node deleteFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+
+        setLeft(node, deleteFirst(node.left));
+        return balance(node);
+    }
+
+    /**
+     * Builds a balanced subtree from books in order.
+     *
+     * @param books the books in order
+     * @param from  the index of the first book of the subtree
+     * @param to    the index after the last book of the subtree
+     * @return the root of the subtree, or null if it is empty
+     */
+    private Node build(Book[] books, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        Node node = newNode(books[middle]);
+        setLeft(node, build(books, from, middle));
+        setRight(node, build(books, middle + 1, to));
+        update(node);
+        return node;
+    }
+
+    /**
+     * Creates a node for a book and keeps it by the id of the book.
+     *
+     * @param book the book of the node
+     * @return the new node
+     */
+    private Node newNode(Book book) {
+        Node node = new Node(book);
+        nodesById.put(book.getId(), node);
+        return node;
+    }
+
+    /**
+     * Makes a node the root of the tree.
+     *
+     * @param node the new root, or null if the tree is empty
+     */
+    private void setRoot(Node node) {
+        root = node;
+        if (node != null) {
+            node.parent = null;
+        }
+    }
+
+    /**
+     * Pushes a node and its chain of left children onto a stack, so that the top is the first book of the subtree.
+     *
+     * @param path the stack of nodes still to visit
+     * @param node the root of the subtree
+     */
+    private static void pushLeft(Deque<Node> path, Node node) {
+        for (; node != null; node = node.left) {
+            path.push(node);
+        }
+    }
+
+    /**
+     * Restores the balance of a node whose subtrees differ in height by at most two.
+     *
+     * @param node the node to balance
+     * @return the new root of the subtree
+     */
+    private static Node balance(Node node) {
+        update(node);
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                setLeft(node, rotateLeft(node.left));
+            }
+            return rotateRight(node);
+        }
+        if (difference < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                setRight(node, rotateRight(node.right));
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a subtree to the left, making the right child its root.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        setRight(node, right.left);
+        setLeft(right, node);
+        update(node);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Rotates a subtree to the right, making the left child its root.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        setLeft(node, left.right);
+        setRight(left, node);
+        update(node);
+        update(left);
+        return left;
+    }
+
+    /**
+     * Sets the left child of a node.
+     *
+     * @param node  the parent node
+     * @param child the new left child, or null
+     */
+    private static void setLeft(Node node, Node child) {
+        node.left = child;
+        if (child != null) {
+            child.parent = node;
+        }
+    }
+
+    /**
+     * Sets the right child of a node.
+     *
+     * @param node  the parent node
+     * @param child the new right child, or null
+     */
+    private static void setRight(Node node, Node child) {
+        node.right = child;
+        if (child != null) {
+            child.parent = node;
+        }
+    }
+
+    /**
+     * Recomputes the height and size of a node from its children.
+     *
+     * @param node the node to update
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    /**
+     * Returns the height of a subtree.
+     *
+     * @param node the root of the subtree, or null
+     * @return the height, 0 for an empty subtree
+     */
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Returns the number of books in a subtree.
+     *
+     * @param node the root of the subtree, or null
+     * @return the number of books, 0 for an empty subtree
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A node of the tree, holding one book.
+     */
+    private static class Node {
+        private final Book book;
+        private Node parent;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private int size = 1;
+
+        /**
+         * Constructs a Node without children.
+         *
+         * @param book the book of the node
+         */
+        Node(Book book) {
+            this.book = book;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A radix tree over the search keys of the books, completing typed title prefixes.
+ *
+ * <p>Edges are labelled with whole runs of characters, so a chain of nodes with one child each is
+ * stored as a single node. A node that ends a search key holds the books with that key, and its
+ * popularity is the number of those books plus the number of times one of them was picked.
+ * Every node caches the most popular keys below it, so completing a prefix walks the prefix once
+ * and copies the cached list. Adding or picking a book only moves its key up in the caches on the
+ * path to the key; removing one recomputes just the caches on that path that hold the key.
+ */
+class TitleTrie {
+    static final int MAX_COMPLETIONS = 10;
+
+    private final Node root = new Node("");
+
+    /**
+     * Adds a book to the trie under its search key.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        String key = book.getSearchKey();
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                path.add(child);
+                node = child;
+                break;
+            }
+
+            int common = commonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                node.replaceChild(child, middle);
+                middle.addChild(child);
+                middle.refreshTop();
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+
+        if (node.books == null) {
+            node.books = new BookSet();
+        }
+        node.books.add(book);
+        promote(path, node);
+    }
+
+    /**
+     * Removes a book from the trie, removing and merging nodes that are no longer needed.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        List<Node> path = path(book.getSearchKey());
+        if (path == null) {
+            return;
+        }
+
+        Node node = path.get(path.size() - 1);
+        if (!node.removeBook(book)) {
+            return;
+        }
+
+        if (node.books == null && node != root) {
+            Node parent = path.get(path.size() - 2);
+            if (node.childCount == 0) {
+                parent.removeChild(node);
+                path.remove(path.size() - 1);
+                if (parent != root && parent.books == null && parent.childCount == 1) {
+                    merge(path.get(path.size() - 2), parent);
+                    path.remove(path.size() - 1);
+                }
+            } else if (node.childCount == 1) {
+                merge(parent, node);
+                path.remove(path.size() - 1);
+            }
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            if (path.get(i).caches(node)) {
+                path.get(i).refreshTop();
+            }
+        }
+    }
+
+    /**
+     * Raises the popularity of the key of a book after it was picked.
+     *
+     * @param book the picked book
+     */
+    void recordPick(Book book) {
+        List<Node> path = path(book.getSearchKey());
+        if (path == null || path.get(path.size() - 1).books == null) {
+            return;
+        }
+
+        path.get(path.size() - 1).picks++;
+        promote(path, path.get(path.size() - 1));
+    }
+
+    /**
+     * Returns the titles of the most popular keys starting with a prefix, most popular first.
+     * Keys of equal popularity are ordered by title. The title of a key is that of the first book added with it.
+     *
+     * @param prefix the folded prefix
+     * @param limit  the maximum number of completions, at most MAX_COMPLETIONS
+     * @return the completed titles
+     */
+    List<String> complete(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+
+            int common = commonPrefixLength(child.label, prefix, i);
+            if (common < child.label.length() && i + common < prefix.length()) {
+                return new ArrayList<>();
+            }
+            node = child;
+            i += common;
+        }
+
+        int count = Math.min(limit, node.topSize);
+        List<String> completions = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            completions.add(node.top[j].books.first().getTitle());
+        }
+
+        return completions;
+    }
+
+    /**
+     * Returns the nodes from the root to the node ending exactly at a key.
+     *
+     * @param key the folded key
+     * @return the path, or null if no node ends at the key
+     */
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.label, i)) {
+                return null;
+            }
+            path.add(node);
+            i += node.label.length();
+        }
+
+        return path;
+    }
+
+    /**
+     * Replaces a node holding no books and a single child by that child, prepending its label.
+     * The child keeps the completions it caches, as the keys below it do not change.
+     *
+     * @param parent the parent of the node
+     * @param node   the node to merge into its child
+     */
+    private static void merge(Node parent, Node node) {
+        Node child = node.children[0];
+        child.label = node.label + child.label;
+        parent.replaceChild(node, child);
+    }
+
+    /**
+     * Moves a key whose popularity rose to its place in the cached completions of the nodes on its path.
+     *
+     * @param path the nodes from the root down to the node of the key
+     * @param key  the node ending the key
+     */
+    private static void promote(List<Node> path, Node key) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).promote(key);
+        }
+    }
+
+    /**
+     * Returns the length of the common prefix of a label and a key from an offset.
+     *
+     * @param label  the edge label
+     * @param key    the key
+     * @param offset the offset in the key
+     * @return the number of leading characters they share
+     */
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * A node of the trie, reached from its parent by an edge with its label.
+     */
+    private static class Node {
+        private String label;
+        private BookSet books;
+        private int picks;
+        private Node[] children = new Node[0];
+        private int childCount;
+        private Node[] top = new Node[0];
+        private int topSize;
+
+        /**
+         * Constructs a Node with no books and no children.
+         *
+         * @param label the label of the edge from the parent
+         */
+        Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the popularity of the key ending at the node.
+         *
+         * @return the number of books with the key plus the times they were picked, or 0 if no key ends here
+         */
+        int popularity() {
+            return books == null ? 0 : books.size() + picks;
+        }
+
+        /**
+         * Returns the child whose label starts with a character.
+         *
+         * @param ch the first character of the label
+         * @return the child, or null if there is none
+         */
+        Node child(char ch) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i].label.charAt(0) == ch) {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Adds a child.
+         *
+         * @param child the child to add
+         */
+        void addChild(Node child) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            children[childCount++] = child;
+        }
+
+        /**
+         * Replaces a child with another node.
+         *
+         * @param child       the child to replace
+         * @param replacement the node to put in its place
+         */
+        void replaceChild(Node child, Node replacement) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] == child) {
+                    children[i] = replacement;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes a child.
+         *
+         * @param child the child to remove
+         */
+        void removeChild(Node child) {
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] == child) {
+                    System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                    children[--childCount] = null;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes a book from the key ending at the node.
+         *
+         * @param book the book to remove
+         * @return true if the book was found, false otherwise
+         */
+        boolean removeBook(Book book) {
+            if (books == null) {
+                return false;
+            }
+
+            if (!books.remove(book)) {
+                return false;
+            }
+            if (books.isEmpty()) {
+                books = null;
+                picks = 0;
+            }
+            return true;
+        }
+
+        /**
+         * Checks if a key is among the completions cached by the node.
+         *
+         * @param key the node ending the key
+         * @return true if the key is cached, false otherwise
+         */
+        boolean caches(Node key) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i] == key) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Moves a key whose popularity rose to its place in the cached completions,
+         * adding it if it now ranks among them.
+         *
+         * @param key the node ending the key
+         */
+        void promote(Node key) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i] == key) {
+                    System.arraycopy(top, i + 1, top, i, topSize - i - 1);
+                    top[--topSize] = null;
+                    break;
+                }
+            }
+
+            if (top.length <= topSize) {
+                top = Arrays.copyOf(top, Math.min(MAX_COMPLETIONS + 1, Math.max(2, topSize * 2)));
+            }
+            topSize = insert(top, topSize, key);
+            if (top.length > MAX_COMPLETIONS) {
+                top[MAX_COMPLETIONS] = null;
+            }
+        }
+
+        /**
+         * Recomputes the most popular keys below the node from its own key and the caches of its children.
+         */
+        void refreshTop() {
+            Node[] candidates = new Node[MAX_COMPLETIONS + 1];
+            int size = 0;
+            if (books != null) {
+                candidates[size++] = this;
+            }
+
+            for (int i = 0; i < childCount; i++) {
+                Node child = children[i];
+                for (int j = 0; j < child.topSize; j++) {
+                    size = insert(candidates, size, child.top[j]);
+                }
+            }
+
+            top = size == 0 ? new Node[0] : Arrays.copyOf(candidates, Math.min(size, MAX_COMPLETIONS));
+            topSize = top.length;
+        }
+
+        /**
+         * Inserts a node into a list of candidates ordered by popularity, dropping the least popular
+         * once the list holds more than MAX_COMPLETIONS.
+         *
+         * @param candidates the candidates, with room for one more than MAX_COMPLETIONS
+         * @param size       the number of candidates
+         * @param node       the node to insert
+         * @return the new number of candidates
+         */
+        private static int insert(Node[] candidates, int size, Node node) {
+            int i = size;
+            while (i > 0 && ranksBefore(node, candidates[i - 1])) {
+                i--;
+            }
+            if (i >= MAX_COMPLETIONS) {
+                return size;
+            }
+
+            int moved = Math.min(size, MAX_COMPLETIONS) - i;
+            System.arraycopy(candidates, i, candidates, i + 1, moved);
+            candidates[i] = node;
+            return Math.min(size + 1, MAX_COMPLETIONS);
+        }
+
+        /**
+         * Checks if a key ranks before another, by popularity and then by title.
+         *
+         * @param first  the node of the first key
+         * @param second the node of the second key
+         * @return true if the first key ranks before the second, false otherwise
+         */
+        private static boolean ranksBefore(Node first, Node second) {
+            int compared = Integer.compare(second.popularity(), first.popularity());
+            if (compared != 0) {
+                return compared < 0;
+            }
+
+            return first.books.first().getTitle().compareTo(second.books.first().getTitle()) < 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.lwnd.book;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index from search key trigrams to the books containing them.
+ * Substring queries of at least three characters are answered by intersecting the posting lists
+ * of the query trigrams, smallest first, and verifying only the books left in the intersection.
+ * Posting lists are sets keyed by book id in insertion order, so a book is dropped from each of
+ * its posting lists in constant time however many books share the trigram.
+ */
+class TitleTrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, BookSet> postings = new HashMap<>();
+
+    /**
+     * Adds a book to the index.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        String key = book.getSearchKey();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            postings.computeIfAbsent(gram(key, i), gram -> new BookSet()).add(book);
+        }
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        String key = book.getSearchKey();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            long gram = gram(key, i);
+            BookSet posting = postings.get(gram);
+            if (posting != null && posting.remove(book) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Checks if the index is able to answer the given query.
+     * Queries shorter than a trigram have no posting list to look up.
+     *
+     * @param query the query to check
+     * @return true if the query can be answered by the index, false otherwise
+     */
+    boolean canSearch(String query) {
+        return query.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns the books whose search keys contain the query.
+     *
+     * @param key the folded substring to search for, at least three characters long
+     * @return the books whose search keys contain the query
+     */
+    List<Book> search(String key) {
+        List<BookSet> querySets = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            BookSet posting = postings.get(gram(key, i));
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            if (!querySets.contains(posting)) {
+                querySets.add(posting);
+            }
+        }
+        querySets.sort((first, second) -> Integer.compare(first.size(), second.size()));
+
+        List<Book> result = new ArrayList<>();
+        for (Book candidate : querySets.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < querySets.size() && inAll; i++) {
+                inAll = querySets.get(i).contains(candidate);
+            }
+            if (inAll && candidate.getSearchKey().contains(key)) {
+                result.add(candidate);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Packs the three characters starting at the given offset into a single key.
+     *
+     * @param key    the folded text
+     * @param offset the offset of the first character
+     * @return the packed trigram
+     */
+    private static long gram(String key, int offset) {
+        return ((long) key.charAt(offset) << 32) | ((long) key.charAt(offset + 1) << 16) | key.charAt(offset + 2);
+    }
+}
@@ -0,0 +1,329 @@
+package dev.lwnd.book;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A BK-tree over the words of the search keys of the books, answering typo-tolerant title queries.
+ *
+ * <p>Every distinct word is a node, and the children of a node are keyed by their Levenshtein
+ * distance to it. Since the distance is a metric, a query within distance k of the words it is
+ * looking for only has to descend into the children whose key lies within k of the query's
+ * distance to the node, which prunes most of the tree for the small distances typos need.
+ *
+ * <p>A query of several words is driven by its rarest word: the tree is searched for the words
+ * close to each query word, which touches no books, and only the books of the query word with the
+ * fewest matching books are read. Every other query word is then checked against the words of those
+ * books alone, so a common word in the query costs nothing for the books that lack the rare one.
+ *
+ * <p>BK-trees cannot remove nodes, so the word of a removed book stays in the tree with no books
+ * and is skipped in results until a book with the word is added again.
+ */
+class TitleWordTree {
+    static final int MAX_DISTANCE = 2;
+
+    private Node root;
+
+    /**
+     * Adds a book to the tree under every word of its search key.
+     *
+     * @param book the book to add
+     */
+    void add(Book book) {
+        for (String word : words(book.getSearchKey())) {
+            node(word).books.add(book);
+        }
+    }
+
+    /**
+     * Removes a book from the nodes of the words of its search key.
+     *
+     * @param book the book to remove
+     */
+    void remove(Book book) {
+        for (String word : words(book.getSearchKey())) {
+            Node node = find(word);
+            if (node != null) {
+                node.books.remove(book);
+            }
+        }
+    }
+
+    /**
+     * Returns the books whose search keys contain a word close to every word of the query,
+     * ordered by the sum of the distances and then by title.
+     * Each query word may be at most maxDistance edits away from a title word; short words allow
+     * fewer edits, as one edit to a two-letter word matches nearly any other.
+     *
+     * @param key         the folded query
+     * @param maxDistance the maximum number of edits per word
+     * @return the matching books
+     */
+    List<Book> search(String key, int maxDistance) {
+        List<String> queryWords = words(key);
+        if (queryWords.isEmpty() || root == null) {
+            return new ArrayList<>();
+        }
+
+        int[] limits = new int[queryWords.size()];
+        List<WordMatch> rarest = null;
+        int rarestWord = -1;
+        int rarestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < queryWords.size(); i++) {
+            limits[i] = Math.min(maxDistance, allowedDistance(queryWords.get(i)));
+            List<WordMatch> wordMatches = searchWord(queryWords.get(i), limits[i]);
+            int count = 0;
+            for (WordMatch match : wordMatches) {
+                count += match.node.books.size();
+            }
+            if (count == 0) {
+                return new ArrayList<>();
+            }
+            if (count < rarestCount) {
+                rarest = wordMatches;
+                rarestWord = i;
+                rarestCount = count;
+            }
+        }
+
+        Map<Book, Integer> distances = new HashMap<>();
+        for (WordMatch match : rarest) {
+            for (Book book : match.node.books) {
+                distances.merge(book, match.distance, Math::min);
+            }
+        }
+
+        List<Book> result = new ArrayList<>(distances.size());
+        for (Map.Entry<Book, Integer> entry : distances.entrySet()) {
+            List<String> bookWords = words(entry.getKey().getSearchKey());
+            int total = entry.getValue();
+            for (int i = 0; i < queryWords.size() && total != -1; i++) {
+                if (i != rarestWord) {
+                    int distance = closestDistance(queryWords.get(i), bookWords, limits[i]);
+                    total = distance == -1 ? -1 : total + distance;
+                }
+            }
+            if (total != -1) {
+                entry.setValue(total);
+                result.add(entry.getKey());
+            }
+        }
+
+        BookTitleComparator titleComparator = new BookTitleComparator();
+        result.sort((book1, book2) -> {
+            int compared = Integer.compare(distances.get(book1), distances.get(book2));
+            return compared != 0 ? compared : titleComparator.compare(book1, book2);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the nodes of the words within the given distance of a query word.
+     * Only the words of the tree are compared; the books of the nodes are not touched.
+     *
+     * @param word        the query word
+     * @param maxDistance the maximum number of edits
+     * @return the matching nodes and their distances
+     */
+    private List<WordMatch> searchWord(String word, int maxDistance) {
+        List<WordMatch> matches = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(word, node.word);
+            if (distance <= maxDistance && !node.books.isEmpty()) {
+                matches.add(new WordMatch(node, distance));
+            }
+
+            int last = Math.min(distance + maxDistance, node.children.length - 1);
+            for (int childDistance = Math.max(1, distance - maxDistance); childDistance <= last; childDistance++) {
+                if (node.children[childDistance] != null) {
+                    pending.push(node.children[childDistance]);
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns the node of a word, inserting it into the tree if it is not there yet.
+     *
+     * @param word the word
+     * @return the node of the word
+     */
+    private Node node(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return root;
+        }
+
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return node;
+            }
+            if (distance >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, Math.max(distance + 1, node.children.length * 2));
+            }
+            if (node.children[distance] == null) {
+                node.children[distance] = new Node(word);
+                return node.children[distance];
+            }
+            node = node.children[distance];
+        }
+    }
+
+    /**
+     * Returns the node of a word.
+     *
+     * @param word the word
+     * @return the node of the word, or null if the word is not in the tree
+     */
+    private Node find(String word) {
+        Node node = root;
+        while (node != null) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return node;
+            }
+            node = distance < node.children.length ? node.children[distance] : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the distance from a query word to the closest of the words of a book.
+     *
+     * @param word        the query word
+     * @param bookWords   the words of the search key of the book
+     * @param maxDistance the maximum number of edits
+     * @return the smallest distance, or -1 if no word of the book is within the maximum
+     */
+    private static int closestDistance(String word, List<String> bookWords, int maxDistance) {
+        int closest = -1;
+        for (String bookWord : bookWords) {
+            if (Math.abs(bookWord.length() - word.length()) <= maxDistance) {
+                int distance = distance(word, bookWord);
+                if (distance <= maxDistance && (closest == -1 || distance < closest)) {
+                    closest = distance;
+                }
+            }
+        }
+
+        return closest;
+    }
+
+    /**
+     * Returns the number of edits a query word of this length may be away from a title word.
+     *
+     * @param word the query word
+     * @return the allowed distance
+     */
+    private static int allowedDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+
+        return word.length() <= 5 ? 1 : MAX_DISTANCE;
+    }
+
+    /**
+     * Splits a folded text into its words, the runs of letters and digits.
+     *
+     * @param key the folded text
+     * @return the words in order of appearance, repeated words only once
+     */
+    private static List<String> words(String key) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= key.length(); i++) {
+            boolean wordChar = i < key.length() && Character.isLetterOrDigit(key.charAt(i));
+            if (wordChar && start == -1) {
+                start = i;
+            } else if (!wordChar && start != -1) {
+                String word = key.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words with two rows of the edit matrix.
+     *
+     * @param first  the first word
+     * @param second the second word
+     * @return the number of insertions, deletions and substitutions turning one word into the other
+     */
+    private static int distance(String first, String second) {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            char ch = first.charAt(i - 1);
+            for (int j = 1; j <= second.length(); j++) {
+                int substitution = previous[j - 1] + (ch == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[second.length()];
+    }
+
+    /**
+     * A node of the tree found by a query word, with the distance of its word to the query word.
+     */
+    private static class WordMatch {
+        private final Node node;
+        private final int distance;
+
+        /**
+         * Constructs a WordMatch.
+         *
+         * @param node     the matching node
+         * @param distance the distance of the word of the node to the query word
+         */
+        WordMatch(Node node, int distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * A word of the tree with the books containing it.
+     */
+    private static class Node {
+        private final String word;
+        private Node[] children = new Node[4];
+        private final BookSet books = new BookSet();
+
+        /**
+         * Constructs a Node for a word with no books.
+         *
+         * @param word the word of the node
+         */
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
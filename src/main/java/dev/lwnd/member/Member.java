@@ -2,6 +2,7 @@ package dev.lwnd.member;
 
 import dev.lwnd.other.Loggable;
 import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.util.TextUtil;
 
 /**
  * Represents a member in the library system.
@@ -10,7 +11,9 @@ import dev.lwnd.other.ObjectDescription;
 @ObjectDescription(description = "Represents a member in the library system.")
 public class Member {
     private String username;
+    private String searchKey;
     private boolean hasAdminRights;
+    private MemberCollection collection;
 
     /**
      * Constructs a Member object with the specified username.
@@ -20,6 +23,7 @@ public class Member {
      */
     public Member(String username) {
         this.username = username;
+        this.searchKey = TextUtil.fold(username);
         hasAdminRights = false;
     }
 
@@ -31,6 +35,7 @@ public class Member {
      */
     public Member(String username, boolean hasAdminRights) {
         this.username = username;
+        this.searchKey = TextUtil.fold(username);
         this.hasAdminRights = hasAdminRights;
     }
 
@@ -46,15 +51,51 @@ public class Member {
     /**
      * Sets the username of the member.
      * The username must not be null or empty.
+     * A member held by a member collection is renamed through the collection, so it can be found under
+     * the new username and the listeners of the collection are told about the change.
      *
      * @param username the new username of the member
      */
     public void setUsername(String username) {
         if (username != null && !username.isEmpty()) {
-            this.username = username;
+            if (collection != null) {
+                collection.renameMember(this, username);
+            } else {
+                applyUsername(username);
+            }
         }
     }
 
+    /**
+     * Sets the username and search key of the member without telling its collection.
+     *
+     * @param username the new username of the member
+     */
+    void applyUsername(String username) {
+        this.username = username;
+        this.searchKey = TextUtil.fold(username);
+    }
+
+    /**
+     * Sets the member collection that indexes the member by username.
+     *
+     * @param collection the collection holding the member
+     */
+    void setCollection(MemberCollection collection) {
+        this.collection = collection;
+    }
+
+    /**
+     * Returns the search key of the member.
+     * The search key is the username folded to lowercase with accents stripped,
+     * and is computed once whenever the username is set.
+     *
+     * @return the search key of the member
+     */
+    public String getSearchKey() {
+        return searchKey;
+    }
+
     /**
      * Checks if the member has admin rights.
      *
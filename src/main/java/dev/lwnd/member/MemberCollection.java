@@ -3,22 +3,56 @@ package dev.lwnd.member;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import org.jline.terminal.Terminal;
 import org.jline.utils.NonBlockingReader;
 
 import dev.lwnd.Library;
 import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.other.PersistentVector;
 import dev.lwnd.util.ScreenUtil;
+import dev.lwnd.util.TextUtil;
 
 /**
  * Represents a collection of members in a library.
+ * Members are looked up by username through a hash index, which the collection keeps up to date
+ * as members are added and removed and as their usernames change. The index can optionally
+ * ignore the case of usernames. If several members share a username, lookups find the one that
+ * was added, or renamed to it, first.
+ * The members are held in a persistent vector, so every change creates a new version sharing most
+ * of its structure with the previous one, and the list of all members can be handed out as an
+ * immutable snapshot without copying.
+ * Every version of the vector is installed by compare-and-set and numbered, and the listeners are
+ * told about the changes strictly in the order of those numbers, so they see the changes in the order
+ * of the vector. Only this hand-off to the listeners is serialized.
+ * Registrations of new usernames take no lock of the collection: a username is claimed in a map of
+ * pending registrations, the member is appended to the vector, and only then published in the
+ * username index, so a member found by username is always in the list of all members as well.
+ * Adding, removing and renaming members, which may share usernames, are made one at a time while
+ * holding the lock of the collection.
+ * Lookups and the list of all members read the concurrent index and the current version of the
+ * vector without taking any lock.
  */
 @ObjectDescription(description = "Represents a collection of members in a library.")
 public class MemberCollection {
-    private final List<Member> members;
+    private final AtomicReference<Version> version = new AtomicReference<>(new Version(PersistentVector.empty(), 0));
     private final Library membersOfLibrary;
+    private final List<MemberCollectionListener> listeners = new CopyOnWriteArrayList<>();
+    private final boolean caseInsensitive;
+    private final Map<String, Member> membersByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Member> pendingRegistrations = new ConcurrentHashMap<>();
+    private final AtomicInteger shadowedMembers = new AtomicInteger();
+    private final Object handOffLock = new Object();
+    private long handedOff;
 
     /**
      * Constructs a MemberCollection object with the specified library.
@@ -26,8 +60,19 @@ public class MemberCollection {
      * @param library the library associated with the member collection
      */
     public MemberCollection(Library library) {
-        members = new ArrayList<>();
+        this(library, false);
+    }
+
+    /**
+     * Constructs a MemberCollection object with the specified library,
+     * optionally looking up usernames regardless of case.
+     *
+     * @param library         the library associated with the member collection
+     * @param caseInsensitive true to treat usernames differing only in case as the same username
+     */
+    public MemberCollection(Library library, boolean caseInsensitive) {
         this.membersOfLibrary = library;
+        this.caseInsensitive = caseInsensitive;
     }
 
     /**
@@ -37,8 +82,12 @@ public class MemberCollection {
      * @param members the initial members to be added to the collection
      */
     public MemberCollection(Library library, List<Member> members) {
-        this.members = members;
+        this.version.set(new Version(PersistentVector.of(members), 0));
         this.membersOfLibrary = library;
+        this.caseInsensitive = false;
+        for (Member member : members) {
+            index(member);
+        }
     }
 
     /**
@@ -50,13 +99,38 @@ public class MemberCollection {
         return membersOfLibrary;
     }
 
+    /**
+     * Registers a listener to be told about every change to the collection.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(MemberCollectionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(MemberCollectionListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Adds a member to the collection.
      *
      * @param member the member to be added
      */
-    public void addMember(Member member) {
-        this.members.add(member);
+    public synchronized void addMember(Member member) {
+        lockChange();
+        try {
+            Version added = change(vector -> vector.append(member));
+            index(member);
+            handOff(added, listener -> listener.memberAdded(member));
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -64,8 +138,63 @@ public class MemberCollection {
      *
      * @param members the members to be added
      */
-    public void addMembers(List<Member> members) {
-        this.members.addAll(members);
+    public synchronized void addMembers(List<Member> members) {
+        lockChange();
+        try {
+            Version added = change(vector -> vector.appendAll(members));
+            for (Member member : members) {
+                index(member);
+            }
+            handOff(added, listener -> {
+                for (Member member : members) {
+                    listener.memberAdded(member);
+                }
+            });
+        } finally {
+            unlockChange();
+        }
+    }
+
+    /**
+     * Registers a new member under its username, unless the username is already taken.
+     * The username is claimed in the map of pending registrations, so of several concurrent
+     * registrations under the same username exactly one succeeds, while registrations under
+     * different usernames proceed in parallel. The member is appended to the vector before it is
+     * published in the username index.
+     *
+     * @param member the member to be registered
+     * @return null if the member was registered, or the member already holding or being registered under its username
+     */
+    public Member registerIfAbsent(Member member) {
+        String key = key(member.getUsername());
+        lockChange();
+        try {
+            Member existing = membersByUsername.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            Member claimed = pendingRegistrations.putIfAbsent(key, member);
+            if (claimed != null) {
+                return claimed;
+            }
+
+            try {
+                existing = membersByUsername.get(key);
+                if (existing != null) {
+                    return existing;
+                }
+
+                Version added = change(vector -> vector.append(member));
+                index(member);
+                handOff(added, listener -> listener.memberAdded(member));
+                return null;
+            } finally {
+                pendingRegistrations.remove(key, member);
+            }
+        } finally {
+            unlockChange();
+        }
     }
 
     /**
@@ -74,9 +203,27 @@ public class MemberCollection {
      * @param member the member to be removed
      * @throws MemberNotFoundException if the member is not found in the collection
      */
-    public void removeMember(Member member) throws MemberNotFoundException {
-        if (!members.remove(member)) {
-            throw new MemberNotFoundException("Member not found");
+    public synchronized void removeMember(Member member) throws MemberNotFoundException {
+        lockChange();
+        try {
+            Version current;
+            Version removed;
+            int index;
+            do {
+                current = version.get();
+                index = current.members.indexOf(member);
+                if (index == -1) {
+                    throw new MemberNotFoundException("Member not found");
+                }
+                removed = current.next(current.members.removeAt(index));
+            } while (!version.compareAndSet(current, removed));
+
+            unindex(member, member.getUsername());
+            member.setCollection(null);
+            int removedIndex = index;
+            handOff(removed, listener -> listener.memberRemoved(removedIndex, member));
+        } finally {
+            unlockChange();
         }
     }
 
@@ -88,12 +235,11 @@ public class MemberCollection {
      * @throws MemberNotFoundException if the member is not found in the collection
      */
     public Member getMember(String username) throws MemberNotFoundException {
-        for (Member member : members) {
-            if (member.getUsername().equals(username)) {
-                return member;
-            }
+        Member member = membersByUsername.get(key(username));
+        if (member == null) {
+            throw new MemberNotFoundException("Member not found");
         }
-        throw new MemberNotFoundException("Member not found");
+        return member;
     }
 
     /**
@@ -103,21 +249,177 @@ public class MemberCollection {
      * @return true if a member with the specified username exists, false otherwise
      */
     public boolean hasMember(String username) {
-        for (Member member : members) {
-            if (member.getUsername().equals(username)) {
-                return true;
-            }
+        return membersByUsername.containsKey(key(username));
+    }
+
+    /**
+     * Checks if the collection looks up usernames regardless of case.
+     *
+     * @return true if usernames differing only in case are treated as the same username, false otherwise
+     */
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    /**
+     * Gives a member of the collection a new username, moves it to the username in the index
+     * and tells the listeners. Called by the member when its username is set.
+     *
+     * @param member   the member to rename
+     * @param username the new username of the member
+     */
+    synchronized void renameMember(Member member, String username) {
+        lockChange();
+        try {
+            String oldUsername = member.getUsername();
+            member.applyUsername(username);
+            unindex(member, oldUsername);
+            index(member);
+
+            Version renamed = change(vector -> vector);
+            int index = renamed.members.indexOf(member);
+            handOff(renamed, listener -> {
+                if (index != -1) {
+                    listener.memberRenamed(index, member, oldUsername);
+                }
+            });
+        } finally {
+            unlockChange();
         }
-        return false;
     }
 
     /**
-     * Returns a copy of all members in the collection.
+     * Returns all members in the collection.
+     * The list is an immutable snapshot of the collection as of the call, returned without copying;
+     * later changes to the collection, from any thread, create new versions and leave it as it is.
      *
      * @return a list of all members in the collection
      */
     public List<Member> getAllMembers() {
-        return new ArrayList<>(members);
+        return version.get().members;
+    }
+
+    /**
+     * Installs a new version of the vector by compare-and-set, retrying on concurrent changes.
+     * The caller must hand the change off to the listeners with {@link #handOff}, or the listeners
+     * of every later change wait for it.
+     *
+     * @param change the function deriving the new vector from the current one
+     * @return the installed version
+     */
+    private Version change(UnaryOperator<PersistentVector<Member>> change) {
+        Version current;
+        Version changed;
+        do {
+            current = version.get();
+            changed = current.next(change.apply(current.members));
+        } while (!version.compareAndSet(current, changed));
+        return changed;
+    }
+
+    /**
+     * Tells the listeners about a change once they have been told about every earlier version,
+     * so they see the changes in the order of the vector.
+     *
+     * @param changed      the version installed by the change
+     * @param notification the notification of a listener
+     */
+    private void handOff(Version changed, Consumer<MemberCollectionListener> notification) {
+        boolean interrupted = false;
+        synchronized (handOffLock) {
+            while (handedOff != changed.sequence - 1) {
+                try {
+                    handOffLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            try {
+                for (MemberCollectionListener listener : listeners) {
+                    notification.accept(listener);
+                }
+            } finally {
+                handedOff = changed.sequence;
+                handOffLock.notifyAll();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds a member to the username index and makes the collection follow changes to its username.
+     *
+     * @param member the member to index
+     */
+    private void index(Member member) {
+        Member existing = membersByUsername.putIfAbsent(key(member.getUsername()), member);
+        if (existing != null && existing != member) {
+            shadowedMembers.incrementAndGet();
+        }
+        member.setCollection(this);
+    }
+
+    /**
+     * Removes a member from the username index.
+     * If the member shared its username with others, the first of them in the collection takes its place,
+     * which takes a scan of the collection; otherwise removal is a single hash lookup.
+     * A member registered under the username in the meantime keeps it, and the others stay shadowed.
+     *
+     * @param member   the member to remove from the index
+     * @param username the username the member is indexed under
+     */
+    private void unindex(Member member, String username) {
+        String key = key(username);
+        Member indexed = membersByUsername.get(key);
+        if (indexed != member) {
+            if (indexed != null) {
+                shadowedMembers.decrementAndGet();
+            }
+            return;
+        }
+
+        membersByUsername.remove(key, member);
+        if (shadowedMembers.get() > 0) {
+            for (Member other : version.get().members) {
+                if (other != member && key(other.getUsername()).equals(key)) {
+                    if (membersByUsername.putIfAbsent(key, other) == null) {
+                        shadowedMembers.decrementAndGet();
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Acquires the read lock of the change lock of the library, if the collection belongs to one.
+     */
+    private void lockChange() {
+        if (membersOfLibrary != null) {
+            membersOfLibrary.getChangeLock().readLock().lock();
+        }
+    }
+
+    /**
+     * Releases the read lock acquired by lockChange.
+     */
+    private void unlockChange() {
+        if (membersOfLibrary != null) {
+            membersOfLibrary.getChangeLock().readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the key a username is indexed under.
+     *
+     * @param username the username
+     * @return the username, lowercased if the collection is case-insensitive
+     */
+    private String key(String username) {
+        return caseInsensitive ? username.toLowerCase(Locale.ROOT) : username;
     }
 
     /**
@@ -142,8 +444,9 @@ public class MemberCollection {
             System.out.println("3. Select member from list using index or type -1 to go back");
             System.out.println("___________________________________________________________");
 
+            String query = TextUtil.fold(input.toString());
             for (Member member : members) {
-                if (member.getUsername().toLowerCase().contains(input.toString().toLowerCase())) {
+                if (member.getSearchKey().contains(query)) {
                     filteredMembers.add(member);
                 }
             }
@@ -215,4 +518,33 @@ public class MemberCollection {
         }
         return filteredMembers;
     }
+
+    /**
+     * A version of the vector of members with its place in the order of changes.
+     */
+    private static class Version {
+        private final PersistentVector<Member> members;
+        private final long sequence;
+
+        /**
+         * Constructs a Version.
+         *
+         * @param members  the members of the version
+         * @param sequence the number of changes made before the version, counting itself
+         */
+        Version(PersistentVector<Member> members, long sequence) {
+            this.members = members;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Returns the version following this one with the given members.
+         *
+         * @param members the members of the next version
+         * @return the next version
+         */
+        Version next(PersistentVector<Member> members) {
+            return new Version(members, sequence + 1);
+        }
+    }
 }
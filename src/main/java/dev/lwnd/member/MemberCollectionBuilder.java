@@ -1,6 +1,5 @@
 package dev.lwnd.member;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import dev.lwnd.Library;
@@ -9,9 +8,9 @@ import dev.lwnd.Library;
  * The MemberCollectionBuilder class is responsible for building a MemberCollection object.
  * It provides methods to add individual members or a list of members to the collection,
  * and a build method to finalize the construction of the MemberCollection.
+ * Members are passed on to the collection as they are added, without being gathered by the builder.
  */
 public class MemberCollectionBuilder {
-    private final List<Member> members;
     private final MemberCollection memberCollection;
 
     /**
@@ -20,8 +19,18 @@ public class MemberCollectionBuilder {
      * @param library the Library object to associate with the MemberCollection
      */
     public MemberCollectionBuilder(Library library) {
-        this.members = new ArrayList<>();
-        memberCollection = new MemberCollection(library);
+        this(library, false);
+    }
+
+    /**
+     * Constructs a new MemberCollectionBuilder object with the specified Library object,
+     * building a MemberCollection that optionally looks up usernames regardless of case.
+     *
+     * @param library         the Library object to associate with the MemberCollection
+     * @param caseInsensitive true to treat usernames differing only in case as the same username
+     */
+    public MemberCollectionBuilder(Library library, boolean caseInsensitive) {
+        memberCollection = new MemberCollection(library, caseInsensitive);
     }
 
     /**
@@ -31,7 +40,7 @@ public class MemberCollectionBuilder {
      * @return the MemberCollectionBuilder object for method chaining
      */
     public MemberCollectionBuilder addMember(Member member) {
-        this.members.add(member);
+        memberCollection.addMember(member);
         return this;
     }
 
@@ -42,18 +51,16 @@ public class MemberCollectionBuilder {
      * @return the MemberCollectionBuilder object for method chaining
      */
     public MemberCollectionBuilder addMembers(List<Member> members) {
-        this.members.addAll(members);
+        memberCollection.addMembers(members);
         return this;
     }
 
     /**
      * Builds and returns the final MemberCollection object.
-     * The added members are added to the MemberCollection.
      *
      * @return the built MemberCollection object
      */
     public MemberCollection build() {
-        memberCollection.addMembers(this.members);
         return memberCollection;
     }
 }
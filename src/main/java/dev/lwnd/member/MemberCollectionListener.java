@@ -0,0 +1,31 @@
+package dev.lwnd.member;
+
+/**
+ * Interface for receiving the changes made to a member collection.
+ * Listeners are called in the order the changes are applied and must return quickly.
+ */
+public interface MemberCollectionListener {
+    /**
+     * Called after a member was added to the end of the collection.
+     *
+     * @param member the added member
+     */
+    void memberAdded(Member member);
+
+    /**
+     * Called after a member was removed from the collection.
+     *
+     * @param index  the index the member had before it was removed
+     * @param member the removed member
+     */
+    void memberRemoved(int index, Member member);
+
+    /**
+     * Called after a member of the collection was given a new username.
+     *
+     * @param index       the index of the member
+     * @param member      the renamed member, already holding its new username
+     * @param oldUsername the username the member had before
+     */
+    void memberRenamed(int index, Member member, String oldUsername);
+}
@@ -106,5 +106,6 @@ public class AddBookMenu extends LocalMenu {
         Date publicationDate = calendar.getTime();
 
         bookCollection.addBook(new Book(title, author, publicationDate));
+        bookCollection.getOwningLibrary().commit();
     }
 }
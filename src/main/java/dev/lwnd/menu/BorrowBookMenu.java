@@ -41,7 +41,7 @@ public class BorrowBookMenu extends LocalMenu {
      */
     @MenuEntry
     void run() {
-        Book book = BookCollection.searchBookMenu(terminal, bookCollection.getAllBooks());
+        Book book = bookCollection.searchBookMenu(terminal);
         if (book == null) {
             return;
         }
@@ -52,5 +52,6 @@ public class BorrowBookMenu extends LocalMenu {
         }
 
         borrowerCatalogue.addBookToBorrower(member, book);
+        library.commit();
     }
 }
@@ -1,8 +1,12 @@
 package dev.lwnd.menu;
 
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -10,6 +14,7 @@ import org.jline.terminal.Terminal;
 
 import dev.lwnd.book.Book;
 import dev.lwnd.book.BookCollection;
+import dev.lwnd.book.BookSortOrder;
 import dev.lwnd.other.MenuEntry;
 import dev.lwnd.other.Runner;
 import dev.lwnd.util.ScreenUtil;
@@ -18,16 +23,25 @@ import dev.lwnd.util.ScreenUtil;
  * This class represents a menu for listing books in a library.
  * It extends the LocalMenu class and provides functionality to display a list of books,
  * sort the books by different criteria, and view detailed information about a selected book.
+ * The books are listed one page at a time, sized to the height of the terminal, and only the
+ * books of the visible page are fetched from the collection and formatted.
  */
 public class ListBooksMenu extends LocalMenu {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int RESERVED_LINES = 4;
+
     private final Map<String, Runner> menuFuncs = new LinkedHashMap<>();
     private final BookCollection bookCollection;
     private Book pickedBook;
-    private List<Book> books;
+    private BookSortOrder order;
+    private Locale collationLocale;
+    private List<Book> filteredBooks;
+    private int page;
 
     /**
      * Constructs a ListBooksMenu object with the specified terminal and book collection.
-     * It initializes the list of books and runs the menu.
+     * It lists the books in the order of the collection and runs the menu.
      *
      * @param terminal       the terminal used for input/output
      * @param bookCollection the collection of books
@@ -36,14 +50,14 @@ public class ListBooksMenu extends LocalMenu {
         super(terminal);
 
         this.bookCollection = bookCollection;
-        books = bookCollection.getAllBooks();
 
         runMenu();
     }
 
     /**
      * Runs the menu for listing books.
-     * It displays the list of books, provides options to sort the books, and view detailed information about a selected book.
+     * It displays the current page of books, provides options to sort the books, move between pages,
+     * and view detailed information about a selected book.
      */
     @MenuEntry
     void runMenu() {
@@ -52,7 +66,9 @@ public class ListBooksMenu extends LocalMenu {
 
             menuFuncs.clear();
             menuFuncs.put("Show book info", () -> {
-                pickedBook = BookCollection.searchBookMenu(terminal, books);
+                pickedBook = filteredBooks != null
+                        ? BookCollection.searchBookMenu(terminal, filteredBooks)
+                        : bookCollection.searchBookMenu(terminal);
 
                 ScreenUtil.clearScreen();
 
@@ -65,16 +81,51 @@ public class ListBooksMenu extends LocalMenu {
                 System.out.println("Press enter to continue");
                 new Scanner(System.in).nextLine();
             });
-            menuFuncs.put("Sort by Title", () -> books = BookCollection.sortByTitle(bookCollection.getAllBooks()));
-            menuFuncs.put("Sort by Author", () -> books = BookCollection.sortByAuthor(bookCollection.getAllBooks()));
-            menuFuncs.put("Sort by Publication Date", () -> books = BookCollection.sortByPublicationDate(bookCollection.getAllBooks()));
-
-            for (Book book : books) {
-                System.out.println(book.getTitle() +
-                                   " by " + book.getAuthor() +
-                                   " published on " + new SimpleDateFormat("yyyy.MM.dd").format(book.getPublicationDate()));
+            menuFuncs.put("Next page", () -> page++);
+            menuFuncs.put("Previous page", () -> page--);
+            menuFuncs.put("Jump to page", () -> {
+                System.out.println("Enter page number:");
+                try {
+                    page = Integer.parseInt(new Scanner(System.in).nextLine()) - 1;
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid input");
+                }
+            });
+            menuFuncs.put("Sort by Title", () -> listSorted(BookSortOrder.TITLE));
+            menuFuncs.put("Sort by Author", () -> listSorted(BookSortOrder.AUTHOR));
+            menuFuncs.put("Sort by Publication Date", () -> listSorted(BookSortOrder.PUBLICATION_DATE));
+            menuFuncs.put(collationLocale == null ? "Use locale-aware sorting" : "Use plain sorting", () -> {
+                collationLocale = collationLocale == null ? Locale.getDefault() : null;
+                page = 0;
+            });
+            menuFuncs.put("Filter by Publication Year", () -> {
+                System.out.println("Enter publication year:");
+                try {
+                    listFiltered(bookCollection.getBooksPublishedIn(Integer.parseInt(new Scanner(System.in).nextLine())));
+                } catch (NumberFormatException | DateTimeException e) {
+                    System.out.println("Invalid input");
+                }
+            });
+            menuFuncs.put("Filter by Publication Date Range", () -> {
+                LocalDate from = readDate("Enter first publication date (yyyy.MM.dd):");
+                if (from == null) {
+                    return;
+                }
+                LocalDate to = readDate("Enter last publication date (yyyy.MM.dd):");
+                if (to == null) {
+                    return;
+                }
+                listFiltered(bookCollection.getBooksPublishedBetween(from, to));
+            });
+            if (filteredBooks != null) {
+                menuFuncs.put("Clear filter", () -> {
+                    filteredBooks = null;
+                    page = 0;
+                });
             }
 
+            printPage(pageSize());
+
             int i = 1;
             for (String menuName : menuFuncs.keySet()) {
                 System.out.println(i + ". " + menuName);
@@ -107,4 +158,92 @@ public class ListBooksMenu extends LocalMenu {
             }
         }
     }
+
+    /**
+     * Prints the current page of books, moving to the first or last page if the current page
+     * is out of range.
+     *
+     * @param pageSize the number of books per page
+     */
+    private void printPage(int pageSize) {
+        int bookCount = filteredBooks != null ? filteredBooks.size() : bookCollection.size();
+        int pageCount = Math.max(1, (bookCount + pageSize - 1) / pageSize);
+        page = Math.max(0, Math.min(page, pageCount - 1));
+
+        int from = page * pageSize;
+        List<Book> pageBooks;
+        if (order != null && (filteredBooks != null || collationLocale != null)) {
+            Comparator<Book> comparator = collationLocale == null ? order.comparator() : order.comparator(collationLocale);
+            pageBooks = filteredBooks != null
+                    ? BookCollection.sorted(filteredBooks, comparator, from, pageSize)
+                    : bookCollection.sorted(comparator, from, pageSize);
+        } else if (filteredBooks != null) {
+            pageBooks = filteredBooks.subList(from, Math.min(from + pageSize, bookCount));
+        } else if (order != null) {
+            pageBooks = bookCollection.getBooks(order, from, pageSize);
+        } else {
+            pageBooks = bookCollection.getBooks(from, pageSize);
+        }
+
+        for (Book book : pageBooks) {
+            System.out.println(book.getTitle() +
+                               " by " + book.getAuthor() +
+                               " published on " + DATE_FORMAT.format(LocalDate.ofEpochDay(book.getPublicationEpochDay())));
+        }
+        System.out.println("Page " + (page + 1) + " of " + pageCount + " (" + bookCount + " books)");
+    }
+
+    /**
+     * Returns the number of books that fit on the terminal along with the menu entries.
+     *
+     * @return the number of books per page
+     */
+    private int pageSize() {
+        int height = terminal == null ? 0 : terminal.getHeight();
+        if (height <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        return Math.max(1, height - menuFuncs.size() - RESERVED_LINES);
+    }
+
+    /**
+     * Lists the books in the specified order, starting at the first page.
+     * The books of a filter stay filtered and only the requested page of them is sorted;
+     * all the books of the collection come in the orders the collection maintains,
+     * unless locale-aware sorting is on, which also selects only the requested page.
+     *
+     * @param sortOrder the order of the books
+     */
+    private void listSorted(BookSortOrder sortOrder) {
+        order = sortOrder;
+        page = 0;
+    }
+
+    /**
+     * Lists the books of a filter, starting at the first page.
+     *
+     * @param books the books matching the filter
+     */
+    private void listFiltered(List<Book> books) {
+        filteredBooks = books;
+        order = null;
+        page = 0;
+    }
+
+    /**
+     * Prompts the user for a date in the yyyy.MM.dd format.
+     *
+     * @param prompt the prompt to display
+     * @return the entered date, or null if the input is not a valid date
+     */
+    private LocalDate readDate(String prompt) {
+        System.out.println(prompt);
+        try {
+            return LocalDate.parse(new Scanner(System.in).nextLine(), DATE_FORMAT);
+        } catch (DateTimeException e) {
+            System.out.println("Invalid input");
+            return null;
+        }
+    }
 }
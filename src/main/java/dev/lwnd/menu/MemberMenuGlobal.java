@@ -93,13 +93,14 @@ public class MemberMenuGlobal {
         while (user == null) {
             System.out.println("Enter username:");
             String username = new Scanner(System.in).nextLine();
-            try {
-                library.getMemberCollection().getMember(username);
+            Member candidate = new Member(username);
+            if (library.getMemberCollection().registerIfAbsent(candidate) != null) {
                 System.out.println("Username already exists");
-            } catch (Exception e) {
-                user = new Member(username);
+            } else {
+                user = candidate;
             }
         }
+        library.commit();
         return user;
     }
 
@@ -37,7 +37,7 @@ public class RemoveBookMenu extends LocalMenu {
      */
     @MenuEntry
     void runMenu() {
-        Book book = BookCollection.searchBookMenu(terminal, bookCollection.getAllBooks());
+        Book book = bookCollection.searchBookMenu(terminal);
 
         if (book == null) {
             return;
@@ -45,6 +45,7 @@ public class RemoveBookMenu extends LocalMenu {
 
         try {
             bookCollection.removeBook(book);
+            bookCollection.getOwningLibrary().commit();
             ScreenUtil.clearScreen();
             System.out.println("Book removed successfully!");
             System.out.println("Press enter to continue");
@@ -11,6 +11,7 @@ import dev.lwnd.book.Book;
 import dev.lwnd.book.BookCollection;
 import dev.lwnd.book.BookNotFoundException;
 import dev.lwnd.other.MenuEntry;
+import dev.lwnd.util.DateUtil;
 import dev.lwnd.util.ScreenUtil;
 
 /**
@@ -44,7 +45,7 @@ public class UpdateBookMenu extends LocalMenu {
         System.out.println("Select book to modify. Press enter to continue...");
         new Scanner(System.in).nextLine();
 
-        Book book = BookCollection.searchBookMenu(terminal, bookCollection.getAllBooks());
+        Book book = bookCollection.searchBookMenu(terminal);
         if (book == null) {
             return;
         }
@@ -152,7 +153,8 @@ public class UpdateBookMenu extends LocalMenu {
         }
 
         try {
-            bookCollection.updateBook(book, new Book(newTitle, newAuthor, newPublicationDate));
+            bookCollection.updateBook(book, new Book(book.getId(), newTitle, newAuthor, DateUtil.toEpochDay(newPublicationDate)));
+            bookCollection.getOwningLibrary().commit();
         } catch (BookNotFoundException e) {
             System.out.println("Book not found");
         }
@@ -0,0 +1,198 @@
+package dev.lwnd.other;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list that is changed by creating new versions sharing most of their structure with the old one.
+ *
+ * <p>The elements are stored in a tree of 32-element arrays, with the last up to 32 elements held
+ * in a separate tail array. Appending copies only the tail, or, once the tail is full, the arrays
+ * on the path from the root to where the tail is pushed into the tree, so every version stays
+ * valid and can be handed out without copying. Looking up an element walks at most
+ * log32(n) arrays, which is no more than seven for any list that fits in an int.
+ *
+ * @param <T> the type of the elements
+ */
+public class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    /**
+     * Constructs a PersistentVector from its parts.
+     *
+     * @param count the number of elements
+     * @param shift the number of bits of an index consumed above the leaves
+     * @param root  the root of the tree
+     * @param tail  the elements after the tree
+     */
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @param <T> the type of the elements
+     * @return the empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    /**
+     * Returns a vector holding the elements of a collection, in its iteration order.
+     *
+     * @param elements the elements
+     * @param <T>      the type of the elements
+     * @return the vector
+     */
+    public static <T> PersistentVector<T> of(Collection<? extends T> elements) {
+        return PersistentVector.<T>empty().appendAll(elements);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (index >= tailOffset()) {
+            return (T) tail[index & MASK];
+        }
+
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (T) node[index & MASK];
+    }
+
+    /**
+     * Returns a new version of the vector with an element appended. The vector itself does not change.
+     *
+     * @param element the element to append
+     * @return the new version
+     */
+    public PersistentVector<T> append(T element) {
+        if (count - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(count + 1, shift, root, newTail);
+        }
+
+        Object[] newRoot;
+        int newShift = shift;
+        if ((count >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(count + 1, newShift, newRoot, new Object[] {element});
+    }
+
+    /**
+     * Returns a new version of the vector with the elements of a collection appended. The vector itself does not change.
+     *
+     * @param elements the elements to append
+     * @return the new version
+     */
+    public PersistentVector<T> appendAll(Collection<? extends T> elements) {
+        PersistentVector<T> vector = this;
+        for (T element : elements) {
+            vector = vector.append(element);
+        }
+        return vector;
+    }
+
+    /**
+     * Returns a new version of the vector without the element at an index, with the later elements
+     * moved down. This rebuilds the vector and takes time linear in its size.
+     * The vector itself does not change.
+     *
+     * @param index the index of the element to remove
+     * @return the new version
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size())
+     */
+    public PersistentVector<T> removeAt(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        PersistentVector<T> vector = empty();
+        for (int i = 0; i < count; i++) {
+            if (i != index) {
+                vector = vector.append(get(i));
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the index of the first element in the tail.
+     *
+     * @return the number of elements in the tree
+     */
+    private int tailOffset() {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Copies the path to the last leaf of a subtree and puts a full tail in as that leaf.
+     *
+     * @param level  the level of the subtree
+     * @param parent the root of the subtree
+     * @param leaf   the full tail
+     * @return the root of the new subtree
+     */
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        Object[] copy = parent.clone();
+        int child = ((count - 1) >>> level) & MASK;
+        if (level == BITS) {
+            copy[child] = leaf;
+        } else {
+            Object[] existing = (Object[]) parent[child];
+            copy[child] = existing != null ? pushTail(level - BITS, existing, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    /**
+     * Wraps a leaf in single-child arrays down from the specified level.
+     *
+     * @param level the level of the top array
+     * @param leaf  the leaf
+     * @return the top array, or the leaf itself at level zero
+     */
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+}
@@ -0,0 +1,498 @@
+package dev.lwnd.persistence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookCollectionBuilder;
+import dev.lwnd.member.Member;
+import dev.lwnd.member.MemberCollectionBuilder;
+
+/**
+ * The CatalogueImporter class loads books and members from CSV files.
+ * The file is memory-mapped one window at a time and parsed straight from the mapped bytes;
+ * only the text fields a record needs become Strings. Records are handed to the builder in batches,
+ * so memory use is bounded by the window and batch sizes rather than by the size of the file.
+ *
+ * <p>Book files hold one {@code title,author,date} record per line, where the date is written as
+ * year, month and day separated by any single character, such as {@code 1937-09-21}.
+ * Member files hold one {@code username,admin} record per line, where admin is {@code true} or
+ * {@code false}. Fields may be enclosed in double quotes, with {@code ""} standing for a quote.
+ * Empty lines are skipped.
+ */
+public class CatalogueImporter {
+    /**
+     * The default number of records handed to a builder at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 65_536;
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final int batchSize;
+    private final boolean skipHeader;
+    private final long windowSize;
+
+    /**
+     * Constructs a CatalogueImporter for files without a header line.
+     */
+    public CatalogueImporter() {
+        this(DEFAULT_BATCH_SIZE, false);
+    }
+
+    /**
+     * Constructs a CatalogueImporter with the specified batch size.
+     *
+     * @param batchSize  the number of records handed to a builder at a time
+     * @param skipHeader true if the first record of each file is a header to be skipped
+     * @throws IllegalArgumentException if the batch size is not positive
+     */
+    public CatalogueImporter(int batchSize, boolean skipHeader) throws IllegalArgumentException {
+        this(batchSize, skipHeader, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a CatalogueImporter that maps files in windows of the specified size.
+     *
+     * @param batchSize  the number of records handed to a builder at a time
+     * @param skipHeader true if the first record of each file is a header to be skipped
+     * @param windowSize the number of bytes mapped at a time, which must exceed the longest record
+     * @throws IllegalArgumentException if the batch size or the window size is not positive
+     */
+    CatalogueImporter(int batchSize, boolean skipHeader, long windowSize) throws IllegalArgumentException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+
+        this.batchSize = batchSize;
+        this.skipHeader = skipHeader;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Imports the books of a CSV file into the builder.
+     *
+     * @param file     the CSV file to import
+     * @param builder  the builder to add the books to
+     * @param listener the listener receiving progress after every batch, or null
+     * @return the number of books imported
+     * @throws IOException if the file cannot be read or holds a malformed record
+     */
+    public long importBooks(Path file, BookCollectionBuilder builder, ImportProgressListener listener) throws IOException {
+        return importRecords(file, listener, new RecordParser<Book>() {
+            @Override
+            public Book parse(FieldReader reader) {
+                String title = reader.readString();
+                String author = reader.readString();
+                long epochDay = reader.readEpochDay();
+                return new Book(title, author, epochDay);
+            }
+
+            @Override
+            public void flush(List<Book> batch) {
+                builder.addBooks(batch);
+            }
+        });
+    }
+
+    /**
+     * Imports the members of a CSV file into the builder.
+     *
+     * @param file     the CSV file to import
+     * @param builder  the builder to add the members to
+     * @param listener the listener receiving progress after every batch, or null
+     * @return the number of members imported
+     * @throws IOException if the file cannot be read or holds a malformed record
+     */
+    public long importMembers(Path file, MemberCollectionBuilder builder, ImportProgressListener listener) throws IOException {
+        return importRecords(file, listener, new RecordParser<Member>() {
+            @Override
+            public Member parse(FieldReader reader) {
+                String username = reader.readString();
+                boolean hasAdminRights = reader.readBoolean();
+                return new Member(username, hasAdminRights);
+            }
+
+            @Override
+            public void flush(List<Member> batch) {
+                builder.addMembers(batch);
+            }
+        });
+    }
+
+    /**
+     * Maps the file window by window and parses every record in it.
+     * A record, empty line or header cut off by the end of a window is read again from the start of the next window.
+     *
+     * @param file     the file to import
+     * @param listener the listener receiving progress, or null
+     * @param parser   the parser turning records into objects and passing batches on
+     * @param <T>      the type of the imported objects
+     * @return the number of records imported
+     * @throws IOException if the file cannot be read or holds a malformed record
+     */
+    private <T> long importRecords(Path file, ImportProgressListener listener, RecordParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long totalBytes = channel.size();
+            long windowStart = 0;
+            long records = 0;
+            boolean headerPending = skipHeader;
+            List<T> batch = new ArrayList<>(batchSize);
+            FieldReader reader = new FieldReader();
+
+            while (windowStart < totalBytes) {
+                long windowLength = Math.min(windowSize, totalBytes - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                reader.reset(window, (int) windowLength, windowStart + windowLength == totalBytes);
+
+                while (!reader.atEnd()) {
+                    int recordStart = reader.position;
+                    T record;
+                    try {
+                        if (reader.skipEmptyLine()) {
+                            continue;
+                        }
+                        if (headerPending) {
+                            reader.skipRecord();
+                            headerPending = false;
+                            continue;
+                        }
+
+                        record = parser.parse(reader);
+                        reader.endRecord();
+                    } catch (IncompleteRecordException e) {
+                        if (recordStart == 0) {
+                            throw new IOException("Record at byte " + windowStart + " is larger than the mapping window");
+                        }
+                        reader.position = recordStart;
+                        break;
+                    } catch (MalformedRecordException e) {
+                        throw new IOException("Malformed record at byte " + (windowStart + recordStart) + ": " + e.getMessage());
+                    }
+
+                    batch.add(record);
+                    records++;
+                    if (batch.size() >= batchSize) {
+                        parser.flush(batch);
+                        batch = new ArrayList<>(batchSize);
+                        reportProgress(listener, windowStart + reader.position, totalBytes, records);
+                    }
+                }
+
+                windowStart += reader.position;
+            }
+
+            if (!batch.isEmpty()) {
+                parser.flush(batch);
+            }
+            reportProgress(listener, totalBytes, totalBytes, records);
+            return records;
+        }
+    }
+
+    /**
+     * Reports progress to the listener, if there is one.
+     *
+     * @param listener   the listener, or null
+     * @param bytesRead  the number of bytes read so far
+     * @param totalBytes the size of the input
+     * @param records    the number of records imported so far
+     */
+    private static void reportProgress(ImportProgressListener listener, long bytesRead, long totalBytes, long records) {
+        if (listener != null) {
+            listener.progress(bytesRead, totalBytes, records);
+        }
+    }
+
+    /**
+     * Turns records into objects and passes full batches on to a builder.
+     *
+     * @param <T> the type of the parsed objects
+     */
+    private interface RecordParser<T> {
+        /**
+         * Parses the fields of one record.
+         *
+         * @param reader the reader positioned at the start of the record
+         * @return the parsed object
+         */
+        T parse(FieldReader reader);
+
+        /**
+         * Passes a batch of parsed objects on to the builder.
+         *
+         * @param batch the batch of objects
+         */
+        void flush(List<T> batch);
+    }
+
+    /**
+     * Thrown when a record runs past the end of the current window.
+     */
+    private static class IncompleteRecordException extends RuntimeException {
+        IncompleteRecordException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Thrown when a record does not hold the expected fields.
+     */
+    private static class MalformedRecordException extends RuntimeException {
+        MalformedRecordException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Reads the fields of CSV records from a mapped window.
+     * Field bytes are unquoted into a reusable buffer, so no per-line Strings are created.
+     */
+    private static class FieldReader {
+        private MappedByteBuffer window;
+        private int limit;
+        private boolean lastWindow;
+        private int position;
+        private boolean recordEnded;
+
+        private byte[] field = new byte[256];
+        private int fieldLength;
+
+        /**
+         * Points the reader at a new window.
+         *
+         * @param window     the mapped window
+         * @param limit      the number of bytes in the window
+         * @param lastWindow true if the window ends at the end of the file
+         */
+        void reset(MappedByteBuffer window, int limit, boolean lastWindow) {
+            this.window = window;
+            this.limit = limit;
+            this.lastWindow = lastWindow;
+            this.position = 0;
+        }
+
+        /**
+         * Checks if every byte of the window has been read.
+         *
+         * @return true if the window is exhausted, false otherwise
+         */
+        boolean atEnd() {
+            return position >= limit;
+        }
+
+        /**
+         * Skips a line break at the current position.
+         *
+         * @return true if an empty line was skipped, false otherwise
+         */
+        boolean skipEmptyLine() {
+            byte b = window.get(position);
+            if (b == '\n') {
+                position++;
+                return true;
+            }
+            if (b == '\r') {
+                if (position + 1 >= limit && !lastWindow) {
+                    throw new IncompleteRecordException();
+                }
+                position++;
+                if (position < limit && window.get(position) == '\n') {
+                    position++;
+                }
+                return true;
+            }
+            recordEnded = false;
+            return false;
+        }
+
+        /**
+         * Skips the rest of the current line.
+         */
+        void skipRecord() {
+            while (position < limit && window.get(position) != '\n') {
+                position++;
+            }
+            if (position < limit) {
+                position++;
+            } else if (!lastWindow) {
+                throw new IncompleteRecordException();
+            }
+        }
+
+        /**
+         * Checks that the current record holds no more fields.
+         */
+        void endRecord() {
+            if (!recordEnded) {
+                throw new MalformedRecordException("too many fields");
+            }
+        }
+
+        /**
+         * Reads the next field as a String.
+         *
+         * @return the value of the field
+         */
+        String readString() {
+            readField();
+            return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads the next field as a boolean.
+         *
+         * @return the value of the field
+         */
+        boolean readBoolean() {
+            readField();
+            if (matches("true")) {
+                return true;
+            }
+            if (matches("false")) {
+                return false;
+            }
+            throw new MalformedRecordException("expected true or false");
+        }
+
+        /**
+         * Reads the next field as a date made of year, month and day, and returns its epoch day.
+         *
+         * @return the epoch day of the date
+         */
+        long readEpochDay() {
+            readField();
+
+            int[] parts = new int[3];
+            int part = 0;
+            int digits = 0;
+            for (int i = 0; i < fieldLength; i++) {
+                byte b = field[i];
+                if (b >= '0' && b <= '9') {
+                    parts[part] = parts[part] * 10 + (b - '0');
+                    digits++;
+                } else if (digits > 0 && part < 2) {
+                    part++;
+                    digits = 0;
+                } else {
+                    throw new MalformedRecordException("invalid date");
+                }
+            }
+            if (part != 2 || digits == 0) {
+                throw new MalformedRecordException("invalid date");
+            }
+
+            try {
+                return LocalDate.of(parts[0], parts[1], parts[2]).toEpochDay();
+            } catch (DateTimeException e) {
+                throw new MalformedRecordException("invalid date");
+            }
+        }
+
+        /**
+         * Checks if the last field read equals the given ASCII text, ignoring case.
+         *
+         * @param text the text to compare with
+         * @return true if the field equals the text, false otherwise
+         */
+        private boolean matches(String text) {
+            if (fieldLength != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < fieldLength; i++) {
+                if (Character.toLowerCase(field[i]) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads the next field of the current record into the field buffer.
+         */
+        private void readField() {
+            if (recordEnded) {
+                throw new MalformedRecordException("too few fields");
+            }
+
+            fieldLength = 0;
+            if (position < limit && window.get(position) == '"') {
+                position++;
+                while (true) {
+                    if (position >= limit) {
+                        throw lastWindow ? new MalformedRecordException("unterminated quote") : new IncompleteRecordException();
+                    }
+                    byte b = window.get(position++);
+                    if (b == '"') {
+                        if (position >= limit && !lastWindow) {
+                            throw new IncompleteRecordException();
+                        }
+                        if (position < limit && window.get(position) == '"') {
+                            append(b);
+                            position++;
+                            continue;
+                        }
+                        break;
+                    }
+                    append(b);
+                }
+            } else {
+                while (position < limit) {
+                    byte b = window.get(position);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    append(b);
+                    position++;
+                }
+            }
+
+            if (position >= limit) {
+                if (!lastWindow) {
+                    throw new IncompleteRecordException();
+                }
+                recordEnded = true;
+                return;
+            }
+
+            byte delimiter = window.get(position++);
+            if (delimiter == ',') {
+                return;
+            }
+            if (delimiter == '\r') {
+                if (position >= limit && !lastWindow) {
+                    throw new IncompleteRecordException();
+                }
+                if (position < limit && window.get(position) == '\n') {
+                    position++;
+                }
+            } else if (delimiter != '\n') {
+                throw new MalformedRecordException("unexpected character after quoted field");
+            }
+            recordEnded = true;
+        }
+
+        /**
+         * Appends a byte to the field buffer.
+         *
+         * @param b the byte to append
+         */
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = b;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package dev.lwnd.persistence;
+
+import java.util.BitSet;
+
+import dev.lwnd.BorrowerCatalogueListener;
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookCollectionListener;
+import dev.lwnd.member.Member;
+import dev.lwnd.member.MemberCollectionListener;
+
+/**
+ * Tracks which segments of the book and member collections and whether the borrower catalogue
+ * changed since the last checkpoint.
+ * A segment is a fixed-size range of book slots or member indexes. Removing a book only empties
+ * its slot, so it dirties one segment, until a compaction of the collection moves every book.
+ * Removing a member shifts every later member down, so it dirties the segments from the removed
+ * index to the end of the collection, and the borrowers too, since they refer to members by index.
+ */
+class DirtyTracker implements BookCollectionListener, MemberCollectionListener, BorrowerCatalogueListener {
+    private final int segmentSize;
+    private int bookSlotCount;
+    private int bookCount;
+    private int memberCount;
+    private BitSet dirtyBookSegments = new BitSet();
+    private BitSet dirtyMemberSegments = new BitSet();
+    private boolean borrowersDirty;
+
+    /**
+     * Constructs a DirtyTracker for collections of the given sizes, with nothing dirty.
+     *
+     * @param segmentSize   the number of elements per segment
+     * @param bookSlotCount the number of slots of the book collection
+     * @param bookCount     the number of books in the book collection
+     * @param memberCount   the number of members in the member collection
+     */
+    DirtyTracker(int segmentSize, int bookSlotCount, int bookCount, int memberCount) {
+        this.segmentSize = segmentSize;
+        this.bookSlotCount = bookSlotCount;
+        this.bookCount = bookCount;
+        this.memberCount = memberCount;
+    }
+
+    /**
+     * Marks every segment and the borrowers dirty.
+     */
+    synchronized void markAll() {
+        dirtyBookSegments.set(0, segmentCount(bookSlotCount));
+        dirtyMemberSegments.set(0, segmentCount(memberCount));
+        borrowersDirty = true;
+    }
+
+    /**
+     * Returns what changed since the last call and starts tracking afresh.
+     *
+     * @return the dirty segments
+     */
+    synchronized Changes takeChanges() {
+        Changes changes = new Changes(dirtyBookSegments, dirtyMemberSegments, borrowersDirty);
+        dirtyBookSegments = new BitSet();
+        dirtyMemberSegments = new BitSet();
+        borrowersDirty = false;
+        return changes;
+    }
+
+    /**
+     * Marks the changes taken by takeChanges dirty again, after they failed to be written.
+     *
+     * @param changes the changes to restore
+     */
+    synchronized void restoreChanges(Changes changes) {
+        dirtyBookSegments.or(changes.bookSegments);
+        dirtyMemberSegments.or(changes.memberSegments);
+        borrowersDirty |= changes.borrowers;
+    }
+
+    @Override
+    public synchronized void bookAdded(Book book) {
+        dirtyBookSegments.set(bookSlotCount / segmentSize);
+        bookSlotCount++;
+        bookCount++;
+    }
+
+    @Override
+    public synchronized void bookUpdated(int slot, Book originalBook, Book updatedBook) {
+        dirtyBookSegments.set(slot / segmentSize);
+    }
+
+    @Override
+    public synchronized void bookRemoved(int slot, Book book) {
+        dirtyBookSegments.set(slot / segmentSize);
+        bookCount--;
+    }
+
+    @Override
+    public synchronized void booksCompacted() {
+        dirtyBookSegments.set(0, segmentCount(bookSlotCount));
+        bookSlotCount = bookCount;
+    }
+
+    @Override
+    public synchronized void memberAdded(Member member) {
+        dirtyMemberSegments.set(memberCount / segmentSize);
+        memberCount++;
+    }
+
+    @Override
+    public synchronized void memberRemoved(int index, Member member) {
+        dirtyMemberSegments.set(index / segmentSize, memberCount / segmentSize + 1);
+        memberCount--;
+        borrowersDirty = true;
+    }
+
+    @Override
+    public synchronized void memberRenamed(int index, Member member, String oldUsername) {
+        dirtyMemberSegments.set(index / segmentSize);
+    }
+
+    @Override
+    public synchronized void borrowerAdded(Member member) {
+        borrowersDirty = true;
+    }
+
+    @Override
+    public synchronized void bookBorrowed(Member member, Book book) {
+        borrowersDirty = true;
+    }
+
+    @Override
+    public synchronized void bookReturned(Member member, Book book) {
+        borrowersDirty = true;
+    }
+
+    @Override
+    public synchronized void borrowerRemoved(Member member) {
+        borrowersDirty = true;
+    }
+
+    /**
+     * Returns the number of segments needed for the given number of elements.
+     *
+     * @param count the number of elements
+     * @return the number of segments
+     */
+    private int segmentCount(int count) {
+        return (count + segmentSize - 1) / segmentSize;
+    }
+
+    /**
+     * The segments that changed between two checkpoints.
+     */
+    static class Changes {
+        final BitSet bookSegments;
+        final BitSet memberSegments;
+        final boolean borrowers;
+
+        /**
+         * Constructs a Changes object.
+         *
+         * @param bookSegments   the dirty book segments
+         * @param memberSegments the dirty member segments
+         * @param borrowers      true if the borrowers changed
+         */
+        Changes(BitSet bookSegments, BitSet memberSegments, boolean borrowers) {
+            this.bookSegments = bookSegments;
+            this.memberSegments = memberSegments;
+            this.borrowers = borrowers;
+        }
+    }
+}
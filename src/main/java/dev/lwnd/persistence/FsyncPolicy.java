@@ -0,0 +1,23 @@
+package dev.lwnd.persistence;
+
+/**
+ * The policies deciding when the journal forces its records to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every commit waits until its records are on disk. Records of commits arriving while a sync
+     * is in progress are synced together by the next one.
+     */
+    ALWAYS,
+
+    /**
+     * Records are synced at a fixed interval and commits do not wait, so a crash loses at most
+     * the records of the last interval.
+     */
+    INTERVAL,
+
+    /**
+     * Records are written without syncing, leaving it to the operating system when they reach the disk.
+     */
+    NEVER
+}
@@ -0,0 +1,16 @@
+package dev.lwnd.persistence;
+
+/**
+ * Functional interface for receiving the progress of an import.
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+    /**
+     * Reports the progress of an import.
+     *
+     * @param bytesRead  the number of bytes of the input read so far
+     * @param totalBytes the size of the input in bytes
+     * @param records    the number of records imported so far
+     */
+    void progress(long bytesRead, long totalBytes, long records);
+}
@@ -0,0 +1,766 @@
+package dev.lwnd.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookCollection;
+import dev.lwnd.member.Member;
+import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.other.Pair;
+
+/**
+ * The LibraryCheckpointer class keeps an on-disk checkpoint of a library up to date by writing
+ * only the parts that changed.
+ *
+ * <p>The checkpoint is a directory of segment files and a manifest. The books and the members are
+ * split into segments of a fixed number of elements, each stored in its own file; the borrowers
+ * are stored in one more file. A checkpointer listens to the collections of the library and only
+ * rewrites the segments that changed since the previous checkpoint, so the cost of a checkpoint
+ * follows the number of changes rather than the size of the library.
+ *
+ * <p>Segment files are never overwritten: each checkpoint writes its segments under a new
+ * generation number and then atomically replaces the manifest, which lists the generation of every
+ * segment and the journal sequence number the checkpoint contains. A crash at any point therefore
+ * leaves either the old or the new checkpoint intact. Once the manifest is in place, files no
+ * longer referenced are deleted and the journal records contained in the checkpoint are discarded.
+ */
+@ObjectDescription(description = "Represents a checkpointer writing the changed segments of a library.")
+public class LibraryCheckpointer {
+    /**
+     * The name of the checkpoint directory used when none is configured.
+     */
+    public static final String DEFAULT_DIRECTORY_NAME = "library.checkpoint";
+
+    /**
+     * The default number of books or members per segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 4096;
+
+    /**
+     * The default number of journal records after which a checkpoint is due.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+    private static final String MANIFEST_FILE_NAME = "manifest";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MANIFEST_MAGIC = 0x4C574E4D;
+    private static final int SEGMENT_MAGIC = 0x4C574E53;
+    private static final int VERSION = 1;
+
+    private final Path directory;
+    private final Library library;
+    private final long checkpointInterval;
+    private final DirtyTracker tracker;
+    private Manifest manifest;
+
+    /**
+     * Constructs a LibraryCheckpointer and starts tracking the changes made to the library.
+     * Unless the library was restored from the checkpoint in the directory, everything is
+     * written by the first checkpoint.
+     *
+     * @param directory          the checkpoint directory
+     * @param library            the library to checkpoint
+     * @param restored           true if the library was restored from the checkpoint in the directory
+     * @param segmentSize        the number of books or members per segment of a new checkpoint
+     * @param checkpointInterval the number of journal records after which a checkpoint is due
+     * @throws IOException if the manifest of a restored library cannot be read
+     */
+    public LibraryCheckpointer(Path directory, Library library, boolean restored, int segmentSize, long checkpointInterval) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+
+        this.directory = directory;
+        this.library = library;
+        this.checkpointInterval = checkpointInterval;
+
+        Manifest existing = exists(directory) ? Manifest.read(directory) : null;
+        if (restored) {
+            if (existing == null) {
+                throw new IOException("No checkpoint in " + directory);
+            }
+            manifest = existing;
+        } else {
+            manifest = Manifest.empty(existing == null ? 0 : existing.checkpointNumber, segmentSize);
+        }
+
+        tracker = new DirtyTracker(manifest.segmentSize,
+                library.getBookCollection().getSlots().size(),
+                library.getBookCollection().size(),
+                library.getMemberCollection().getAllMembers().size());
+        if (!restored) {
+            tracker.markAll();
+        }
+        library.getBookCollection().addListener(tracker);
+        library.getMemberCollection().addListener(tracker);
+        library.getBorrowerCatalogue().addListener(tracker);
+        library.setCheckpointer(this);
+    }
+
+    /**
+     * Constructs a LibraryCheckpointer with the default segment size and checkpoint interval.
+     *
+     * @param directory the checkpoint directory
+     * @param library   the library to checkpoint
+     * @param restored  true if the library was restored from the checkpoint in the directory
+     * @throws IOException if the manifest of a restored library cannot be read
+     */
+    public LibraryCheckpointer(Path directory, Library library, boolean restored) throws IOException {
+        this(directory, library, restored, DEFAULT_SEGMENT_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Checks if a directory holds a checkpoint.
+     *
+     * @param directory the checkpoint directory
+     * @return true if the directory holds a manifest, false otherwise
+     */
+    public static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(MANIFEST_FILE_NAME));
+    }
+
+    /**
+     * Removes the checkpoint from a directory, so that it is no longer restored.
+     * The segment files are left for the next checkpoint to clean up.
+     *
+     * @param directory the checkpoint directory
+     * @throws IOException if the manifest cannot be deleted
+     */
+    public static void delete(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(MANIFEST_FILE_NAME));
+    }
+
+    /**
+     * Reads the checkpoint in a directory.
+     *
+     * @param directory the checkpoint directory
+     * @return the contents of the checkpoint
+     * @throws IOException if the checkpoint cannot be read or is corrupt
+     */
+    public static LibrarySnapshot read(Path directory) throws IOException {
+        Manifest manifest = Manifest.read(directory);
+        try {
+            List<Book> books = new ArrayList<>(manifest.bookCount);
+            for (int segment = 0; segment < manifest.bookGenerations.length; segment++) {
+                ByteBuffer buffer = mapSegment(directory, segmentFileName("books", segment, manifest.bookGenerations[segment]));
+                String[] strings = new String[VarintBuffer.readCount(buffer)];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = VarintBuffer.readString(buffer);
+                }
+                int count = VarintBuffer.readCount(buffer);
+                long previousDay = 0;
+                for (int i = 0; i < count; i++) {
+                    long reference = VarintBuffer.readVarint(buffer);
+                    if (reference == 0) {
+                        books.add(null);
+                        continue;
+                    }
+                    String title = strings[VarintBuffer.readCount(buffer)];
+                    String author = strings[VarintBuffer.readCount(buffer)];
+                    previousDay += VarintBuffer.readSignedVarint(buffer);
+                    books.add(new Book(reference - 1, title, author, previousDay));
+                }
+            }
+
+            List<Member> members = new ArrayList<>(manifest.memberCount);
+            for (int segment = 0; segment < manifest.memberGenerations.length; segment++) {
+                ByteBuffer buffer = mapSegment(directory, segmentFileName("members", segment, manifest.memberGenerations[segment]));
+                int count = VarintBuffer.readCount(buffer);
+                for (int i = 0; i < count; i++) {
+                    members.add(readMember(buffer));
+                }
+            }
+
+            if (books.size() != manifest.bookCount || members.size() != manifest.memberCount) {
+                throw new IOException("Checkpoint segments do not match the manifest");
+            }
+
+            List<Pair<Member, List<Book>>> borrowers = new ArrayList<>();
+            if (manifest.borrowersGeneration != 0) {
+                ByteBuffer buffer = mapSegment(directory, segmentFileName("borrowers", 0, manifest.borrowersGeneration));
+                Set<Long> borrowedIds = new HashSet<>();
+                readBorrowers(buffer.duplicate(), members, id -> {
+                    borrowedIds.add(id);
+                    return null;
+                });
+
+                Map<Long, Book> borrowedBooks = new HashMap<>();
+                for (Book book : books) {
+                    if (book != null && borrowedIds.contains(book.getId())) {
+                        borrowedBooks.put(book.getId(), book);
+                    }
+                }
+                borrowers = readBorrowers(buffer, members, id -> {
+                    Book book = borrowedBooks.get(id);
+                    if (book == null) {
+                        throw new IllegalStateException("Unknown borrowed book " + id);
+                    }
+                    return book;
+                });
+            }
+
+            return new LibrarySnapshot(books, members, borrowers, manifest.journalLsn);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt checkpoint in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a checkpoint if the journal has grown by the checkpoint interval since the last one.
+     *
+     * @return true if a checkpoint was written, false otherwise
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public boolean checkpointIfDue() throws IOException {
+        synchronized (this) {
+            if (library.getJournalLsn() - manifest.journalLsn < checkpointInterval) {
+                return false;
+            }
+        }
+
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Writes the segments that changed since the last checkpoint, replaces the manifest,
+     * and discards the journal records the checkpoint contains.
+     * The checkpoint has to hold exactly the changes up to the journal sequence number it records,
+     * so the sequence number is read and the changed segments are encoded under the write lock of
+     * the library's change lock, which holds off changes only until the segments are in memory.
+     * Must not be called by a thread that is changing the library.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        Files.createDirectories(directory);
+
+        long journalLsn;
+        DirtyTracker.Changes changes;
+        VarintBuffer[] bookSegments;
+        VarintBuffer[] memberSegments;
+        VarintBuffer borrowersSegment = null;
+        int bookSlotCount;
+        int memberCount;
+        Lock changeLock = library.getChangeLock().writeLock();
+        changeLock.lock();
+        try {
+            journalLsn = library.getJournalLsn();
+            changes = tracker.takeChanges();
+            try {
+                BookCollection bookCollection = library.getBookCollection();
+                List<Book> books = bookCollection.getSlots();
+                List<Member> members = library.getMemberCollection().getAllMembers();
+
+                bookSegments = encodeSegments(books, manifest.bookGenerations, changes.bookSegments,
+                        LibraryCheckpointer::encodeBooks);
+                memberSegments = encodeSegments(members, manifest.memberGenerations, changes.memberSegments,
+                        LibraryCheckpointer::encodeMembers);
+                if (changes.borrowers || manifest.borrowersGeneration == 0) {
+                    borrowersSegment = new VarintBuffer(1024);
+                    encodeBorrowers(library.getBorrowerCatalogue().getBorrowerList(), bookCollection, members, borrowersSegment);
+                }
+                bookSlotCount = books.size();
+                memberCount = members.size();
+            } catch (RuntimeException e) {
+                tracker.restoreChanges(changes);
+                throw e;
+            }
+        } finally {
+            changeLock.unlock();
+        }
+
+        try {
+            long generation = manifest.checkpointNumber + 1;
+            long[] bookGenerations = writeSegments("books", bookSegments, manifest.bookGenerations, generation);
+            long[] memberGenerations = writeSegments("members", memberSegments, manifest.memberGenerations, generation);
+
+            long borrowersGeneration = manifest.borrowersGeneration;
+            if (borrowersSegment != null) {
+                writeSegment(segmentFileName("borrowers", 0, generation), borrowersSegment);
+                borrowersGeneration = generation;
+            }
+
+            Manifest written = new Manifest(generation, journalLsn, manifest.segmentSize, bookSlotCount, memberCount,
+                    bookGenerations, memberGenerations, borrowersGeneration);
+            written.write(directory);
+            manifest = written;
+        } catch (IOException | RuntimeException e) {
+            tracker.restoreChanges(changes);
+            throw e;
+        }
+
+        deleteUnreferencedSegments();
+        LibraryJournal journal = library.getJournal();
+        if (journal != null) {
+            journal.discardThrough(journalLsn);
+        }
+    }
+
+    /**
+     * Returns the journal sequence number contained in the last checkpoint.
+     *
+     * @return the journal sequence number of the checkpoint
+     */
+    public synchronized long getCheckpointLsn() {
+        return manifest.journalLsn;
+    }
+
+    /**
+     * Encodes the segments of a list that are dirty or not part of the previous checkpoint.
+     *
+     * @param elements       the elements of the list
+     * @param oldGenerations the generations of the segments in the previous checkpoint
+     * @param dirty          the dirty segments
+     * @param encoder        the encoder of a segment
+     * @param <T>            the type of the elements
+     * @return the encoded segments, with null for a segment the previous checkpoint holds unchanged
+     */
+    private <T> VarintBuffer[] encodeSegments(List<T> elements, long[] oldGenerations, BitSet dirty,
+                                              BiConsumer<List<T>, VarintBuffer> encoder) {
+        int segmentSize = manifest.segmentSize;
+        VarintBuffer[] segments = new VarintBuffer[(elements.size() + segmentSize - 1) / segmentSize];
+        for (int segment = 0; segment < segments.length; segment++) {
+            if (segment < oldGenerations.length && oldGenerations[segment] != 0 && !dirty.get(segment)) {
+                continue;
+            }
+
+            int from = segment * segmentSize;
+            List<T> elementsOfSegment = elements.subList(from, Math.min(from + segmentSize, elements.size()));
+            segments[segment] = new VarintBuffer(16 * elementsOfSegment.size() + 16);
+            encoder.accept(elementsOfSegment, segments[segment]);
+        }
+        return segments;
+    }
+
+    /**
+     * Writes the encoded segments of a list and returns the generation of every segment.
+     *
+     * @param prefix         the file name prefix of the segments
+     * @param segments       the encoded segments, with null for a segment that did not change
+     * @param oldGenerations the generations of the segments in the previous checkpoint
+     * @param generation     the generation of the checkpoint being written
+     * @return the generations of the segments in the new checkpoint
+     * @throws IOException if a segment cannot be written
+     */
+    private long[] writeSegments(String prefix, VarintBuffer[] segments, long[] oldGenerations, long generation) throws IOException {
+        long[] generations = new long[segments.length];
+        for (int segment = 0; segment < segments.length; segment++) {
+            if (segments[segment] == null) {
+                generations[segment] = oldGenerations[segment];
+                continue;
+            }
+
+            writeSegment(segmentFileName(prefix, segment, generation), segments[segment]);
+            generations[segment] = generation;
+        }
+        return generations;
+    }
+
+    /**
+     * Writes a segment file and syncs it.
+     *
+     * @param fileName the name of the segment file
+     * @param buffer   the encoded segment
+     * @throws IOException if the file cannot be written
+     */
+    private void writeSegment(String fileName, VarintBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(SEGMENT_MAGIC).putInt(VERSION).flip();
+            ByteBuffer contents = buffer.toByteBuffer();
+            while (header.hasRemaining() || contents.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, contents});
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Deletes the segment files that the current manifest does not refer to.
+     *
+     * @throws IOException if the directory cannot be listed or a file cannot be deleted
+     */
+    private void deleteUnreferencedSegments() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        for (int segment = 0; segment < manifest.bookGenerations.length; segment++) {
+            referenced.add(segmentFileName("books", segment, manifest.bookGenerations[segment]));
+        }
+        for (int segment = 0; segment < manifest.memberGenerations.length; segment++) {
+            referenced.add(segmentFileName("members", segment, manifest.memberGenerations[segment]));
+        }
+        referenced.add(segmentFileName("borrowers", 0, manifest.borrowersGeneration));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes a segment of book slots as a string table followed by, for every slot, the id of its
+     * book plus one, its string ids and its day delta, or zero for an empty slot.
+     *
+     * @param books  the books of the slots of the segment, with null for an empty slot
+     * @param buffer the buffer to encode into
+     */
+    private static void encodeBooks(List<Book> books, VarintBuffer buffer) {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Book book : books) {
+            if (book == null) {
+                continue;
+            }
+            for (String string : new String[] {book.getTitle(), book.getAuthor()}) {
+                if (stringIds.putIfAbsent(string, strings.size()) == null) {
+                    strings.add(string);
+                }
+            }
+        }
+
+        buffer.writeVarint(strings.size());
+        for (String string : strings) {
+            buffer.writeString(string);
+        }
+        buffer.writeVarint(books.size());
+        long previousDay = 0;
+        for (Book book : books) {
+            if (book == null) {
+                buffer.writeVarint(0);
+                continue;
+            }
+            buffer.writeVarint(book.getId() + 1);
+            buffer.writeVarint(stringIds.get(book.getTitle()));
+            buffer.writeVarint(stringIds.get(book.getAuthor()));
+            buffer.writeSignedVarint(book.getPublicationEpochDay() - previousDay);
+            previousDay = book.getPublicationEpochDay();
+        }
+    }
+
+    /**
+     * Encodes a segment of members as usernames and admin flags.
+     *
+     * @param members the members of the segment
+     * @param buffer  the buffer to encode into
+     */
+    private static void encodeMembers(List<Member> members, VarintBuffer buffer) {
+        buffer.writeVarint(members.size());
+        for (Member member : members) {
+            writeMember(member, buffer);
+        }
+    }
+
+    /**
+     * Encodes the borrowers, referring to members by their index plus one and to books by their
+     * id plus one, or by zero followed by their contents if they are not part of the collections.
+     *
+     * @param borrowers      the borrowers with their books
+     * @param bookCollection the book collection of the library
+     * @param members        the members of the library
+     * @param buffer         the buffer to encode into
+     */
+    private static void encodeBorrowers(List<Pair<Member, List<Book>>> borrowers, BookCollection bookCollection,
+                                        List<Member> members, VarintBuffer buffer) {
+        Map<Member, Integer> memberIndexes = new IdentityHashMap<>();
+        for (Pair<Member, List<Book>> borrower : borrowers) {
+            memberIndexes.put(borrower.getFirst(), 0);
+        }
+        resolveIndexes(members, memberIndexes);
+
+        buffer.writeVarint(borrowers.size());
+        for (Pair<Member, List<Book>> borrower : borrowers) {
+            int memberReference = memberIndexes.get(borrower.getFirst());
+            buffer.writeVarint(memberReference);
+            if (memberReference == 0) {
+                writeMember(borrower.getFirst(), buffer);
+            }
+
+            buffer.writeVarint(borrower.getSecond().size());
+            for (Book book : borrower.getSecond()) {
+                if (bookCollection.hasBook(book)) {
+                    buffer.writeVarint(book.getId() + 1);
+                } else {
+                    buffer.writeVarint(0);
+                    buffer.writeVarint(book.getId());
+                    buffer.writeString(book.getTitle());
+                    buffer.writeString(book.getAuthor());
+                    buffer.writeSignedVarint(book.getPublicationEpochDay());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the borrowers written by encodeBorrowers.
+     *
+     * @param buffer      the borrowers segment
+     * @param members     the members of the checkpoint
+     * @param bookLookup  the function returning the book of the collection with an id
+     * @return the borrowers with their books
+     */
+    private static List<Pair<Member, List<Book>>> readBorrowers(ByteBuffer buffer, List<Member> members, LongFunction<Book> bookLookup) {
+        int count = VarintBuffer.readCount(buffer);
+        List<Pair<Member, List<Book>>> borrowers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int memberReference = VarintBuffer.readCount(buffer);
+            Member member = memberReference == 0 ? readMember(buffer) : members.get(memberReference - 1);
+            int borrowedCount = VarintBuffer.readCount(buffer);
+            List<Book> borrowed = new ArrayList<>(borrowedCount);
+            for (int j = 0; j < borrowedCount; j++) {
+                long bookReference = VarintBuffer.readVarint(buffer);
+                if (bookReference == 0) {
+                    long id = VarintBuffer.readVarint(buffer);
+                    String title = VarintBuffer.readString(buffer);
+                    String author = VarintBuffer.readString(buffer);
+                    borrowed.add(new Book(id, title, author, VarintBuffer.readSignedVarint(buffer)));
+                } else {
+                    borrowed.add(bookLookup.apply(bookReference - 1));
+                }
+            }
+            borrowers.add(new Pair<>(member, borrowed));
+        }
+        return borrowers;
+    }
+
+    /**
+     * Replaces the values of the map with the index plus one of their key in the list.
+     * Keys that are not in the list keep the value zero.
+     *
+     * @param elements the list to search
+     * @param indexes  the map from the elements to look up to zero
+     * @param <T>      the type of the elements
+     */
+    private static <T> void resolveIndexes(List<T> elements, Map<T, Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < elements.size(); i++) {
+            Integer index = indexes.get(elements.get(i));
+            if (index != null && index == 0) {
+                indexes.put(elements.get(i), i + 1);
+            }
+        }
+    }
+
+    /**
+     * Writes the username and admin rights of a member.
+     *
+     * @param member the member to write
+     * @param buffer the buffer to write to
+     */
+    private static void writeMember(Member member, VarintBuffer buffer) {
+        buffer.writeString(member.getUsername());
+        buffer.writeByte((byte) (member.hasAdminRights() ? 1 : 0));
+    }
+
+    /**
+     * Reads a member written by writeMember.
+     *
+     * @param buffer the buffer to read from
+     * @return the member
+     */
+    private static Member readMember(ByteBuffer buffer) {
+        String username = VarintBuffer.readString(buffer);
+        return new Member(username, buffer.get() != 0);
+    }
+
+    /**
+     * Maps a segment file into memory and checks its header.
+     *
+     * @param directory the checkpoint directory
+     * @param fileName  the name of the segment file
+     * @return the contents of the segment after the header
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    private static ByteBuffer mapSegment(Path directory, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != SEGMENT_MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a checkpoint segment: " + fileName);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Returns the name of a segment file.
+     *
+     * @param prefix     the kind of segment
+     * @param segment    the number of the segment
+     * @param generation the checkpoint that wrote the segment
+     * @return the file name
+     */
+    private static String segmentFileName(String prefix, int segment, long generation) {
+        return prefix + "-" + segment + "-" + generation + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * The manifest of a checkpoint, listing the generation of every segment.
+     * A generation of zero marks a segment that was never written.
+     */
+    private static class Manifest {
+        final long checkpointNumber;
+        final long journalLsn;
+        final int segmentSize;
+        final int bookCount;
+        final int memberCount;
+        final long[] bookGenerations;
+        final long[] memberGenerations;
+        final long borrowersGeneration;
+
+        /**
+         * Constructs a Manifest.
+         *
+         * @param checkpointNumber    the number of the checkpoint
+         * @param journalLsn          the journal sequence number contained in the checkpoint
+         * @param segmentSize         the number of books or members per segment
+         * @param bookCount           the number of books
+         * @param memberCount         the number of members
+         * @param bookGenerations     the generations of the book segments
+         * @param memberGenerations   the generations of the member segments
+         * @param borrowersGeneration the generation of the borrowers segment
+         */
+        Manifest(long checkpointNumber, long journalLsn, int segmentSize, int bookCount, int memberCount,
+                 long[] bookGenerations, long[] memberGenerations, long borrowersGeneration) {
+            this.checkpointNumber = checkpointNumber;
+            this.journalLsn = journalLsn;
+            this.segmentSize = segmentSize;
+            this.bookCount = bookCount;
+            this.memberCount = memberCount;
+            this.bookGenerations = bookGenerations;
+            this.memberGenerations = memberGenerations;
+            this.borrowersGeneration = borrowersGeneration;
+        }
+
+        /**
+         * Returns the manifest of a checkpoint with no segments written yet.
+         *
+         * @param checkpointNumber the number of the last checkpoint written to the directory
+         * @param segmentSize      the number of books or members per segment
+         * @return the empty manifest
+         */
+        static Manifest empty(long checkpointNumber, int segmentSize) {
+            return new Manifest(checkpointNumber, 0, segmentSize, 0, 0, new long[0], new long[0], 0);
+        }
+
+        /**
+         * Reads the manifest of a checkpoint directory.
+         *
+         * @param directory the checkpoint directory
+         * @return the manifest
+         * @throws IOException if the manifest cannot be read or is corrupt
+         */
+        static Manifest read(Path directory) throws IOException {
+            byte[] bytes = Files.readAllBytes(directory.resolve(MANIFEST_FILE_NAME));
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                if (buffer.getInt() != MANIFEST_MAGIC || buffer.getInt() != VERSION) {
+                    throw new IOException("Not a checkpoint manifest in " + directory);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(bytes, 0, bytes.length - 4);
+                if ((int) crc.getValue() != buffer.getInt(bytes.length - 4)) {
+                    throw new IOException("Corrupt checkpoint manifest in " + directory);
+                }
+
+                long checkpointNumber = VarintBuffer.readVarint(buffer);
+                long journalLsn = VarintBuffer.readVarint(buffer);
+                int segmentSize = VarintBuffer.readCount(buffer);
+                int bookCount = VarintBuffer.readCount(buffer);
+                int memberCount = VarintBuffer.readCount(buffer);
+                long[] bookGenerations = readGenerations(buffer);
+                long[] memberGenerations = readGenerations(buffer);
+                long borrowersGeneration = VarintBuffer.readVarint(buffer);
+                return new Manifest(checkpointNumber, journalLsn, segmentSize, bookCount, memberCount,
+                        bookGenerations, memberGenerations, borrowersGeneration);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt checkpoint manifest in " + directory, e);
+            }
+        }
+
+        /**
+         * Writes the manifest to a temporary file and moves it over the manifest of the directory.
+         *
+         * @param directory the checkpoint directory
+         * @throws IOException if the manifest cannot be written
+         */
+        void write(Path directory) throws IOException {
+            VarintBuffer buffer = new VarintBuffer(64 + 8 * (bookGenerations.length + memberGenerations.length));
+            buffer.writeFixedInt(MANIFEST_MAGIC);
+            buffer.writeFixedInt(VERSION);
+            buffer.writeVarint(checkpointNumber);
+            buffer.writeVarint(journalLsn);
+            buffer.writeVarint(segmentSize);
+            buffer.writeVarint(bookCount);
+            buffer.writeVarint(memberCount);
+            writeGenerations(bookGenerations, buffer);
+            writeGenerations(memberGenerations, buffer);
+            buffer.writeVarint(borrowersGeneration);
+            buffer.writeFixedInt(buffer.checksum(0, buffer.size()));
+
+            Path temporaryFile = directory.resolve(MANIFEST_FILE_NAME + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer contents = buffer.toByteBuffer();
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryFile, directory.resolve(MANIFEST_FILE_NAME),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Writes a list of segment generations.
+         *
+         * @param generations the generations to write
+         * @param buffer      the buffer to write to
+         */
+        private static void writeGenerations(long[] generations, VarintBuffer buffer) {
+            buffer.writeVarint(generations.length);
+            for (long generation : generations) {
+                buffer.writeVarint(generation);
+            }
+        }
+
+        /**
+         * Reads a list of segment generations.
+         *
+         * @param buffer the buffer to read from
+         * @return the generations
+         */
+        private static long[] readGenerations(ByteBuffer buffer) {
+            long[] generations = new long[VarintBuffer.readCount(buffer)];
+            for (int i = 0; i < generations.length; i++) {
+                generations[i] = VarintBuffer.readVarint(buffer);
+            }
+            return generations;
+        }
+    }
+}
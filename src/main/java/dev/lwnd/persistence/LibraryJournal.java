@@ -0,0 +1,748 @@
+package dev.lwnd.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import dev.lwnd.BorrowerCatalogue;
+import dev.lwnd.BorrowerCatalogueListener;
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookCollection;
+import dev.lwnd.book.BookCollectionListener;
+import dev.lwnd.member.Member;
+import dev.lwnd.member.MemberCollection;
+import dev.lwnd.member.MemberCollectionListener;
+import dev.lwnd.other.ObjectDescription;
+
+/**
+ * The LibraryJournal class is an append-only write-ahead journal of the changes made to a library.
+ *
+ * <p>The journal listens to the book collection, the member collection and the borrower catalogue
+ * and appends one record per change. Appending only encodes the record into an in-memory buffer;
+ * a background thread writes the buffer out and syncs it according to the fsync policy. Everything
+ * appended while a write is in progress goes out with the next write, so concurrent sessions share
+ * their syncs instead of paying for one each. Callers that need their changes to be durable call
+ * commit once the change is made.
+ *
+ * <p>The file starts with a header holding a magic number, the format version and the sequence
+ * number the journal starts after. Every record carries its length, a CRC-32 of its payload and
+ * its own sequence number, followed by the type of change and its arguments as varints and
+ * length-prefixed UTF-8 strings. Books are referred to by their id and members by their username. When the journal is opened, records newer than the library are
+ * replayed, and a torn record at the end left by a crash is cut off. Once a checkpoint contains
+ * the oldest records, they are discarded by rewriting the file without them.
+ */
+@ObjectDescription(description = "Represents the write-ahead journal of a library.")
+public class LibraryJournal implements BookCollectionListener, MemberCollectionListener, BorrowerCatalogueListener, Closeable {
+    /**
+     * The name of the journal file used when none is configured.
+     */
+    public static final String DEFAULT_FILE_NAME = "library.journal";
+
+    /**
+     * The default number of milliseconds between syncs under the INTERVAL policy.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+
+    private static final int MAGIC = 0x4C574E4A;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte BOOK_ADDED = 1;
+    private static final byte BOOK_UPDATED = 2;
+    private static final byte BOOK_REMOVED = 3;
+    private static final byte MEMBER_ADDED = 4;
+    private static final byte MEMBER_REMOVED = 5;
+    private static final byte BORROWER_ADDED = 6;
+    private static final byte BOOK_BORROWED = 7;
+    private static final byte BOOK_RETURNED = 8;
+    private static final byte BORROWER_REMOVED = 9;
+    private static final byte MEMBER_RENAMED = 10;
+
+    private final Library library;
+    private final Path file;
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    private final FsyncPolicy policy;
+    private final long syncIntervalMillis;
+    private final Thread flusher;
+    private long writePosition;
+
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer flushing = new RecordBuffer();
+    private long appendedLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Constructs a LibraryJournal appending to an opened journal file.
+     *
+     * @param library            the library whose changes are journaled
+     * @param file               the journal file
+     * @param channel            the channel of the journal file
+     * @param writePosition      the position after the last valid record
+     * @param lastLsn            the sequence number of the last record
+     * @param policy             the fsync policy
+     * @param syncIntervalMillis the number of milliseconds between syncs under the INTERVAL policy
+     */
+    private LibraryJournal(Library library, Path file, FileChannel channel, long writePosition, long lastLsn,
+                           FsyncPolicy policy, long syncIntervalMillis) {
+        this.library = library;
+        this.file = file;
+        this.channel = channel;
+        this.writePosition = writePosition;
+        this.appendedLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.policy = policy;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.flusher = new Thread(this::runFlusher, "library-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal of a library, replays the records the library does not contain yet,
+     * and starts journaling the changes made to the library from then on.
+     * A journal file that does not exist yet is created, starting after the library's journal sequence number.
+     *
+     * @param file               the journal file
+     * @param library            the library whose changes are journaled
+     * @param policy             the fsync policy
+     * @param syncIntervalMillis the number of milliseconds between syncs under the INTERVAL policy
+     * @return the opened journal
+     * @throws IOException if the journal cannot be read or written, or does not fit the library
+     */
+    public static LibraryJournal open(Path file, Library library, FsyncPolicy policy, long syncIntervalMillis) throws IOException {
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LibraryJournal journal;
+        try {
+            long libraryLsn = library.getJournalLsn();
+            long end;
+            long lastLsn;
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(libraryLsn).flip();
+                channel.truncate(0);
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+                end = HEADER_SIZE;
+                lastLsn = libraryLsn;
+            } else {
+                long[] replayed = replay(channel, library, libraryLsn);
+                end = replayed[0];
+                lastLsn = Math.max(replayed[1], libraryLsn);
+                if (end < channel.size()) {
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+
+            journal = new LibraryJournal(library, file, channel, end, lastLsn, policy, syncIntervalMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        journal.flusher.start();
+        library.getBookCollection().addListener(journal);
+        library.getMemberCollection().addListener(journal);
+        library.getBorrowerCatalogue().addListener(journal);
+        library.setJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Returns the sequence number of the last record appended to the journal.
+     *
+     * @return the last sequence number
+     */
+    public synchronized long getLastLsn() {
+        return appendedLsn;
+    }
+
+    /**
+     * Returns the fsync policy of the journal.
+     *
+     * @return the fsync policy
+     */
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Makes the changes journaled so far durable according to the fsync policy.
+     * Under the ALWAYS policy this waits until they are synced to disk; under the other policies
+     * it returns at once.
+     *
+     * @throws UncheckedIOException if the journal failed to write its records
+     */
+    public void commit() throws UncheckedIOException {
+        synchronized (this) {
+            if (policy == FsyncPolicy.ALWAYS) {
+                long target = appendedLsn;
+                while (durableLsn < target && failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Failed to write the library journal", failure);
+            }
+        }
+    }
+
+    /**
+     * Discards the records up to and including the specified sequence number, once a checkpoint
+     * contains them. The remaining records are copied to a new file that replaces the journal
+     * atomically, so a crash leaves either the old or the new journal in place.
+     *
+     * @param lsn the sequence number of the last record to discard
+     * @throws IOException if the journal cannot be rewritten
+     */
+    public void discardThrough(long lsn) throws IOException {
+        synchronized (channelLock) {
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            long position = HEADER_SIZE;
+            ByteBuffer recordStart = ByteBuffer.allocate(RECORD_HEADER_SIZE + 10);
+            while (position < writePosition) {
+                recordStart.clear().limit((int) Math.min(recordStart.capacity(), writePosition - position));
+                readFully(channel, recordStart, position);
+                int length = recordStart.getInt();
+                recordStart.getInt();
+                if (VarintBuffer.readVarint(recordStart) > lsn) {
+                    break;
+                }
+                position += RECORD_HEADER_SIZE + length;
+            }
+
+            Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel rewritten = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(lsn).flip();
+                while (header.hasRemaining()) {
+                    rewritten.write(header);
+                }
+                long copied = 0;
+                while (copied < writePosition - position) {
+                    copied += channel.transferTo(position + copied, writePosition - position - copied, rewritten);
+                }
+                rewritten.force(true);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writePosition = HEADER_SIZE + writePosition - position;
+        }
+    }
+
+    /**
+     * Stops journaling the library, writes and syncs the remaining records, and closes the file.
+     *
+     * @throws IOException if the remaining records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        library.getBookCollection().removeListener(this);
+        library.getMemberCollection().removeListener(this);
+        library.getBorrowerCatalogue().removeListener(this);
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException error;
+        synchronized (this) {
+            error = failure;
+        }
+        synchronized (channelLock) {
+            try {
+                if (error == null) {
+                    channel.force(true);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BOOK_ADDED);
+            writeBook(record, book);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void bookUpdated(int slot, Book originalBook, Book updatedBook) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BOOK_UPDATED);
+            record.writeVarint(originalBook.getId());
+            writeBook(record, updatedBook);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void bookRemoved(int slot, Book book) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BOOK_REMOVED);
+            record.writeVarint(book.getId());
+            endRecord();
+        }
+    }
+
+    @Override
+    public void memberAdded(Member member) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(MEMBER_ADDED);
+            writeMember(record, member);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void memberRemoved(int index, Member member) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(MEMBER_REMOVED);
+            record.writeString(member.getUsername());
+            endRecord();
+        }
+    }
+
+    @Override
+    public void memberRenamed(int index, Member member, String oldUsername) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(MEMBER_RENAMED);
+            record.writeString(oldUsername);
+            record.writeString(member.getUsername());
+            endRecord();
+        }
+    }
+
+    @Override
+    public void borrowerAdded(Member member) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BORROWER_ADDED);
+            writeMember(record, member);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void bookBorrowed(Member member, Book book) {
+        boolean inCollection = library.getBookCollection().hasBook(book);
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BOOK_BORROWED);
+            record.writeString(member.getUsername());
+            writeBookReference(record, inCollection, book);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void bookReturned(Member member, Book book) {
+        boolean inCollection = library.getBookCollection().hasBook(book);
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BOOK_RETURNED);
+            record.writeString(member.getUsername());
+            writeBookReference(record, inCollection, book);
+            endRecord();
+        }
+    }
+
+    @Override
+    public void borrowerRemoved(Member member) {
+        synchronized (this) {
+            RecordBuffer record = beginRecord(BORROWER_REMOVED);
+            record.writeString(member.getUsername());
+            endRecord();
+        }
+    }
+
+    /**
+     * Starts a record in the pending buffer with the next sequence number.
+     * The caller must hold the monitor of the journal.
+     *
+     * @param type the type of change
+     * @return the buffer to write the arguments of the change to
+     * @throws IllegalStateException if the journal is closed
+     */
+    private RecordBuffer beginRecord(byte type) throws IllegalStateException {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        pending.beginRecord();
+        pending.writeVarint(appendedLsn + 1);
+        pending.writeByte(type);
+        return pending;
+    }
+
+    /**
+     * Completes the record started by beginRecord and wakes the flusher.
+     * The caller must hold the monitor of the journal.
+     */
+    private void endRecord() {
+        pending.endRecord();
+        appendedLsn++;
+        notifyAll();
+    }
+
+    /**
+     * Writes the pending records out until the journal is closed.
+     * Records appended while a batch is being written and synced are collected into the next batch.
+     */
+    private void runFlusher() {
+        while (true) {
+            RecordBuffer batch;
+            long batchLsn;
+            boolean closing;
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                closing = closed;
+            }
+
+            if (policy == FsyncPolicy.INTERVAL && !closing) {
+                try {
+                    Thread.sleep(syncIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            synchronized (this) {
+                batch = pending;
+                pending = flushing;
+                flushing = batch;
+                batchLsn = appendedLsn;
+            }
+
+            try {
+                synchronized (channelLock) {
+                    ByteBuffer buffer = batch.toByteBuffer();
+                    while (buffer.hasRemaining()) {
+                        writePosition += channel.write(buffer, writePosition);
+                    }
+                    if (policy != FsyncPolicy.NEVER) {
+                        channel.force(false);
+                    }
+                }
+                batch.clear();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                durableLsn = batchLsn;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads the journal file and applies the records newer than the library to it.
+     *
+     * @param channel    the channel of the journal file
+     * @param library    the library to apply the records to
+     * @param libraryLsn the sequence number of the last record the library contains
+     * @return the position after the last valid record and the sequence number of that record
+     * @throws IOException if the journal cannot be read or a record cannot be applied
+     */
+    private static long[] replay(FileChannel channel, Library library, long libraryLsn) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a library journal");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported library journal version " + version);
+        }
+        long baseLsn = header.getLong();
+        if (baseLsn > libraryLsn) {
+            throw new IOException("The library journal starts after record " + baseLsn + " but the library ends at record " + libraryLsn);
+        }
+
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        long lastLsn = baseLsn;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        ByteBuffer payload = ByteBuffer.allocate(256);
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            readFully(channel, recordHeader, position);
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+            }
+            payload.clear().limit(length);
+            readFully(channel, payload, position + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            long lsn = VarintBuffer.readVarint(payload);
+            if (lsn > libraryLsn) {
+                try {
+                    apply(library, payload);
+                } catch (RuntimeException e) {
+                    throw new IOException("Cannot apply library journal record " + lsn, e);
+                }
+            }
+            lastLsn = lsn;
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        return new long[] {position, lastLsn};
+    }
+
+    /**
+     * Applies the change held by a record payload to the library.
+     *
+     * @param library the library to change
+     * @param payload the payload positioned after the sequence number
+     */
+    private static void apply(Library library, ByteBuffer payload) {
+        BookCollection bookCollection = library.getBookCollection();
+        MemberCollection memberCollection = library.getMemberCollection();
+        BorrowerCatalogue borrowerCatalogue = library.getBorrowerCatalogue();
+
+        byte type = payload.get();
+        switch (type) {
+            case BOOK_ADDED -> bookCollection.addBook(readBook(payload));
+            case BOOK_UPDATED -> {
+                Book originalBook = bookCollection.getBookById(VarintBuffer.readVarint(payload));
+                bookCollection.updateBook(originalBook, readBook(payload));
+            }
+            case BOOK_REMOVED -> bookCollection.removeBook(bookCollection.getBookById(VarintBuffer.readVarint(payload)));
+            case MEMBER_ADDED -> memberCollection.addMember(readMember(payload));
+            case MEMBER_REMOVED -> memberCollection.removeMember(memberCollection.getMember(VarintBuffer.readString(payload)));
+            case MEMBER_RENAMED -> {
+                Member member = memberCollection.getMember(VarintBuffer.readString(payload));
+                member.setUsername(VarintBuffer.readString(payload));
+            }
+            case BORROWER_ADDED -> {
+                Member member = readMember(payload);
+                if (memberCollection.hasMember(member.getUsername())) {
+                    member = memberCollection.getMember(member.getUsername());
+                }
+                borrowerCatalogue.addBorrower(member);
+            }
+            case BOOK_BORROWED -> {
+                Member member = findBorrower(borrowerCatalogue, VarintBuffer.readString(payload));
+                borrowerCatalogue.addBookToBorrower(member, readBookReference(bookCollection, payload));
+            }
+            case BOOK_RETURNED -> {
+                Member member = findBorrower(borrowerCatalogue, VarintBuffer.readString(payload));
+                borrowerCatalogue.removeBookFromBorrower(member, readBookReference(bookCollection, payload));
+            }
+            case BORROWER_REMOVED -> borrowerCatalogue.removeBorrower(findBorrower(borrowerCatalogue, VarintBuffer.readString(payload)));
+            default -> throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * Returns the borrower of the catalogue with the specified username.
+     *
+     * @param borrowerCatalogue the borrower catalogue
+     * @param username          the username of the borrower
+     * @return the borrower
+     * @throws IllegalStateException if the catalogue has no such borrower
+     */
+    private static Member findBorrower(BorrowerCatalogue borrowerCatalogue, String username) throws IllegalStateException {
+        for (Member borrower : borrowerCatalogue.getBorrowers()) {
+            if (borrower.getUsername().equals(username)) {
+                return borrower;
+            }
+        }
+        throw new IllegalStateException("Unknown borrower " + username);
+    }
+
+    /**
+     * Writes the id and contents of a book.
+     *
+     * @param record the record to write to
+     * @param book   the book to write
+     */
+    private static void writeBook(RecordBuffer record, Book book) {
+        record.writeVarint(book.getId());
+        record.writeString(book.getTitle());
+        record.writeString(book.getAuthor());
+        record.writeSignedVarint(book.getPublicationEpochDay());
+    }
+
+    /**
+     * Reads a book written by writeBook.
+     *
+     * @param payload the payload to read from
+     * @return the book
+     */
+    private static Book readBook(ByteBuffer payload) {
+        long id = VarintBuffer.readVarint(payload);
+        String title = VarintBuffer.readString(payload);
+        String author = VarintBuffer.readString(payload);
+        return new Book(id, title, author, VarintBuffer.readSignedVarint(payload));
+    }
+
+    /**
+     * Writes a reference to a book: its id plus one if it is part of the collection, or zero
+     * followed by the book if it is not.
+     *
+     * @param record       the record to write to
+     * @param inCollection true if the book is part of the collection
+     * @param book         the book
+     */
+    private static void writeBookReference(RecordBuffer record, boolean inCollection, Book book) {
+        if (inCollection) {
+            record.writeVarint(book.getId() + 1);
+        } else {
+            record.writeVarint(0);
+            writeBook(record, book);
+        }
+    }
+
+    /**
+     * Reads a reference to a book written by writeBookReference.
+     *
+     * @param bookCollection the collection holding the referenced books
+     * @param payload        the payload to read from
+     * @return the book
+     */
+    private static Book readBookReference(BookCollection bookCollection, ByteBuffer payload) {
+        long reference = VarintBuffer.readVarint(payload);
+        return reference == 0 ? readBook(payload) : bookCollection.getBookById(reference - 1);
+    }
+
+    /**
+     * Writes the username and admin rights of a member.
+     *
+     * @param record the record to write to
+     * @param member the member to write
+     */
+    private static void writeMember(RecordBuffer record, Member member) {
+        record.writeString(member.getUsername());
+        record.writeByte((byte) (member.hasAdminRights() ? 1 : 0));
+    }
+
+    /**
+     * Reads a member written by writeMember.
+     *
+     * @param payload the payload to read from
+     * @return the member
+     */
+    private static Member readMember(ByteBuffer payload) {
+        String username = VarintBuffer.readString(payload);
+        return new Member(username, payload.get() != 0);
+    }
+
+    /**
+     * Fills a buffer from the channel starting at the specified position.
+     *
+     * @param channel  the channel to read from
+     * @param buffer   the buffer to fill
+     * @param position the file position to read from
+     * @throws IOException if the channel cannot be read or ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of library journal");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * A buffer of encoded records, each preceded by its length and checksum.
+     */
+    private static class RecordBuffer extends VarintBuffer {
+        private int recordStart;
+
+        /**
+         * Constructs an empty RecordBuffer.
+         */
+        RecordBuffer() {
+            super(4096);
+        }
+
+        /**
+         * Starts a record, leaving room for its length and checksum.
+         */
+        void beginRecord() {
+            recordStart = size();
+            writeFixedInt(0);
+            writeFixedInt(0);
+        }
+
+        /**
+         * Fills in the length and checksum of the record started by beginRecord.
+         */
+        void endRecord() {
+            int payloadStart = recordStart + RECORD_HEADER_SIZE;
+            int length = size() - payloadStart;
+            setFixedInt(recordStart, length);
+            setFixedInt(recordStart + 4, checksum(payloadStart, length));
+        }
+    }
+}
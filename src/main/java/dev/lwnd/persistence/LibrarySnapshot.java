@@ -0,0 +1,476 @@
+package dev.lwnd.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.member.Member;
+import dev.lwnd.other.ObjectDescription;
+import dev.lwnd.other.Pair;
+
+/**
+ * The LibrarySnapshot class holds the books, members and borrowers of a library as read from
+ * or written to a binary snapshot file.
+ *
+ * <p>A snapshot starts with a fixed-size header holding a magic number, the format version,
+ * the offset of every section and the sequence number of the last journal record the snapshot
+ * contains. It is followed by four sections:
+ * <ul>
+ *     <li>the string table, holding every distinct title, author and username once,</li>
+ *     <li>the books, as book ids, string ids and publication epoch days,</li>
+ *     <li>the members, as string ids and admin flags,</li>
+ *     <li>the borrowers, as references to members and books of the previous sections.</li>
+ * </ul>
+ * All numbers in the sections are unsigned LEB128 varints; publication days are stored as the
+ * zigzag-encoded difference to the previous book, so books written in date order take a single byte.
+ * Sections are read through memory-mapped views of the file, so loading a snapshot decodes bytes
+ * straight from the page cache.
+ */
+@ObjectDescription(description = "Represents a binary snapshot of a library.")
+public class LibrarySnapshot {
+    /**
+     * The conventional name of a snapshot file.
+     */
+    public static final String DEFAULT_FILE_NAME = "library.snapshot";
+
+    private static final int MAGIC = 0x4C574E44;
+    private static final int VERSION = 3;
+    private static final int SECTION_COUNT = 4;
+    private static final int HEADER_SIZE = 8 + 8 * (SECTION_COUNT + 1) + 8;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final List<Book> books;
+    private final List<Member> members;
+    private final List<Pair<Member, List<Book>>> borrowers;
+    private final long journalLsn;
+
+    /**
+     * Constructs a LibrarySnapshot with the specified contents.
+     *
+     * @param books      the books of the library
+     * @param members    the members of the library
+     * @param borrowers  the borrowers of the library with the books they borrowed
+     * @param journalLsn the sequence number of the last journal record the contents include
+     */
+    public LibrarySnapshot(List<Book> books, List<Member> members, List<Pair<Member, List<Book>>> borrowers, long journalLsn) {
+        this.books = books;
+        this.members = members;
+        this.borrowers = borrowers;
+        this.journalLsn = journalLsn;
+    }
+
+    /**
+     * Creates a snapshot of the current contents of a library.
+     * The borrowers are copied, so the snapshot is not affected by later loans and returns.
+     *
+     * @param library the library to take the snapshot of
+     * @return the snapshot of the library
+     */
+    public static LibrarySnapshot of(Library library) {
+        List<Pair<Member, List<Book>>> borrowers = new ArrayList<>();
+        for (Pair<Member, List<Book>> borrower : library.getBorrowerCatalogue().getBorrowerList()) {
+            borrowers.add(new Pair<>(borrower.getFirst(), new ArrayList<>(borrower.getSecond())));
+        }
+
+        return new LibrarySnapshot(
+                library.getBookCollection().getAllBooks(),
+                library.getMemberCollection().getAllMembers(),
+                borrowers,
+                library.getJournalLsn());
+    }
+
+    /**
+     * Returns the books of the snapshot.
+     * The contents of a checkpoint list the slots of the book collection, with null for an empty slot.
+     *
+     * @return the books of the snapshot
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Returns the members of the snapshot.
+     *
+     * @return the members of the snapshot
+     */
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * Returns the borrowers of the snapshot with the books they borrowed.
+     * Borrowers and books that are part of the snapshot are the same objects as in getMembers and getBooks.
+     *
+     * @return the borrowers of the snapshot
+     */
+    public List<Pair<Member, List<Book>>> getBorrowers() {
+        return borrowers;
+    }
+
+    /**
+     * Returns the sequence number of the last journal record included in the snapshot.
+     * Journal records up to this number must not be replayed on top of the snapshot.
+     *
+     * @return the journal sequence number
+     */
+    public long getJournalLsn() {
+        return journalLsn;
+    }
+
+    /**
+     * Writes the snapshot to a file.
+     * The snapshot is written to a temporary file next to the target, which then replaces the target,
+     * so an interrupted write never leaves a partial snapshot behind.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Book book : books) {
+            internString(book.getTitle(), stringIds, strings);
+            internString(book.getAuthor(), stringIds, strings);
+        }
+        for (Member member : members) {
+            internString(member.getUsername(), stringIds, strings);
+        }
+        for (Pair<Member, List<Book>> borrower : borrowers) {
+            internString(borrower.getFirst().getUsername(), stringIds, strings);
+            for (Book book : borrower.getSecond()) {
+                internString(book.getTitle(), stringIds, strings);
+                internString(book.getAuthor(), stringIds, strings);
+            }
+        }
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SectionWriter writer = new SectionWriter(channel, HEADER_SIZE);
+            long[] offsets = new long[SECTION_COUNT + 1];
+
+            offsets[0] = writer.position();
+            writer.writeVarint(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writer.writeVarint(bytes.length);
+                writer.writeBytes(bytes);
+            }
+
+            offsets[1] = writer.position();
+            Map<Book, Integer> bookIndexes = new IdentityHashMap<>(books.size() * 2);
+            writer.writeVarint(books.size());
+            long previousDay = 0;
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                bookIndexes.putIfAbsent(book, i);
+                previousDay = writeBook(writer, book, previousDay, stringIds);
+            }
+
+            offsets[2] = writer.position();
+            Map<Member, Integer> memberIndexes = new IdentityHashMap<>(members.size() * 2);
+            writer.writeVarint(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                Member member = members.get(i);
+                memberIndexes.putIfAbsent(member, i);
+                writeMember(writer, member, stringIds);
+            }
+
+            offsets[3] = writer.position();
+            writer.writeVarint(borrowers.size());
+            for (Pair<Member, List<Book>> borrower : borrowers) {
+                Integer memberIndex = memberIndexes.get(borrower.getFirst());
+                writer.writeVarint(memberIndex == null ? 0 : memberIndex + 1L);
+                if (memberIndex == null) {
+                    writeMember(writer, borrower.getFirst(), stringIds);
+                }
+
+                writer.writeVarint(borrower.getSecond().size());
+                for (Book book : borrower.getSecond()) {
+                    Integer bookIndex = bookIndexes.get(book);
+                    writer.writeVarint(bookIndex == null ? 0 : bookIndex + 1L);
+                    if (bookIndex == null) {
+                        writeBook(writer, book, 0, stringIds);
+                    }
+                }
+            }
+
+            offsets[4] = writer.position();
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            header.putLong(journalLsn);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     *
+     * @param file the file to read from
+     * @return the snapshot held by the file
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static LibrarySnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a library snapshot: " + file);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a library snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported library snapshot version " + version);
+            }
+            long[] offsets = new long[SECTION_COUNT + 1];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = header.getLong();
+                if (offsets[i] < HEADER_SIZE || offsets[i] > channel.size() || (i > 0 && offsets[i] < offsets[i - 1])) {
+                    throw new IOException("Corrupt library snapshot header");
+                }
+            }
+            long journalLsn = header.getLong();
+
+            try {
+                ByteBuffer section = mapSection(channel, offsets, 0);
+                String[] strings = new String[VarintBuffer.readCount(section)];
+                byte[] scratch = new byte[256];
+                for (int i = 0; i < strings.length; i++) {
+                    int length = VarintBuffer.readCount(section);
+                    if (length > scratch.length) {
+                        scratch = new byte[Math.max(length, scratch.length * 2)];
+                    }
+                    section.get(scratch, 0, length);
+                    strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+
+                section = mapSection(channel, offsets, 1);
+                int bookCount = VarintBuffer.readCount(section);
+                List<Book> books = new ArrayList<>(bookCount);
+                long previousDay = 0;
+                for (int i = 0; i < bookCount; i++) {
+                    Book book = readBook(section, previousDay, strings);
+                    previousDay = book.getPublicationEpochDay();
+                    books.add(book);
+                }
+
+                section = mapSection(channel, offsets, 2);
+                int memberCount = VarintBuffer.readCount(section);
+                List<Member> members = new ArrayList<>(memberCount);
+                for (int i = 0; i < memberCount; i++) {
+                    members.add(readMember(section, strings));
+                }
+
+                section = mapSection(channel, offsets, 3);
+                int borrowerCount = VarintBuffer.readCount(section);
+                List<Pair<Member, List<Book>>> borrowers = new ArrayList<>(borrowerCount);
+                for (int i = 0; i < borrowerCount; i++) {
+                    int memberReference = VarintBuffer.readCount(section);
+                    Member member = memberReference == 0 ? readMember(section, strings) : members.get(memberReference - 1);
+
+                    int borrowedCount = VarintBuffer.readCount(section);
+                    List<Book> borrowed = new ArrayList<>(borrowedCount);
+                    for (int j = 0; j < borrowedCount; j++) {
+                        int bookReference = VarintBuffer.readCount(section);
+                        borrowed.add(bookReference == 0 ? readBook(section, 0, strings) : books.get(bookReference - 1));
+                    }
+                    borrowers.add(new Pair<>(member, borrowed));
+                }
+
+                return new LibrarySnapshot(books, members, borrowers, journalLsn);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt library snapshot: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Writes a book as its id, its title and author string ids and its zigzag-encoded day delta.
+     *
+     * @param writer      the writer of the section
+     * @param book        the book to write
+     * @param previousDay the publication epoch day the delta is taken from
+     * @param stringIds   the ids of the string table
+     * @return the publication epoch day of the book
+     * @throws IOException if the section cannot be written
+     */
+    private static long writeBook(SectionWriter writer, Book book, long previousDay, Map<String, Integer> stringIds) throws IOException {
+        long day = book.getPublicationEpochDay();
+        long delta = day - previousDay;
+        writer.writeVarint(book.getId());
+        writer.writeVarint(stringIds.get(book.getTitle()));
+        writer.writeVarint(stringIds.get(book.getAuthor()));
+        writer.writeVarint((delta << 1) ^ (delta >> 63));
+        return day;
+    }
+
+    /**
+     * Reads a book written by writeBook.
+     *
+     * @param section     the section to read from
+     * @param previousDay the publication epoch day the delta is taken from
+     * @param strings     the string table
+     * @return the book
+     */
+    private static Book readBook(ByteBuffer section, long previousDay, String[] strings) {
+        long id = VarintBuffer.readVarint(section);
+        String title = strings[VarintBuffer.readCount(section)];
+        String author = strings[VarintBuffer.readCount(section)];
+        long day = previousDay + VarintBuffer.readSignedVarint(section);
+        return new Book(id, title, author, day);
+    }
+
+    /**
+     * Writes a member as its username string id shifted left by one, with the admin flag in the lowest bit.
+     *
+     * @param writer    the writer of the section
+     * @param member    the member to write
+     * @param stringIds the ids of the string table
+     * @throws IOException if the section cannot be written
+     */
+    private static void writeMember(SectionWriter writer, Member member, Map<String, Integer> stringIds) throws IOException {
+        writer.writeVarint(((long) stringIds.get(member.getUsername()) << 1) | (member.hasAdminRights() ? 1 : 0));
+    }
+
+    /**
+     * Reads a member written by writeMember.
+     *
+     * @param section the section to read from
+     * @param strings the string table
+     * @return the member
+     */
+    private static Member readMember(ByteBuffer section, String[] strings) {
+        long value = VarintBuffer.readVarint(section);
+        return new Member(strings[Math.toIntExact(value >>> 1)], (value & 1) != 0);
+    }
+
+    /**
+     * Adds a string to the string table if it is not in it yet.
+     *
+     * @param string    the string to add
+     * @param stringIds the ids of the strings already in the table
+     * @param strings   the strings of the table in id order
+     */
+    private static void internString(String string, Map<String, Integer> stringIds, List<String> strings) {
+        if (stringIds.putIfAbsent(string, strings.size()) == null) {
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Maps one section of the snapshot into memory.
+     *
+     * @param channel the channel of the snapshot file
+     * @param offsets the section offsets of the header
+     * @param section the number of the section
+     * @return the mapped section
+     * @throws IOException if the section cannot be mapped
+     */
+    private static ByteBuffer mapSection(FileChannel channel, long[] offsets, int section) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offsets[section], offsets[section + 1] - offsets[section]);
+    }
+
+    /**
+     * Writes the sections of a snapshot through a buffer, keeping track of the file position.
+     */
+    private static class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long position;
+
+        /**
+         * Constructs a SectionWriter that starts writing at the specified position of the channel.
+         *
+         * @param channel  the channel to write to
+         * @param position the position of the first section
+         */
+        SectionWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        /**
+         * Returns the file position of the next byte to be written.
+         *
+         * @return the position
+         */
+        long position() {
+            return position + buffer.position();
+        }
+
+        /**
+         * Writes an unsigned LEB128 varint.
+         *
+         * @param value the value to write
+         * @throws IOException if the buffer cannot be flushed
+         */
+        void writeVarint(long value) throws IOException {
+            if (buffer.remaining() < 10) {
+                flush();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes a run of bytes.
+         *
+         * @param bytes the bytes to write
+         * @throws IOException if the buffer cannot be flushed
+         */
+        void writeBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the channel.
+         *
+         * @throws IOException if the channel cannot be written
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
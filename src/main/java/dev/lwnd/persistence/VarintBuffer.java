@@ -0,0 +1,201 @@
+package dev.lwnd.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A growable byte buffer for the binary persistence formats, together with the matching readers.
+ * Numbers are written as unsigned LEB128 varints, signed numbers zigzag-encoded first, and strings
+ * as their UTF-8 length followed by their UTF-8 bytes.
+ */
+class VarintBuffer {
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Constructs an empty VarintBuffer with the specified initial capacity.
+     *
+     * @param capacity the initial capacity in bytes
+     */
+    VarintBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the size of the buffer
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the written bytes as a buffer ready to be read or written to a channel.
+     *
+     * @return a buffer wrapping the written bytes
+     */
+    ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    /**
+     * Empties the buffer.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b the byte to write
+     */
+    void writeByte(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    /**
+     * Writes a fixed-size big-endian int.
+     *
+     * @param value the value to write
+     */
+    void writeFixedInt(int value) {
+        ensureCapacity(4);
+        size += 4;
+        setFixedInt(size - 4, value);
+    }
+
+    /**
+     * Overwrites a fixed-size big-endian int written earlier.
+     *
+     * @param position the position of the int
+     * @param value    the value to write
+     */
+    void setFixedInt(int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     *
+     * @param value the value to write
+     */
+    void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a signed value as a zigzag-encoded varint, so that small negative values stay short.
+     *
+     * @param value the value to write
+     */
+    void writeSignedVarint(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param string the string to write
+     */
+    void writeString(String string) {
+        byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(encoded.length);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    /**
+     * Returns the CRC-32 of a range of the written bytes.
+     *
+     * @param from   the start of the range
+     * @param length the length of the range
+     * @return the checksum
+     */
+    int checksum(int from, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws IllegalStateException if the varint is longer than ten bytes
+     */
+    static long readVarint(ByteBuffer buffer) throws IllegalStateException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Reads a zigzag-encoded signed varint.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     */
+    static long readSignedVarint(ByteBuffer buffer) {
+        long zigzag = readVarint(buffer);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Reads a varint that holds a count, an index or a length.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws IllegalStateException if the value does not fit in an int
+     */
+    static int readCount(ByteBuffer buffer) throws IllegalStateException {
+        long value = readVarint(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Count out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     */
+    static String readString(ByteBuffer buffer) {
+        byte[] encoded = new byte[readCount(buffer)];
+        buffer.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Grows the buffer to hold the given number of additional bytes.
+     *
+     * @param additional the number of bytes about to be written
+     */
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + additional, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.lwnd.util;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * The DateUtil class provides utility methods for converting between dates and epoch days.
+ * Epoch days count the days since 1970-01-01 in the system time zone.
+ */
+public class DateUtil {
+
+    /**
+     * Converts a date to the number of days since the epoch.
+     *
+     * @param date the date to convert
+     * @return the epoch day of the date
+     */
+    public static long toEpochDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Converts a number of days since the epoch to a date at the start of that day.
+     *
+     * @param epochDay the epoch day to convert
+     * @return the date of the epoch day
+     */
+    public static Date toDate(long epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,34 @@
+package dev.lwnd.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * The TextUtil class provides utility methods for preparing text for searching.
+ */
+public class TextUtil {
+
+    /**
+     * Folds the text into a search key.
+     * The text is decomposed into Unicode NFD form, combining accent marks are stripped
+     * and the remaining characters are lowercased, so "Húrin" and "HURIN" both fold to "hurin".
+     *
+     * @param text the text to fold
+     * @return the folded search key
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char ch = decomposed.charAt(i);
+            int type = Character.getType(ch);
+            if (type != Character.NON_SPACING_MARK
+                    && type != Character.ENCLOSING_MARK
+                    && type != Character.COMBINING_SPACING_MARK) {
+                folded.append(ch);
+            }
+        }
+
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package dev.lwnd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookSortOrder;
+import dev.lwnd.book.BookStorage;
+
+class LibraryOptionsTest {
+    @Test
+    void libraryKeepsItsBooksInTheSelectedStorage() {
+        Library heap = new Library();
+        Library offHeap = new Library(new LibraryOptions().setBookStorage(BookStorage.OFF_HEAP));
+
+        assertEquals(BookStorage.HEAP, heap.getBookCollection().getStorage());
+        assertEquals(BookStorage.OFF_HEAP, offHeap.getBookCollection().getStorage());
+        assertEquals(titles(heap.getBookCollection().getBooks(BookSortOrder.TITLE, 0, 100)),
+                titles(offHeap.getBookCollection().getBooks(BookSortOrder.TITLE, 0, 100)));
+    }
+
+    @Test
+    void snapshotIsLoadedIntoTheSelectedStorage(@TempDir Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("library.snapshot");
+        Library saved = new Library();
+        saved.saveSnapshot(snapshotFile);
+
+        Library loaded = Library.fromSnapshot(snapshotFile, new LibraryOptions().setBookStorage(BookStorage.COLUMNAR));
+
+        assertEquals(BookStorage.COLUMNAR, loaded.getBookCollection().getStorage());
+        assertEquals(titles(saved.getBookCollection().getAllBooks()), titles(loaded.getBookCollection().getAllBooks()));
+    }
+
+    @Test
+    void caseInsensitiveUsernamesReachTheMemberCollection(@TempDir Path directory) throws IOException {
+        LibraryOptions options = new LibraryOptions().setCaseInsensitiveUsernames(true);
+        Library library = new Library(options);
+        Path snapshotFile = directory.resolve("library.snapshot");
+        library.saveSnapshot(snapshotFile);
+
+        assertTrue(library.getMemberCollection().hasMember("ADMIN"));
+        assertTrue(Library.fromSnapshot(snapshotFile, options).getMemberCollection().hasMember("Admin"));
+        assertFalse(new Library().getMemberCollection().hasMember("ADMIN"));
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,79 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class AuthorDictionaryTest {
+    @Test
+    void interleavedAddsAndComparisonsFollowTheNameOrder() {
+        AuthorDictionary dictionary = new AuthorDictionary();
+        Random random = new Random(8);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Book book = new Book("Title", "Author " + random.nextInt(200), i);
+            dictionary.add(book);
+            books.add(book);
+
+            Book other = books.get(random.nextInt(books.size()));
+            assertEquals(Integer.signum(book.getAuthor().compareTo(other.getAuthor())),
+                    Integer.signum(dictionary.compare(book, other)));
+        }
+    }
+
+    @Test
+    void comparingDoesNotRebuildTheRanks() {
+        AuthorDictionary dictionary = new AuthorDictionary();
+        for (String author : List.of("Dickens", "Austen", "Brontë", "Eliot")) {
+            dictionary.intern(author);
+        }
+        Book late = new Book("Title", "Carroll", 0);
+        dictionary.add(late);
+        Book early = new Book("Title", "Austen", 0);
+        dictionary.add(early);
+
+        assertTrue(dictionary.compare(early, late) < 0);
+        assertEquals(-1, dictionary.getRank(dictionary.getId("Carroll")));
+
+        dictionary.rankAll();
+        assertEquals(2, dictionary.getRank(dictionary.getId("Carroll")));
+        assertEquals(0, dictionary.getRank(dictionary.getId("Austen")));
+    }
+
+    @Test
+    void booksShareTheCanonicalNameAndAreListedByAuthor() {
+        AuthorDictionary dictionary = new AuthorDictionary();
+        Book emma = new Book("Emma", new String("Jane Austen"), 0);
+        Book persuasion = new Book("Persuasion", new String("Jane Austen"), 0);
+        dictionary.add(emma);
+        dictionary.add(persuasion);
+
+        assertSame(emma.getAuthor(), persuasion.getAuthor());
+        assertEquals(List.of(emma, persuasion), dictionary.getBooks("Jane Austen"));
+
+        dictionary.remove(emma);
+        assertEquals(List.of(persuasion), dictionary.getBooks("Jane Austen"));
+        assertEquals(List.of(), dictionary.getBooks("Walter Scott"));
+    }
+
+    @Test
+    void authorViewStaysSortedWhileNewAuthorsArrive() {
+        BookCollection books = new BookCollection(new Library());
+        Random random = new Random(80);
+        for (int i = 0; i < 300; i++) {
+            books.addBook(new Book("Title " + i, "Author " + random.nextInt(1000), i));
+            List<Book> sorted = books.getBooks(BookSortOrder.AUTHOR, 0, books.size());
+            for (int j = 1; j < sorted.size(); j++) {
+                assertTrue(sorted.get(j - 1).getAuthor().compareTo(sorted.get(j).getAuthor()) <= 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BookCollationTest {
+
+    @Test
+    void keysOrderBooksLikeTheCollator() {
+        Random random = new Random(5);
+        String letters = "aAäÄeéÉoöÖsßzZ ";
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int j = 0; j < 1 + random.nextInt(6); j++) {
+                title.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            books.add(new Book(title.toString(), title.reverse().toString(), 0));
+        }
+
+        Collator collator = Collator.getInstance(Locale.GERMAN);
+        BookCollation collation = BookCollation.forLocale(Locale.GERMAN);
+        assertSameOrder(books, collation.titleComparator(), (book1, book2) -> collator.compare(book1.getTitle(), book2.getTitle()));
+        assertSameOrder(books, collation.authorComparator(), (book1, book2) -> collator.compare(book1.getAuthor(), book2.getAuthor()));
+    }
+
+    @Test
+    void changedFieldsAreSortedByTheirNewKeys() {
+        Comparator<Book> byTitle = BookSortOrder.TITLE.comparator(Locale.ENGLISH);
+        Comparator<Book> byAuthor = BookSortOrder.AUTHOR.comparator(Locale.ENGLISH);
+        Book first = new Book("Apple", "Zola", 0);
+        Book second = new Book("Banana", "Austen", 0);
+        assertEquals(-1, Integer.signum(byTitle.compare(first, second)));
+        assertEquals(1, Integer.signum(byAuthor.compare(first, second)));
+
+        first.setTitle("Cherry");
+        first.setAuthor("Ábel");
+        assertEquals(1, Integer.signum(byTitle.compare(first, second)));
+        assertEquals(-1, Integer.signum(byAuthor.compare(first, second)));
+    }
+
+    @Test
+    void keysFollowTheLocaleOfTheSort() {
+        Book ae = new Book("Ärger", "Author", 0);
+        Book z = new Book("Zorn", "Author", 0);
+        Comparator<Book> german = BookSortOrder.TITLE.comparator(Locale.GERMAN);
+        Comparator<Book> swedish = BookSortOrder.TITLE.comparator(Locale.forLanguageTag("sv"));
+
+        assertEquals(-1, Integer.signum(german.compare(ae, z)));
+        assertEquals(1, Integer.signum(swedish.compare(ae, z)));
+        assertEquals(-1, Integer.signum(german.compare(ae, z)));
+        assertSame(BookCollation.forLocale(Locale.GERMAN), BookCollation.forLocale(Locale.GERMAN));
+    }
+
+    /**
+     * Asserts that two comparators sort a list of books into the same order of keys.
+     */
+    private static void assertSameOrder(List<Book> books, Comparator<Book> actual, Comparator<Book> expected) {
+        List<Book> sortedByActual = new ArrayList<>(books);
+        sortedByActual.sort(actual);
+        for (int i = 1; i < sortedByActual.size(); i++) {
+            assertTrue(expected.compare(sortedByActual.get(i - 1), sortedByActual.get(i)) <= 0,
+                    sortedByActual.get(i - 1).getTitle() + " / " + sortedByActual.get(i).getTitle());
+        }
+    }
+}
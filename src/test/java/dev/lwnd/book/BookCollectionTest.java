@@ -0,0 +1,198 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+import dev.lwnd.util.TextUtil;
+
+class BookCollectionTest {
+    private static final String HURIN = "The Children of Húrin";
+
+    @Test
+    void titleIndexKeepsEveryCopyOfADuplicateTitle() {
+        BookCollection books = new Library().getBookCollection();
+
+        List<Book> copies = books.getBooks(HURIN);
+        assertEquals(2, copies.size());
+        assertNotEquals(copies.get(0).getId(), copies.get(1).getId());
+        assertEquals(scanTitle(books, HURIN), copies);
+        assertEquals(copies.get(0), books.getBook(HURIN));
+        assertFalse(books.hasBook("The Children of Hurin"));
+
+        books.removeBook(copies.get(0));
+        assertEquals(List.of(copies.get(1)), books.getBooks(HURIN));
+        assertEquals(copies.get(1), books.getBook(HURIN));
+
+        books.addBook(copies.get(0));
+        assertEquals(List.of(copies.get(1), copies.get(0)), books.getBooks(HURIN));
+
+        books.updateBook(copies.get(1), new Book("Unfinished Tales", "J. R. R. Tolkien", 0));
+        assertEquals(List.of(copies.get(0)), books.getBooks(HURIN));
+        assertEquals(copies.get(1).getId(), books.getBook("Unfinished Tales").getId());
+
+        books.updateBook(books.indexOf(copies.get(0)), new Book("Unfinished Tales", "J. R. R. Tolkien", 0));
+        assertFalse(books.hasBook(HURIN));
+        assertEquals(List.of(), books.getBooks(HURIN));
+        assertThrows(BookNotFoundException.class, () -> books.getBook(HURIN));
+        assertEquals(2, books.getBooks("Unfinished Tales").size());
+        assertEquals(scanTitle(books, "Unfinished Tales"), books.getBooks("Unfinished Tales"));
+    }
+
+    @Test
+    void titleIndexCoversBooksAddedInBulk() {
+        BookCollection books = new BookCollection(new Library());
+        Book first = new Book(HURIN, "J. R. R. Tolkien", 0);
+        Book second = new Book(HURIN, "J. R. R. Tolkien", 0);
+        books.addBooks(List.of(first, new Book("The Hobbit", "J. R. R. Tolkien", 0), second));
+
+        assertTrue(books.hasBook(HURIN));
+        assertEquals(List.of(first, second), books.getBooks(HURIN));
+        books.removeBook(first);
+        books.removeBook(second);
+        assertFalse(books.hasBook(HURIN));
+    }
+
+    @Test
+    void trigramSearchMatchesAContainsScan() {
+        BookCollection books = new BookCollection(new Library());
+        Random random = new Random(42);
+        List<Book> added = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Book book = new Book(randomText(random, 4 + random.nextInt(12)), "Author", i);
+            books.addBook(book);
+            added.add(book);
+        }
+        for (int i = 0; i < added.size(); i += 3) {
+            books.removeBook(added.get(i));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            String query = randomText(random, 1 + random.nextInt(6));
+            assertEquals(byId(scanContains(books, query)), byId(books.filterBooksByTitle(query)), query);
+        }
+        for (Book book : books.getAllBooks().subList(0, 50)) {
+            String title = book.getTitle();
+            String query = title.substring(1, title.length() - 1).toUpperCase();
+            assertEquals(byId(scanContains(books, query)), byId(books.filterBooksByTitle(query)), query);
+        }
+    }
+
+    @Test
+    void trigramSearchFoldsCaseAndAccents() {
+        BookCollection books = new Library().getBookCollection();
+
+        assertEquals(books.getBooks(HURIN), books.filterBooksByTitle("HURIN"));
+        assertEquals(books.getBooks(HURIN), books.filterBooksByTitle("ren of hú"));
+        assertEquals(List.of(), books.filterBooksByTitle("hurinx"));
+    }
+
+    @Test
+    void bulkOperationsAgreeOnBothSidesOfTheParallelThreshold() {
+        BookCollection books = new BookCollection(new Library());
+        List<Book> added = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Book book = new Book("Title " + (i * 7_919 % 5_000), "Author " + (i % 37), i % 400);
+            books.addBook(book);
+            added.add(book);
+        }
+        for (int i = 0; i < added.size(); i += 11) {
+            books.removeBook(added.get(i));
+        }
+        List<Book> all = books.getAllBooks();
+        List<Book> expected = all.stream().filter(book -> book.getPublicationEpochDay() % 3 == 0).toList();
+        Comparator<Book> byTitle = new BookTitleComparator();
+
+        for (int threshold : new int[] {all.size() + 1, all.size(), 0}) {
+            books.setParallelThreshold(threshold);
+            assertEquals(threshold <= all.size(), books.stream().isParallel());
+
+            assertEquals(expected, books.query(book -> book.getPublicationEpochDay() % 3 == 0));
+            assertEquals(expected.size(), books.count(book -> book.getPublicationEpochDay() % 3 == 0));
+            assertEquals(expected.stream().sorted(byTitle).toList(),
+                    books.query(book -> book.getPublicationEpochDay() % 3 == 0, byTitle));
+            assertEquals(all.stream().sorted(byTitle).toList(), books.sorted(byTitle));
+            assertEquals(all.stream().map(Book::getTitle).toList(), books.map(Book::getTitle));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> books.setParallelThreshold(-1));
+    }
+
+    @Test
+    void parallelStreamIsNotAffectedByLaterChanges() {
+        BookCollection books = new BookCollection(new Library(), true);
+        for (int i = 0; i < 1_000; i++) {
+            books.addBook(new Book("Title " + i, "Author", i));
+        }
+        books.setParallelThreshold(0);
+
+        List<Book> streamed = books.stream().peek(book -> {
+            if (book.getPublicationEpochDay() % 100 == 0) {
+                books.addBook(new Book("Added", "Author", 0));
+            }
+        }).toList();
+
+        assertEquals(1_000, streamed.size());
+        assertEquals(List.of(), streamed.stream().filter(book -> book.getTitle().equals("Added")).toList());
+        assertEquals(1_010, books.size());
+    }
+
+    /**
+     * Returns random text over a small alphabet, so that trigrams repeat across titles.
+     *
+     * @param random the source of randomness
+     * @param length the length of the text
+     * @return the text
+     */
+    private static String randomText(Random random, int length) {
+        String alphabet = "abcé ";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the books of the collection whose folded titles contain the folded query by scanning every book.
+     *
+     * @param books the collection to scan
+     * @param query the substring to look for
+     * @return the matching books
+     */
+    private static List<Book> scanContains(BookCollection books, String query) {
+        String key = TextUtil.fold(query);
+        return books.getAllBooks().stream().filter(book -> TextUtil.fold(book.getTitle()).contains(key)).toList();
+    }
+
+    /**
+     * Returns the books ordered by id, so that results found in different orders can be compared.
+     *
+     * @param books the books to order
+     * @return the books ordered by id
+     */
+    private static List<Book> byId(List<Book> books) {
+        return books.stream().sorted(Comparator.comparingLong(Book::getId)).toList();
+    }
+
+    /**
+     * Returns the books of the collection with exactly the given title by scanning every book.
+     *
+     * @param books the collection to scan
+     * @param title the title to look for
+     * @return the books with the title, in collection order
+     */
+    private static List<Book> scanTitle(BookCollection books, String title) {
+        return books.getAllBooks().stream().filter(book -> book.getTitle().equals(title)).toList();
+    }
+}
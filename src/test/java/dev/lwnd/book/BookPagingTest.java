@@ -0,0 +1,69 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class BookPagingTest {
+
+    @Test
+    void pagesCoverTheCollectionAroundRemovedBooks() {
+        BookCollection books = new BookCollection(new Library());
+        List<Book> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Book book = new Book("Title " + (50 - i), "Author", i);
+            books.addBook(book);
+            expected.add(book);
+        }
+        for (int i = 0; i < 50; i += 7) {
+            books.removeBook(expected.get(i));
+        }
+        expected.removeIf(book -> !books.hasBook(book));
+
+        List<Book> paged = new ArrayList<>();
+        for (int from = 0; from < books.size(); from += 6) {
+            List<Book> page = books.getBooks(from, 6);
+            assertEquals(Math.min(6, books.size() - from), page.size());
+            paged.addAll(page);
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void orderedPagesMatchTheSortedLists() {
+        BookCollection books = new BookCollection(new Library());
+        for (int i = 0; i < 30; i++) {
+            books.addBook(new Book("Title " + (i * 7 % 30), "Author " + (i % 4), i % 5));
+        }
+
+        for (BookSortOrder order : BookSortOrder.values()) {
+            List<Book> sorted = switch (order) {
+                case TITLE -> books.getBooksSortedByTitle();
+                case AUTHOR -> books.getBooksSortedByAuthor();
+                case PUBLICATION_DATE -> books.getBooksSortedByPublicationDate();
+            };
+            assertEquals(sorted.subList(10, 20), books.getBooks(order, 10, 10));
+            assertEquals(sorted.subList(25, 30), books.getBooks(order, 25, 10));
+        }
+    }
+
+    @Test
+    void windowBoundsAreChecked() {
+        BookCollection books = new BookCollection(new Library());
+        books.addBook(new Book("Dune", "Frank Herbert", 0));
+
+        assertEquals(List.of(), books.getBooks(1, 10));
+        assertEquals(List.of(), books.getBooks(0, 0));
+        assertEquals(List.of(), books.getBooks(BookSortOrder.TITLE, 1, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> books.getBooks(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> books.getBooks(-1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> books.getBooks(0, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> books.getBooks(BookSortOrder.AUTHOR, 2, 1));
+    }
+}
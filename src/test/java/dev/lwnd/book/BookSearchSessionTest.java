@@ -0,0 +1,145 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+import dev.lwnd.util.TextUtil;
+
+class BookSearchSessionTest {
+
+    @Test
+    void appendingNarrowsLikeAFullScan() {
+        List<Book> books = new Library().getBookCollection().getAllBooks();
+        BookSearchSession session = new BookSearchSession(books);
+        assertSame(books, session.getResults());
+
+        for (char ch : "THE CHILDREN OF HU".toCharArray()) {
+            session.append(ch);
+            assertEquals(scan(books, session.getQuery()), session.getResults(), session.getQuery());
+        }
+        assertEquals(2, session.getResults().size());
+    }
+
+    @Test
+    void backspaceRestoresTheCachedResults() {
+        List<Book> books = new Library().getBookCollection().getAllBooks();
+        AtomicInteger indexedSearches = new AtomicInteger();
+        BookSearchSession session = new BookSearchSession(books, query -> {
+            indexedSearches.incrementAndGet();
+            return scan(books, query);
+        }, null, null);
+
+        List<List<Book>> typed = new ArrayList<>();
+        for (char ch : "lost".toCharArray()) {
+            session.append(ch);
+            typed.add(session.getResults());
+        }
+        assertEquals(1, indexedSearches.get());
+        assertEquals(scan(books, "lost"), session.getResults());
+
+        session.backspace();
+        assertEquals("los", session.getQuery());
+        assertSame(typed.get(2), session.getResults());
+        session.backspace();
+        assertEquals("lo", session.getQuery());
+        assertSame(typed.get(1), session.getResults());
+        assertEquals(1, indexedSearches.get());
+
+        session.append('r');
+        assertEquals(2, indexedSearches.get());
+        assertEquals(scan(books, "lor"), session.getResults());
+
+        for (int i = 0; i < 5; i++) {
+            session.backspace();
+        }
+        assertEquals("", session.getQuery());
+        assertSame(books, session.getResults());
+    }
+
+    @Test
+    void sessionOfACollectionMatchesAScanAcrossTheIndexSwitch() {
+        BookCollection collection = new Library().getBookCollection();
+        List<Book> books = collection.getAllBooks();
+        BookSearchSession session = collection.newSearchSession();
+
+        for (char ch : "the h".toCharArray()) {
+            session.append(ch);
+            assertEquals(scan(books, session.getQuery()), session.getResults(), session.getQuery());
+        }
+        for (int i = 0; i < 3; i++) {
+            session.backspace();
+            assertEquals(scan(books, session.getQuery()), session.getResults(), session.getQuery());
+        }
+    }
+
+    @Test
+    void completeTypesTheMostLikelyTitle() {
+        List<Book> books = new Library().getBookCollection().getAllBooks();
+        BookSearchSession session = new BookSearchSession(books, null, null,
+                query -> TextUtil.fold("The Hobbit").startsWith(TextUtil.fold(query)) ? List.of("The Hobbit") : List.of());
+
+        assertNull(session.getCompletion());
+        session.complete();
+        assertEquals("", session.getQuery());
+
+        session.append('t');
+        session.append('h');
+        assertEquals("The Hobbit", session.getCompletion());
+        session.complete();
+        assertEquals("The Hobbit", session.getQuery());
+        assertEquals(scan(books, "The Hobbit"), session.getResults());
+
+        session.backspace();
+        assertEquals(scan(books, "The Hobbi"), session.getResults());
+
+        session.reset();
+        session.append('x');
+        session.complete();
+        assertEquals("x", session.getQuery());
+    }
+
+    @Test
+    void fuzzyResultsAreKeptUntilTheQueryChanges() {
+        List<Book> books = new Library().getBookCollection().getAllBooks();
+        AtomicInteger fuzzySearches = new AtomicInteger();
+        BookSearchSession session = new BookSearchSession(books, null, query -> {
+            fuzzySearches.incrementAndGet();
+            return List.of(books.get(query.length()));
+        }, null);
+
+        session.append('h');
+        List<Book> fuzzy = session.getFuzzyResults();
+        assertSame(fuzzy, session.getFuzzyResults());
+        assertEquals(1, fuzzySearches.get());
+
+        session.append('o');
+        assertEquals(List.of(books.get(2)), session.getFuzzyResults());
+        assertEquals(2, fuzzySearches.get());
+
+        session.backspace();
+        assertEquals(List.of(books.get(1)), session.getFuzzyResults());
+        assertEquals(3, fuzzySearches.get());
+
+        assertEquals(List.of(), new BookSearchSession(books).getFuzzyResults());
+    }
+
+    /**
+     * Returns the books whose folded titles contain the folded query by scanning every book.
+     *
+     * @param books the books to scan
+     * @param query the substring to look for
+     * @return the matching books, in list order
+     */
+    private static List<Book> scan(List<Book> books, String query) {
+        String key = TextUtil.fold(query);
+        return books.stream().filter(book -> book.getSearchKey().contains(key)).toList();
+    }
+}
@@ -0,0 +1,75 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BookSetTest {
+
+    @Test
+    void randomAddsAndRemovesKeepTheInsertionOrder() {
+        Random random = new Random(7);
+        BookSet set = new BookSet();
+        List<Book> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Book book = new Book("Title", "Author", i);
+                assertTrue(set.add(book));
+                expected.add(book);
+            } else {
+                assertTrue(set.remove(expected.remove(random.nextInt(expected.size()))));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        assertEquals(expected, set.toList());
+        assertEquals(expected.get(0), set.first());
+    }
+
+    @Test
+    void booksAreKeyedByIdOnBothSidesOfTheScanLimit() {
+        for (int count : new int[] {3, 50}) {
+            BookSet set = new BookSet();
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                books.add(new Book("Title " + i, "Author", i));
+                set.add(books.get(i));
+            }
+
+            Book copy = new Book(books.get(1).getId(), "Renamed", "Someone else", 0);
+            assertFalse(set.add(copy));
+            assertTrue(set.contains(copy));
+            assertTrue(set.remove(copy));
+            assertFalse(set.remove(copy));
+            assertFalse(set.contains(books.get(1)));
+            assertEquals(count - 1, set.size());
+        }
+    }
+
+    @Test
+    void firstFollowsRemovalsAndEmptying() {
+        BookSet set = new BookSet();
+        Book first = new Book("First", "Author", 0);
+        Book second = new Book("Second", "Author", 0);
+        set.add(first);
+        set.add(second);
+
+        set.remove(first);
+        assertEquals(second, set.first());
+        set.remove(second);
+        assertTrue(set.isEmpty());
+        assertThrows(NoSuchElementException.class, set::first);
+        assertFalse(set.iterator().hasNext());
+
+        set.add(first);
+        assertEquals(List.of(first), set.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FullTextIndexTest {
+
+    @Test
+    void theBestMatchesComeFirstAndLimitTheResult() {
+        FullTextIndex index = new FullTextIndex();
+        Book dune = new Book("Dune", "Frank Herbert", 0);
+        Book messiah = new Book("Dune Messiah", "Frank Herbert", 0);
+        Book children = new Book("Children of Dune", "Frank Herbert", 0);
+        Book dunes = new Book("Dune Dune", "Someone", 0);
+        index.add(dune);
+        index.add(messiah);
+        index.add(children);
+        index.add(dunes);
+
+        assertEquals(List.of(dunes, dune, messiah, children), index.search("dune", 10));
+        assertEquals(List.of(dunes, dune), index.search("dune", 2));
+        assertEquals(List.of(messiah), index.search("herbert messiah", 10));
+        assertEquals(List.of(), index.search("dune", 0));
+        assertEquals(List.of(), index.search("arrakis", 10));
+    }
+
+    @Test
+    void equalScoresKeepTheOrderOfAddition() {
+        FullTextIndex index = new FullTextIndex();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Book book = new Book("Volume " + i, "Same Author", 0);
+            books.add(book);
+            index.add(book);
+        }
+
+        assertEquals(books.subList(0, 5), index.search("same author", 5));
+        assertEquals(books, index.search("author", 500));
+    }
+
+    @Test
+    void removalUsesTheWordsTheBookWasIndexedUnder() {
+        FullTextIndex index = new FullTextIndex();
+        Book book = new Book("Emma", "Jane Austen", 0);
+        Book other = new Book("Persuasion", "Jane Austen", 0);
+        index.add(book);
+        index.add(other);
+
+        book.setTitle("Sense and Sensibility");
+        book.setAuthor("Someone Else");
+        index.remove(book);
+
+        assertEquals(List.of(), index.search("emma", 10));
+        assertEquals(List.of(other), index.search("austen", 10));
+        assertEquals(List.of(), index.search("sense", 10));
+    }
+
+    @Test
+    void rebuildingKeepsTheRemainingBooksSearchable() {
+        FullTextIndex index = new FullTextIndex();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Book book = new Book("Title " + i + (i % 2 == 0 ? " even" : " odd"), "Author", 0);
+            books.add(book);
+            index.add(book);
+        }
+        for (int i = 0; i < books.size(); i++) {
+            if (i % 3 != 0) {
+                index.remove(books.get(i));
+            }
+        }
+
+        List<Book> expected = new ArrayList<>();
+        for (int i = 0; i < books.size(); i += 6) {
+            expected.add(books.get(i));
+        }
+        assertEquals(expected, index.search("even", 3_000));
+        assertEquals(List.of(books.get(2_997)), index.search("2997", 10));
+        assertEquals(List.of(), index.search("2998", 10));
+    }
+}
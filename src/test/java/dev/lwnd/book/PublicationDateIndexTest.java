@@ -0,0 +1,83 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PublicationDateIndexTest {
+    @Test
+    void rangeIncludesBothBoundaryDays() {
+        PublicationDateIndex index = new PublicationDateIndex();
+        Book before = book(1899, 12, 31);
+        Book first = book(1900, 1, 1);
+        Book last = book(1900, 12, 31);
+        Book after = book(1901, 1, 1);
+        index.add(after);
+        index.add(last);
+        index.add(before);
+        index.add(first);
+
+        assertEquals(List.of(first, last), index.between(day(1900, 1, 1), day(1900, 12, 31)));
+        assertEquals(List.of(before, first, last, after), index.asList());
+        assertEquals(List.of(), index.between(day(1901, 1, 2), day(2000, 1, 1)));
+        assertEquals(List.of(), index.between(day(1900, 12, 31), day(1900, 1, 1)));
+    }
+
+    @Test
+    void booksOfTheSameDayAreRemovedOneByOne() {
+        PublicationDateIndex index = new PublicationDateIndex();
+        List<Book> sameDay = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = book(1954, 7, 29);
+            sameDay.add(book);
+            index.add(book);
+        }
+
+        index.remove(sameDay.get(2));
+        sameDay.remove(2);
+        assertEquals(sameDay, index.between(day(1954, 7, 29), day(1954, 7, 29)));
+
+        index.remove(book(1954, 7, 29));
+        assertEquals(4, index.asList().size());
+    }
+
+    @Test
+    void addAllMergesWithSingleAdds() {
+        PublicationDateIndex index = new PublicationDateIndex();
+        Random random = new Random(9);
+        List<Book> all = new ArrayList<>();
+        List<Book> batch = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Book book = new Book("Title", "Author", random.nextInt(200) - 100);
+            all.add(book);
+            if (i % 3 == 0) {
+                index.add(book);
+            } else {
+                batch.add(book);
+            }
+        }
+        index.addAll(batch);
+
+        List<Book> indexed = index.asList();
+        assertEquals(all.size(), indexed.size());
+        for (int i = 1; i < indexed.size(); i++) {
+            assertTrue(indexed.get(i - 1).getPublicationEpochDay() <= indexed.get(i).getPublicationEpochDay());
+        }
+        assertEquals(all.stream().filter(book -> book.getPublicationEpochDay() < 0).count(),
+                index.between(Long.MIN_VALUE, -1).size());
+    }
+
+    private static Book book(int year, int month, int day) {
+        return new Book("Title", "Author", day(year, month, day));
+    }
+
+    private static long day(int year, int month, int day) {
+        return LocalDate.of(year, month, day).toEpochDay();
+    }
+}
@@ -0,0 +1,167 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class SortedBookViewTest {
+    private static final Comparator<Book> TITLE_THEN_ID =
+            new BookTitleComparator().thenComparingLong(Book::getId);
+
+    @Test
+    void randomAddsAndRemovesKeepTheOrder() {
+        Random random = new Random(42);
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        List<Book> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Book book = new Book("Title " + random.nextInt(500), "Author", i);
+                view.add(book);
+                expected.add(book);
+            } else {
+                view.remove(expected.remove(random.nextInt(expected.size())));
+            }
+        }
+
+        expected.sort(TITLE_THEN_ID);
+        assertEquals(expected, view.asList());
+        assertEquals(expected.size(), view.size());
+    }
+
+    @Test
+    void equalBooksAreOrderedById() {
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        Book first = new Book("Same", "Author", 0);
+        Book second = new Book("Same", "Author", 0);
+        view.add(second);
+        view.add(first);
+
+        assertEquals(List.of(first, second), view.asList());
+    }
+
+    @Test
+    void addAllMergesWithTheBooksAlreadyInTheView() {
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        Book b = new Book("B", "Author", 0);
+        Book d = new Book("D", "Author", 0);
+        view.add(d);
+        view.add(b);
+
+        Book a = new Book("A", "Author", 0);
+        Book c = new Book("C", "Author", 0);
+        view.addAll(List.of(c, a, b));
+
+        assertEquals(List.of(a, b, c, d), view.asList());
+    }
+
+    @Test
+    void windowMatchesTheSublistAtEveryBoundary() {
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(new Book(String.format("Title %03d", (i * 37) % 100), "Author", i));
+        }
+        view.addAll(books);
+        books.sort(TITLE_THEN_ID);
+
+        for (int from = 0; from <= books.size(); from += 7) {
+            for (int count : new int[] {0, 1, 10, 200}) {
+                int to = Math.min(books.size(), from + count);
+                assertEquals(books.subList(from, to), view.window(from, count));
+            }
+        }
+    }
+
+    @Test
+    void countWhileCountsThePrefix() {
+        SortedBookView view = new SortedBookView(new BookPublicationDateComparator());
+        for (int day = 0; day < 50; day++) {
+            view.add(new Book("Title", "Author", day));
+        }
+
+        assertEquals(20, view.countWhile(book -> book.getPublicationEpochDay() < 20));
+        assertEquals(0, view.countWhile(book -> false));
+        assertEquals(50, view.countWhile(book -> true));
+    }
+
+    @Test
+    void removingABookNotInTheViewChangesNothing() {
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        Book book = new Book("Title", "Author", 0);
+        view.add(book);
+        view.remove(new Book("Title", "Author", 0));
+
+        assertEquals(List.of(book), view.asList());
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(1));
+    }
+
+    @Test
+    void sortedListsFollowRemovalsAndUpdatesWhileHeld() {
+        BookCollection books = new BookCollection(new Library());
+        Book hobbit = new Book("The Hobbit", "Tolkien", 0);
+        Book silmarillion = new Book("The Silmarillion", "Tolkien", 0);
+        Book lord = new Book("The Lord of the Rings", "Tolkien", 0);
+        books.addBook(hobbit);
+        books.addBook(silmarillion);
+        books.addBook(lord);
+        List<Book> byTitle = books.getBooksSortedByTitle();
+
+        books.removeBook(lord);
+        assertEquals(List.of(hobbit, silmarillion), byTitle);
+
+        Book renamed = new Book(hobbit.getId(), "A Hobbit", "Tolkien", 0);
+        books.updateBook(hobbit, renamed);
+        assertEquals(List.of(renamed, silmarillion), byTitle);
+        assertEquals(List.of(silmarillion), books.getBooks(BookSortOrder.TITLE, 1, 5));
+    }
+
+    @Test
+    void booksAreRemovedByIdEvenAfterTheirFieldsChanged() {
+        SortedBookView view = new SortedBookView(new BookTitleComparator());
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(new Book("Title " + (1_000 + i), "Author", i));
+        }
+        view.addAll(books);
+
+        Book changed = books.get(40);
+        changed.setTitle("Zzz");
+        view.remove(new Book(changed.getId(), "Anything", "Anyone", 0));
+        books.remove(changed);
+        assertEquals(books, view.asList());
+
+        view.remove(changed);
+        assertEquals(99, view.size());
+    }
+
+    @Test
+    void updatesKeepTheIdOfTheOriginalBook() {
+        BookCollection books = new BookCollection(new Library());
+        Book hobbit = new Book("The Hobbit", "Tolkien", 0);
+        books.addBook(hobbit);
+        List<Book> byDate = books.getBooksSortedByPublicationDate();
+
+        books.updateBook(hobbit, new Book("The Hobbit", "J. R. R. Tolkien", 10));
+        Book updated = books.getBook("The Hobbit");
+        assertEquals(hobbit.getId(), updated.getId());
+        assertEquals("J. R. R. Tolkien", updated.getAuthor());
+        assertEquals(List.of(updated), byDate);
+        assertEquals(List.of(updated), books.getBooks(BookSortOrder.PUBLICATION_DATE, 0, 5));
+
+        books.removeBook(updated);
+        assertEquals(List.of(), byDate);
+        assertEquals(List.of(), books.getBooks("The Hobbit"));
+        assertEquals(List.of(), books.filterBooksByTitle("hobbit"));
+        assertEquals(List.of(), books.getBooksByAuthor("J. R. R. Tolkien"));
+        assertEquals(List.of(), books.fuzzySearchByTitle("hobit", 1));
+        assertEquals(List.of(), books.completeTitle("hob", 5));
+    }
+}
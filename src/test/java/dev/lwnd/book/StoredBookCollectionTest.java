@@ -0,0 +1,162 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class StoredBookCollectionTest {
+    @Test
+    void everyStorageHoldsTheSameBooks() {
+        for (BookStorage storage : BookStorage.values()) {
+            BookCollection books = collection(storage);
+
+            assertEquals(storage, books.getStorage());
+            assertEquals(4, books.size());
+            assertEquals(List.of("Dune", "Emma", "Ivanhoe", "Persuasion"),
+                    titles(books.getBooks(BookSortOrder.TITLE, 0, 10)));
+            assertEquals(List.of("Dune", "Emma"), titles(books.getBooks(BookSortOrder.AUTHOR, 0, 2)));
+            assertEquals(List.of("Ivanhoe"), titles(books.getBooksPublishedIn(1819)));
+            assertEquals(List.of("Persuasion"), titles(books.filterBooksByTitle("SUAS")));
+            assertTrue(books.hasBook("Dune"));
+            assertEquals(2, books.getBooksByAuthor("Jane Austen").size());
+        }
+    }
+
+    @Test
+    void storedBooksKeepTheirIdsAndSlotsAcrossRemoveAndUpdate() {
+        for (BookStorage storage : BookStorage.values()) {
+            BookCollection books = collection(storage);
+            Book emma = books.getBook("Emma");
+            Book dune = books.getBook("Dune");
+
+            books.removeBook(emma);
+            assertFalse(books.hasBook(emma));
+            assertEquals(3, books.size());
+            assertEquals(null, books.getSlots().get(0));
+            assertEquals(List.of("Persuasion", "Ivanhoe", "Dune"), titles(books.getAllBooks()));
+            assertEquals(1, books.indexOf(books.getBook("Ivanhoe")));
+
+            books.updateBook(dune, new Book(dune.getId(), "Dune Messiah", "Frank Herbert", dune.getPublicationEpochDay()));
+            assertEquals("Dune Messiah", books.getBookById(dune.getId()).getTitle());
+            assertThrows(BookNotFoundException.class, () -> books.getBook("Dune"));
+        }
+    }
+
+    @Test
+    void storedCollectionIsCompactedOnceMostSlotsAreEmpty() {
+        for (BookStorage storage : BookStorage.values()) {
+            BookCollection books = collection(storage);
+            for (String title : List.of("Emma", "Persuasion", "Ivanhoe")) {
+                books.removeBook(books.getBook(title));
+            }
+
+            assertEquals(1, books.getSlots().size());
+            assertEquals("Dune", books.getBook(0).getTitle());
+        }
+    }
+
+    @Test
+    void builderStreamsBatchesIntoTheStore() {
+        BookCollectionBuilder builder = new BookCollectionBuilder(new Library(), BookStorage.OFF_HEAP);
+        for (int i = 0; i < 70_000; i++) {
+            builder.addBook(new Book("Title " + i, "Author " + (i % 100), i));
+        }
+        BookCollection books = builder.build();
+
+        assertEquals(70_000, books.size());
+        assertEquals("Title 69999", books.getBook(69_999).getTitle());
+        assertEquals(List.of("Title 0", "Title 1"), titles(books.getBooks(BookSortOrder.PUBLICATION_DATE, 0, 2)));
+    }
+
+    @Test
+    void sortedPagesFollowChangesToTheStore() {
+        for (BookStorage storage : BookStorage.values()) {
+            BookCollection heap = new BookCollection(new Library());
+            BookCollection books = new BookCollection(new Library(), storage);
+            for (int i = 0; i < 200; i++) {
+                Book book = new Book("Title " + (i * 37 % 200), "Author " + (i % 13), i * 53 % 200);
+                heap.addBook(book);
+                books.addBook(book);
+            }
+            assertSamePages(heap, books);
+
+            Book first = new Book("A First Title", "A First Author", -1);
+            heap.addBook(first);
+            books.addBook(first);
+            assertSamePages(heap, books);
+
+            for (Book book : heap.getAllBooks().subList(0, 150)) {
+                if (book.getId() % 4 == 0) {
+                    heap.removeBook(book);
+                    books.removeBook(book);
+                }
+            }
+            assertSamePages(heap, books);
+
+            Book updated = new Book(first.getId(), "Zz Last Title", "Zz Last Author", 10_000);
+            heap.updateBook(first, updated);
+            books.updateBook(first, updated);
+            assertSamePages(heap, books);
+        }
+    }
+
+    @Test
+    void storePagesFollowClearingAndCompaction() {
+        for (BookStore store : List.of(new ColumnarBookStore(), new OffHeapBookStore())) {
+            for (int i = 0; i < 26; i++) {
+                store.add(new Book("Title " + (char) ('z' - i), "Author", i));
+            }
+            assertEquals(List.of("Title a", "Title b"), titles(store.sorted(BookSortOrder.TITLE, 0, 2)));
+
+            store.clear(0);
+            store.clear(25);
+            assertEquals(List.of("Title b", "Title c"), titles(store.sorted(BookSortOrder.TITLE, 0, 2)));
+            assertEquals(List.of("Title y"), titles(store.sorted(BookSortOrder.TITLE, 23, 5)));
+
+            store.compact();
+            assertEquals(24, store.size());
+            assertEquals(List.of("Title y", "Title x"), titles(store.sorted(BookSortOrder.PUBLICATION_DATE, 0, 2)));
+            store.set(0, new Book("Title a", "Author", 100));
+            assertEquals(List.of("Title a", "Title b"), titles(store.sorted(BookSortOrder.TITLE, 0, 2)));
+            assertEquals(List.of("Title a"), titles(store.sorted(BookSortOrder.PUBLICATION_DATE, 23, 2)));
+        }
+    }
+
+    /**
+     * Asserts that two collections list the same pages in every sort order.
+     */
+    private static void assertSamePages(BookCollection expected, BookCollection actual) {
+        for (BookSortOrder order : BookSortOrder.values()) {
+            for (int from = 0; from <= expected.size(); from += 7) {
+                assertEquals(titles(expected.getBooks(order, from, 7)), titles(actual.getBooks(order, from, 7)),
+                        actual.getStorage() + " " + order + " " + from);
+            }
+        }
+    }
+
+    private static BookCollection collection(BookStorage storage) {
+        BookCollection books = new BookCollection(new Library(), storage);
+        books.addBook(new Book("Emma", "Jane Austen", LocalDate.of(1815, 12, 23).toEpochDay()));
+        books.addBook(new Book("Persuasion", "Jane Austen", LocalDate.of(1817, 12, 20).toEpochDay()));
+        books.addBook(new Book("Ivanhoe", "Walter Scott", LocalDate.of(1819, 12, 18).toEpochDay()));
+        books.addBook(new Book("Dune", "Frank Herbert", LocalDate.of(1965, 8, 1).toEpochDay()));
+        return books;
+    }
+
+    private static List<String> titles(List<Book> books) {
+        List<String> titles = new ArrayList<>();
+        for (Book book : books) {
+            titles.add(book.getTitle());
+        }
+        return titles;
+    }
+}
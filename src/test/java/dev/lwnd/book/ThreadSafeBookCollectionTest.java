@@ -0,0 +1,115 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class ThreadSafeBookCollectionTest {
+    @Test
+    void readersSeeTheStableBooksWhileWritersChurn() throws Exception {
+        BookCollection books = new BookCollection(new Library(), true);
+        List<Book> stable = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Book book = new Book("Stable " + i, "Author " + i, i);
+            stable.add(book);
+            books.addBook(book);
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        for (Book book : stable) {
+                            assertEquals(book, books.getBook(book.getTitle()));
+                            assertTrue(books.hasBook(book));
+                        }
+                        assertTrue(books.size() >= stable.size());
+                        assertEquals(stable.size(), books.filterBooksByTitle("Stable").size());
+                        assertTrue(books.getBooks(BookSortOrder.TITLE, 0, 10).size() == 10);
+                    }
+                }));
+            }
+
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    Book churn = new Book("Churn " + i, "Writer", i);
+                    books.addBook(churn);
+                    books.updateBook(churn, new Book(churn.getId(), "Churned " + i, "Writer", i + 1));
+                    books.removeBook(books.getBookById(churn.getId()));
+                }
+                done.set(true);
+            });
+
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+
+        assertEquals(stable.size(), books.size());
+    }
+
+    @Test
+    void readersSeeEveryBulkAdditionThatCompletedBeforeThem() throws Exception {
+        BookCollection books = new BookCollection(new Library(), true);
+        int batches = 300;
+        int batchSize = 20;
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    int seen;
+                    do {
+                        seen = added.get();
+                        if (seen > 0) {
+                            assertEquals(batchSize, books.getBooks("Bulk " + (seen - 1)).size());
+                            assertTrue(books.hasBook("Bulk " + (seen - 1)));
+                            assertEquals(Math.min(10, seen * batchSize),
+                                    books.getBooks(BookSortOrder.PUBLICATION_DATE, 0, 10).size());
+                        }
+                    } while (seen < batches);
+                }));
+            }
+
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < batches; i++) {
+                    List<Book> batch = new ArrayList<>();
+                    for (int j = 0; j < batchSize; j++) {
+                        batch.add(new Book("Bulk " + i, "Writer", j));
+                    }
+                    books.addBooks(batch);
+                    added.incrementAndGet();
+                }
+            });
+
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(batches * batchSize, books.size());
+    }
+}
@@ -0,0 +1,87 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TitleTrieTest {
+
+    @Test
+    void completionsAreRankedByPopularityThenTitle() {
+        TitleTrie trie = new TitleTrie();
+        Book hobbit = new Book("The Hobbit", "Tolkien", 0);
+        Book then = new Book("Then", "Someone", 0);
+        Book two = new Book("The Two Towers", "Tolkien", 0);
+        trie.add(hobbit);
+        trie.add(then);
+        trie.add(two);
+        trie.add(new Book("The Two Towers", "Tolkien", 0));
+
+        assertEquals(List.of("The Two Towers", "The Hobbit", "Then"), trie.complete("the", 10));
+        trie.recordPick(then);
+        trie.recordPick(then);
+        assertEquals(List.of("Then", "The Two Towers"), trie.complete("the", 2));
+        assertEquals(List.of("The Hobbit"), trie.complete("the h", 10));
+        assertEquals(List.of(), trie.complete("thx", 10));
+        assertEquals(List.of(), trie.complete("the hobbits", 10));
+
+        trie.remove(then);
+        assertEquals(List.of("The Two Towers", "The Hobbit"), trie.complete("th", 10));
+        trie.add(then);
+        assertEquals(List.of("The Two Towers", "The Hobbit", "Then"), trie.complete("th", 10));
+    }
+
+    @Test
+    void completionsAgreeWithRankingEveryKey() {
+        Random random = new Random(9);
+        TitleTrie trie = new TitleTrie();
+        List<Book> books = new ArrayList<>();
+        Map<String, Integer> picks = new LinkedHashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            int action = random.nextInt(5);
+            if (books.isEmpty() || action < 2) {
+                StringBuilder title = new StringBuilder();
+                for (int i = 0; i < 1 + random.nextInt(5); i++) {
+                    title.append((char) ('a' + random.nextInt(3)));
+                }
+                Book book = new Book(title.toString(), "Author", 0);
+                books.add(book);
+                trie.add(book);
+            } else if (action < 4) {
+                Book book = books.get(random.nextInt(books.size()));
+                trie.recordPick(book);
+                picks.merge(book.getSearchKey(), 1, Integer::sum);
+            } else {
+                Book book = books.remove(random.nextInt(books.size()));
+                trie.remove(book);
+                if (books.stream().noneMatch(other -> other.getSearchKey().equals(book.getSearchKey()))) {
+                    picks.remove(book.getSearchKey());
+                }
+            }
+
+            String prefix = "abc".substring(0, random.nextInt(3)) + (random.nextBoolean() ? "" : "a");
+            assertEquals(expected(books, picks, prefix), trie.complete(prefix, TitleTrie.MAX_COMPLETIONS), "prefix " + prefix);
+        }
+    }
+
+    private static List<String> expected(List<Book> books, Map<String, Integer> picks, String prefix) {
+        Map<String, Integer> popularity = new LinkedHashMap<>();
+        for (Book book : books) {
+            if (book.getSearchKey().startsWith(prefix)) {
+                popularity.merge(book.getSearchKey(), 1, Integer::sum);
+            }
+        }
+        popularity.replaceAll((key, count) -> count + picks.getOrDefault(key, 0));
+
+        List<String> keys = new ArrayList<>(popularity.keySet());
+        keys.sort(Comparator.<String>comparingInt(popularity::get).reversed().thenComparing(Comparator.naturalOrder()));
+        return keys.subList(0, Math.min(TitleTrie.MAX_COMPLETIONS, keys.size()));
+    }
+}
@@ -0,0 +1,91 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TitleWordTreeTest {
+    private static final String[] WORDS = {"the", "lord", "rings", "ring", "king", "return", "of", "war", "peace", "wars"};
+
+    @Test
+    void searchMatchesEveryQueryWordWithinItsDistance() {
+        TitleWordTree tree = new TitleWordTree();
+        Book lord = new Book("The Lord of the Rings", "Tolkien", 0);
+        Book king = new Book("The Return of the King", "Tolkien", 0);
+        Book war = new Book("War and Peace", "Tolstoy", 0);
+        tree.add(lord);
+        tree.add(king);
+        tree.add(war);
+
+        assertEquals(List.of(lord), tree.search("lorf ringz", 2));
+        assertEquals(List.of(lord, king), tree.search("the", 2));
+        assertEquals(List.of(king), tree.search("retrn the", 2));
+        assertEquals(List.of(), tree.search("lord king", 2));
+        assertEquals(List.of(), tree.search("wr", 2));
+    }
+
+    @Test
+    void searchAgreesWithCheckingEveryBook() {
+        Random random = new Random(3);
+        TitleWordTree tree = new TitleWordTree();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int j = 0; j < 1 + random.nextInt(4); j++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Book book = new Book(title.toString().trim(), "Author", 0);
+            books.add(book);
+            tree.add(book);
+        }
+        for (int i = 0; i < books.size(); i += 3) {
+            tree.remove(books.get(i));
+        }
+
+        for (String query : new String[] {"the rnig", "lord", "war peace", "kng of", "retunr rings the"}) {
+            List<Book> expected = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                if (i % 3 != 0 && matchesEveryWord(books.get(i), query)) {
+                    expected.add(books.get(i));
+                }
+            }
+            List<Book> found = tree.search(query, 2);
+            assertEquals(expected.size(), found.size(), query);
+            assertTrue(found.containsAll(expected), query);
+        }
+    }
+
+    private static boolean matchesEveryWord(Book book, String query) {
+        for (String queryWord : query.split(" ")) {
+            int allowed = queryWord.length() <= 2 ? 0 : queryWord.length() <= 5 ? 1 : 2;
+            boolean matched = false;
+            for (String word : book.getSearchKey().split(" ")) {
+                matched |= levenshtein(queryWord, word) <= allowed;
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int levenshtein(String first, String second) {
+        int[][] distances = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            for (int j = 0; j <= second.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distances[i][j] = i + j;
+                } else {
+                    int substitution = distances[i - 1][j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                    distances[i][j] = Math.min(substitution, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+                }
+            }
+        }
+        return distances[first.length()][second.length()];
+    }
+}
@@ -0,0 +1,65 @@
+package dev.lwnd.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class TopKSelectionTest {
+
+    @Test
+    void windowsMatchAStableFullSort() {
+        Random random = new Random(11);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            books.add(new Book("Title " + random.nextInt(40), "Author", random.nextInt(20)));
+        }
+        Comparator<Book> byDate = new BookPublicationDateComparator();
+        List<Book> expected = new ArrayList<>(books);
+        expected.sort(byDate);
+
+        for (int from : new int[] {0, 1, 17, 150, 299, 300}) {
+            for (int count : new int[] {0, 1, 10, 300}) {
+                int to = Math.min(from + count, expected.size());
+                assertEquals(expected.subList(from, to), BookCollection.sorted(books, byDate, from, count),
+                        "window " + from + "+" + count);
+            }
+        }
+    }
+
+    @Test
+    void largeCountsDoNotOverflow() {
+        List<Book> books = List.of(new Book("B", "Author", 0), new Book("A", "Author", 0));
+
+        assertEquals(List.of(books.get(0)),
+                BookCollection.sorted(books, new BookTitleComparator(), 1, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void windowBoundsAreChecked() {
+        List<Book> books = List.of(new Book("A", "Author", 0));
+        Comparator<Book> byTitle = new BookTitleComparator();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> BookCollection.sorted(books, byTitle, 2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> BookCollection.sorted(books, byTitle, -1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> BookCollection.sorted(books, byTitle, 0, -1));
+    }
+
+    @Test
+    void collectionWindowsFollowTheComparator() {
+        BookCollection books = new BookCollection(new Library());
+        for (int i = 0; i < 20; i++) {
+            books.addBook(new Book("Title " + (char) ('t' - i), "Author", i));
+        }
+
+        List<Book> byTitle = books.sorted(new BookTitleComparator());
+        assertEquals(byTitle.subList(5, 10), books.sorted(new BookTitleComparator(), 5, 5));
+    }
+}
@@ -0,0 +1,240 @@
+package dev.lwnd.member;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.lwnd.Library;
+
+class MemberCollectionTest {
+
+    @Test
+    void renamedMembersAreFoundUnderTheirNewUsername() {
+        MemberCollection members = new MemberCollection(new Library());
+        Member reader = new Member("reader");
+        members.addMember(new Member("admin", true));
+        members.addMember(reader);
+        List<String> renames = new ArrayList<>();
+        members.addListener(new MemberCollectionListener() {
+            @Override
+            public void memberAdded(Member member) {
+            }
+
+            @Override
+            public void memberRemoved(int index, Member member) {
+            }
+
+            @Override
+            public void memberRenamed(int index, Member member, String oldUsername) {
+                renames.add(index + ":" + oldUsername + "->" + member.getUsername());
+            }
+        });
+
+        reader.setUsername("writer");
+
+        assertSame(reader, members.getMember("writer"));
+        assertFalse(members.hasMember("reader"));
+        assertThrows(MemberNotFoundException.class, () -> members.getMember("reader"));
+        assertEquals(List.of("1:reader->writer"), renames);
+    }
+
+    @Test
+    void sharedUsernamesPassToTheNextMemberOnRename() {
+        MemberCollection members = new MemberCollection(new Library());
+        Member first = new Member("twin");
+        Member second = new Member("twin");
+        members.addMember(first);
+        members.addMember(second);
+
+        assertSame(first, members.getMember("twin"));
+        first.setUsername("single");
+        assertSame(second, members.getMember("twin"));
+        assertSame(first, members.getMember("single"));
+
+        members.removeMember(second);
+        assertFalse(members.hasMember("twin"));
+        second.setUsername("detached");
+        assertFalse(members.hasMember("detached"));
+    }
+
+    @Test
+    void caseInsensitiveCollectionsIgnoreTheCaseOfUsernames() {
+        MemberCollection members = new MemberCollectionBuilder(new Library(), true)
+                .addMember(new Member("Reader"))
+                .build();
+
+        assertTrue(members.isCaseInsensitive());
+        assertTrue(members.hasMember("READER"));
+        assertEquals("Reader", members.registerIfAbsent(new Member("reader")).getUsername());
+
+        members.getMember("reader").setUsername("Writer");
+        assertTrue(members.hasMember("wRITER"));
+        assertFalse(members.hasMember("reader"));
+    }
+
+    @Test
+    void allMembersIsASnapshotUnaffectedByLaterChanges() {
+        MemberCollection members = new MemberCollection(new Library());
+        Member first = new Member("first");
+        members.addMember(first);
+        List<Member> snapshot = members.getAllMembers();
+
+        members.addMember(new Member("second"));
+        members.removeMember(first);
+
+        assertEquals(List.of(first), snapshot);
+        assertEquals(List.of("second"), members.getAllMembers().stream().map(Member::getUsername).toList());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(first));
+    }
+
+    @Test
+    void concurrentRegistrationsAreOrderedAndPublishedAfterTheAppend() throws Exception {
+        MemberCollection members = new MemberCollection(new Library());
+        List<Member> notified = Collections.synchronizedList(new ArrayList<>());
+        members.addListener(new MemberCollectionListener() {
+            @Override
+            public void memberAdded(Member member) {
+                notified.add(member);
+            }
+
+            @Override
+            public void memberRemoved(int index, Member member) {
+            }
+
+            @Override
+            public void memberRenamed(int index, Member member, String oldUsername) {
+            }
+        });
+
+        AtomicInteger registered = new AtomicInteger();
+        AtomicBoolean unlisted = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < 200; i += 7) {
+                    if (members.hasMember("member" + i) && !members.getAllMembers().contains(members.getMember("member" + i))) {
+                        unlisted.set(true);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (members.registerIfAbsent(new Member("member" + i)) == null) {
+                        registered.incrementAndGet();
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertEquals(200, registered.get());
+        assertEquals(members.getAllMembers(), notified);
+        assertFalse(unlisted.get());
+    }
+
+    @Test
+    void parallelRegistrationsOfDistinctAndCollidingUsernamesStayUnique() throws Exception {
+        MemberCollection members = new MemberCollection(new Library());
+        List<Member> replayed = new ArrayList<>();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        members.addListener(new MemberCollectionListener() {
+            @Override
+            public void memberAdded(Member member) {
+                replayed.add(member);
+            }
+
+            @Override
+            public void memberRemoved(int index, Member member) {
+                if (replayed.remove(index) != member) {
+                    outOfOrder.set(true);
+                }
+            }
+
+            @Override
+            public void memberRenamed(int index, Member member, String oldUsername) {
+            }
+        });
+
+        int threads = 8;
+        int usernames = 300;
+        Map<String, Member> winners = new ConcurrentHashMap<>();
+        AtomicInteger doubleWins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> registrations = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                registrations.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < usernames; i++) {
+                        Member shared = new Member("shared" + i);
+                        if (members.registerIfAbsent(shared) == null && winners.putIfAbsent("shared" + i, shared) != null) {
+                            doubleWins.incrementAndGet();
+                        }
+                        assertNull(members.registerIfAbsent(new Member("own" + thread + "-" + i)));
+                        if (thread == 0 && i % 10 == 0) {
+                            Member passing = new Member("passing" + i);
+                            members.addMember(passing);
+                            members.removeMember(passing);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> registration : registrations) {
+                registration.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Member> all = members.getAllMembers();
+        assertEquals(0, doubleWins.get());
+        assertEquals(usernames, winners.size());
+        assertEquals(usernames + threads * usernames, all.size());
+
+        Set<String> listed = new HashSet<>();
+        for (Member member : all) {
+            assertTrue(listed.add(member.getUsername()), member.getUsername());
+            assertSame(member, members.getMember(member.getUsername()));
+        }
+        for (Map.Entry<String, Member> winner : winners.entrySet()) {
+            assertSame(winner.getValue(), members.getMember(winner.getKey()));
+        }
+        assertFalse(outOfOrder.get());
+        assertEquals(all, replayed);
+    }
+}
@@ -0,0 +1,79 @@
+package dev.lwnd.other;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentVectorTest {
+    private static final int[] BOUNDARIES = {0, 1, 31, 32, 33, 63, 64, 65, 1055, 1056, 1057, 1088, 1089, 32800, 32801, 32833};
+
+    @Test
+    void everyElementIsFoundAcrossTheTailAndTreeBoundaries() {
+        Map<Integer, PersistentVector<Integer>> versions = new TreeMap<>();
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int size = 0; size <= 32833; size++) {
+            if (isBoundary(size)) {
+                versions.put(size, vector);
+            }
+            vector = vector.append(size);
+        }
+
+        for (Map.Entry<Integer, PersistentVector<Integer>> version : versions.entrySet()) {
+            PersistentVector<Integer> snapshot = version.getValue();
+            assertEquals(version.getKey(), snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                assertEquals(i, snapshot.get(i), "element " + i + " of " + snapshot.size());
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(snapshot.size()));
+            assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(-1));
+        }
+    }
+
+    @Test
+    void appendingToAnOldVersionLeavesTheNewerOnesAlone() {
+        PersistentVector<Integer> base = PersistentVector.of(range(1056));
+        PersistentVector<Integer> first = base.append(-1);
+        PersistentVector<Integer> second = base.append(-2);
+
+        assertEquals(1056, base.size());
+        assertEquals(-1, first.get(1056));
+        assertEquals(-2, second.get(1056));
+        assertEquals(range(1056), first.subList(0, 1056));
+    }
+
+    @Test
+    void removingAtTheBoundariesMovesTheLaterElementsDown() {
+        PersistentVector<Integer> vector = PersistentVector.of(range(1057));
+        for (int index : new int[] {0, 31, 32, 1023, 1024, 1056}) {
+            List<Integer> expected = new ArrayList<>(range(1057));
+            expected.remove(index);
+
+            assertEquals(expected, vector.removeAt(index));
+        }
+        assertEquals(range(1057), vector);
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.removeAt(1057));
+    }
+
+    private static boolean isBoundary(int size) {
+        for (int boundary : BOUNDARIES) {
+            if (boundary == size) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Integer> range(int size) {
+        List<Integer> range = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+}
@@ -0,0 +1,93 @@
+package dev.lwnd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.book.BookCollection;
+import dev.lwnd.book.BookCollectionBuilder;
+import dev.lwnd.member.Member;
+import dev.lwnd.member.MemberCollectionBuilder;
+
+class CatalogueImporterTest {
+    private static final String BOOKS = "title,author,date\r\n"
+            + "The Hobbit,J. R. R. Tolkien,1937-09-21\r\n"
+            + "\r\n"
+            + "\"Quoted, \"\"title\"\"\",Author,2001/02/03\r\n"
+            + "\n"
+            + "Emma,Jane Austen,1815-12-23\r\n"
+            + "Last,Author,2020-1-1";
+
+    @Test
+    void recordsAreReadWhereverAWindowEnds(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("books.csv");
+        Files.writeString(file, BOOKS);
+
+        for (long windowSize = 48; windowSize <= BOOKS.length(); windowSize++) {
+            BookCollection books = importBooks(file, windowSize);
+
+            assertEquals(List.of("The Hobbit", "Quoted, \"title\"", "Emma", "Last"), titles(books), "window " + windowSize);
+            assertEquals(LocalDate.of(2001, 2, 3).toEpochDay(), books.getBook(1).getPublicationEpochDay());
+        }
+    }
+
+    @Test
+    void carriageReturnOnTheLastByteOfAWindowIsNotLost(@TempDir Path directory) throws IOException {
+        String record = "Title,Author,2000-01-01\r\n";
+        Path file = directory.resolve("books.csv");
+        Files.writeString(file, "header\r\n" + "\r\n".repeat(3) + record + record);
+
+        for (long windowSize = record.length(); windowSize <= record.length() + 6; windowSize++) {
+            assertEquals(2, importBooks(file, windowSize).size(), "window " + windowSize);
+        }
+    }
+
+    @Test
+    void membersAreImportedWithTheirRights(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("members.csv");
+        Files.write(file, "admin,TRUE\nreader,false\n".getBytes(StandardCharsets.UTF_8));
+        MemberCollectionBuilder builder = new MemberCollectionBuilder(new Library());
+
+        assertEquals(2, new CatalogueImporter().importMembers(file, builder, null));
+        List<Member> members = builder.build().getAllMembers();
+        assertEquals("admin", members.get(0).getUsername());
+        assertEquals(true, members.get(0).hasAdminRights());
+        assertEquals(false, members.get(1).hasAdminRights());
+    }
+
+    @Test
+    void malformedRecordsAreReportedWithTheirOffset(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("books.csv");
+        Files.writeString(file, "Emma,Jane Austen,1815-12-23\nBad,Record,1815-13-40\n");
+
+        IOException e = assertThrows(IOException.class,
+                () -> new CatalogueImporter().importBooks(file, new BookCollectionBuilder(new Library()), null));
+        assertEquals("Malformed record at byte 28: invalid date", e.getMessage());
+    }
+
+    private static BookCollection importBooks(Path file, long windowSize) throws IOException {
+        BookCollectionBuilder builder = new BookCollectionBuilder(new Library());
+        new CatalogueImporter(2, true, windowSize).importBooks(file, builder, null);
+        return builder.build();
+    }
+
+    private static List<String> titles(BookCollection books) {
+        List<String> titles = new ArrayList<>();
+        for (Book book : books.getAllBooks()) {
+            titles.add(book.getTitle());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,157 @@
+package dev.lwnd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.member.Member;
+
+class LibraryCheckpointerTest {
+    private static final int SEGMENT_SIZE = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void checkpointRestoresSlotsMembersAndBorrowers() throws IOException {
+        Library library = new Library();
+        LibraryCheckpointer checkpointer = new LibraryCheckpointer(checkpointDirectory(), library, false, SEGMENT_SIZE, 1);
+        library.getBookCollection().removeBook(library.getBookCollection().getBook("The Hobbit"));
+        Member reader = library.getMemberCollection().getMember("user");
+        library.getBorrowerCatalogue().addBorrower(reader);
+        library.getBorrowerCatalogue().addBookToBorrower(reader, library.getBookCollection().getBook("The Silmarillion"));
+        checkpointer.checkpoint();
+
+        Library restored = Library.fromCheckpoint(checkpointDirectory());
+
+        assertEquals(library.getBookCollection().getSlots().size(), restored.getBookCollection().getSlots().size());
+        assertEquals(books(library), books(restored));
+        assertEquals(usernames(library), usernames(restored));
+        Member restoredReader = restored.getMemberCollection().getMember("user");
+        assertEquals("The Silmarillion", restored.getBorrowerCatalogue().getBooksOfBorrower(restoredReader).get(0).getTitle());
+    }
+
+    @Test
+    void onlyChangedSegmentsAreRewritten() throws IOException {
+        Library library = new Library();
+        LibraryCheckpointer checkpointer = new LibraryCheckpointer(checkpointDirectory(), library, false, SEGMENT_SIZE, 1);
+        checkpointer.checkpoint();
+        int bookSegments = segmentFiles("books").size();
+        assertTrue(bookSegments > 2);
+
+        Book first = library.getBookCollection().getBook(0);
+        library.getBookCollection().updateBook(first,
+                new Book(first.getId(), "Retitled", first.getAuthor(), first.getPublicationEpochDay()));
+        checkpointer.checkpoint();
+
+        List<String> books = segmentFiles("books");
+        assertEquals(bookSegments, books.size());
+        assertEquals(List.of("books-0-2.seg"), books.stream().filter(name -> name.endsWith("-2.seg")).collect(Collectors.toList()));
+        assertEquals(List.of(), segmentFiles("members").stream().filter(name -> name.endsWith("-2.seg")).collect(Collectors.toList()));
+    }
+
+    @Test
+    void renamedMembersAreCheckpointed() throws IOException {
+        Library library = new Library();
+        LibraryCheckpointer checkpointer = new LibraryCheckpointer(checkpointDirectory(), library, false, SEGMENT_SIZE, 1);
+        checkpointer.checkpoint();
+
+        library.getMemberCollection().getMember("user9").setUsername("renamed");
+        checkpointer.checkpoint();
+
+        assertEquals(List.of("members-1-2.seg"), segmentFiles("members").stream().filter(name -> name.endsWith("-2.seg")).collect(Collectors.toList()));
+        Library restored = Library.fromCheckpoint(checkpointDirectory());
+        assertEquals(usernames(library), usernames(restored));
+        assertTrue(restored.getMemberCollection().hasMember("renamed"));
+    }
+
+    @Test
+    void checkpointTakenDuringChangesReplaysWithoutDuplicates() throws Exception {
+        Library library = new Library();
+        LibraryCheckpointer checkpointer = new LibraryCheckpointer(checkpointDirectory(), library, false, SEGMENT_SIZE, 1);
+        LibraryJournal journal = LibraryJournal.open(journalFile(), library, FsyncPolicy.NEVER, 1);
+        checkpointer.checkpoint();
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                Book book = new Book("Title " + i, "Author " + i % 7, i);
+                library.getBookCollection().addBook(book);
+                if (i % 3 == 0) {
+                    library.getBookCollection().removeBook(book);
+                }
+            }
+            done.set(true);
+        });
+        writer.start();
+        while (!done.get()) {
+            checkpointer.checkpoint();
+        }
+        writer.join();
+        journal.close();
+
+        Library restored = Library.fromCheckpoint(checkpointDirectory());
+        LibraryJournal.open(journalFile(), restored, FsyncPolicy.NEVER, 1).close();
+
+        assertEquals(books(library), books(restored));
+    }
+
+    @Test
+    void checkpointIsOnlyDueAfterTheInterval() throws IOException {
+        Library library = new Library();
+        LibraryCheckpointer checkpointer = new LibraryCheckpointer(checkpointDirectory(), library, false, SEGMENT_SIZE, 3);
+        LibraryJournal journal = LibraryJournal.open(journalFile(), library, FsyncPolicy.NEVER, 1);
+        library.getBookCollection().addBook(new Book("First", "Author", 1));
+        library.getBookCollection().addBook(new Book("Second", "Author", 2));
+        assertFalse(checkpointer.checkpointIfDue());
+
+        library.getBookCollection().addBook(new Book("Third", "Author", 3));
+        assertTrue(checkpointer.checkpointIfDue());
+        assertEquals(3, checkpointer.getCheckpointLsn());
+        journal.close();
+    }
+
+    private Path checkpointDirectory() {
+        return directory.resolve(LibraryCheckpointer.DEFAULT_DIRECTORY_NAME);
+    }
+
+    private Path journalFile() {
+        return directory.resolve(LibraryJournal.DEFAULT_FILE_NAME);
+    }
+
+    private List<String> segmentFiles(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(checkpointDirectory())) {
+            return files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.startsWith(prefix + "-"))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private static Map<Long, String> books(Library library) {
+        Map<Long, String> books = new TreeMap<>();
+        for (Book book : library.getBookCollection().getAllBooks()) {
+            books.put(book.getId(), book.getTitle() + "|" + book.getAuthor() + "|" + book.getPublicationEpochDay());
+        }
+        return books;
+    }
+
+    private static List<String> usernames(Library library) {
+        return library.getMemberCollection().getAllMembers().stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,182 @@
+package dev.lwnd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.member.Member;
+
+class LibraryJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesAreReplayedOntoTheSnapshotTheyFollow() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        Book hobbit = library.getBookCollection().getBook("The Hobbit");
+        library.getBookCollection().addBook(new Book("Dune", "Frank Herbert", -1_600));
+        library.getBookCollection().updateBook(hobbit,
+                new Book(hobbit.getId(), "There and Back Again", hobbit.getAuthor(), hobbit.getPublicationEpochDay()));
+        library.getBookCollection().removeBook(library.getBookCollection().getBook("The Silmarillion"));
+        Member reader = new Member("reader", false);
+        library.getMemberCollection().addMember(reader);
+        library.getBorrowerCatalogue().addBorrower(reader);
+        library.getBorrowerCatalogue().addBookToBorrower(reader, library.getBookCollection().getBook("Dune"));
+        journal.commit();
+        journal.close();
+
+        Library restored = Library.fromSnapshot(snapshotFile());
+        LibraryJournal reopened = open(restored);
+
+        assertEquals(journal.getLastLsn(), reopened.getLastLsn());
+        assertEquals(books(library), books(restored));
+        assertTrue(restored.getMemberCollection().hasMember("reader"));
+        Member restoredReader = restored.getMemberCollection().getMember("reader");
+        assertEquals("Dune", restored.getBorrowerCatalogue().getBooksOfBorrower(restoredReader).get(0).getTitle());
+        reopened.close();
+    }
+
+    @Test
+    void renamedMembersKeepTheirNewUsernameAfterReplay() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        library.getMemberCollection().getMember("user").setUsername("renamed");
+        journal.commit();
+        journal.close();
+
+        Library restored = Library.fromSnapshot(snapshotFile());
+        open(restored).close();
+
+        assertTrue(restored.getMemberCollection().hasMember("renamed"));
+        assertFalse(restored.getMemberCollection().hasMember("user"));
+    }
+
+    @Test
+    void tornRecordAtTheEndIsCutOff() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        library.getBookCollection().addBook(new Book("First", "Author", 1));
+        library.getBookCollection().addBook(new Book("Second", "Author", 2));
+        journal.commit();
+        journal.close();
+        long fullSize = Files.size(journalFile());
+        try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(fullSize - 3);
+        }
+
+        Library restored = Library.fromSnapshot(snapshotFile());
+        LibraryJournal reopened = open(restored);
+
+        assertEquals(1, reopened.getLastLsn());
+        assertTrue(restored.getBookCollection().hasBook("First"));
+        assertFalse(restored.getBookCollection().hasBook("Second"));
+        assertTrue(Files.size(journalFile()) < fullSize - 3);
+
+        restored.getBookCollection().addBook(new Book("Third", "Author", 3));
+        reopened.commit();
+        reopened.close();
+        Library again = Library.fromSnapshot(snapshotFile());
+        LibraryJournal last = open(again);
+        assertEquals(2, last.getLastLsn());
+        assertTrue(again.getBookCollection().hasBook("Third"));
+        last.close();
+    }
+
+    @Test
+    void recordWithABadChecksumEndsTheJournal() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        library.getBookCollection().addBook(new Book("First", "Author", 1));
+        journal.commit();
+        long firstEnd = Files.size(journalFile());
+        library.getBookCollection().addBook(new Book("Second", "Author", 2));
+        journal.commit();
+        journal.close();
+        try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), Files.size(journalFile()) - 1);
+        }
+
+        Library restored = Library.fromSnapshot(snapshotFile());
+        open(restored).close();
+
+        assertTrue(restored.getBookCollection().hasBook("First"));
+        assertFalse(restored.getBookCollection().hasBook("Second"));
+        assertEquals(firstEnd, Files.size(journalFile()));
+    }
+
+    @Test
+    void discardedRecordsAreNotReplayedAgain() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        library.getBookCollection().addBook(new Book("First", "Author", 1));
+        library.saveSnapshot(snapshotFile());
+        journal.discardThrough(journal.getLastLsn());
+        library.getBookCollection().addBook(new Book("Second", "Author", 2));
+        journal.commit();
+        journal.close();
+
+        Library restored = Library.fromSnapshot(snapshotFile());
+        LibraryJournal reopened = open(restored);
+
+        assertEquals(2, reopened.getLastLsn());
+        assertEquals(books(library), books(restored));
+        reopened.close();
+    }
+
+    @Test
+    void journalStartingAfterTheLibraryIsRejected() throws IOException {
+        Library library = savedLibrary();
+        LibraryJournal journal = open(library);
+        library.getBookCollection().addBook(new Book("First", "Author", 1));
+        library.saveSnapshot(snapshotFile());
+        journal.discardThrough(journal.getLastLsn());
+        journal.close();
+
+        Library older = new Library();
+        assertThrows(IOException.class, () -> open(older));
+    }
+
+    private Library savedLibrary() throws IOException {
+        Library library = new Library();
+        library.saveSnapshot(snapshotFile());
+        return library;
+    }
+
+    private LibraryJournal open(Library library) throws IOException {
+        return LibraryJournal.open(journalFile(), library, FsyncPolicy.ALWAYS, LibraryJournal.DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    private Path snapshotFile() {
+        return directory.resolve(LibrarySnapshot.DEFAULT_FILE_NAME);
+    }
+
+    private Path journalFile() {
+        return directory.resolve(LibraryJournal.DEFAULT_FILE_NAME);
+    }
+
+    private static Map<Long, String> books(Library library) {
+        Map<Long, String> books = new TreeMap<>();
+        List<Book> all = library.getBookCollection().getAllBooks();
+        for (Book book : all) {
+            books.put(book.getId(), book.getTitle() + "|" + book.getAuthor() + "|" + book.getPublicationEpochDay());
+        }
+        return books;
+    }
+}
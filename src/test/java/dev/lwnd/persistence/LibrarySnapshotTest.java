@@ -0,0 +1,96 @@
+package dev.lwnd.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.lwnd.Library;
+import dev.lwnd.book.Book;
+import dev.lwnd.member.Member;
+import dev.lwnd.other.Pair;
+
+class LibrarySnapshotTest {
+    @Test
+    void contentsSurviveARoundTrip(@TempDir Path directory) throws IOException {
+        Book hobbit = new Book(7, "The Hobbit", "J. R. R. Tolkien", -11_790);
+        Book hurin = new Book(3, "The Children of Húrin", "J. R. R. Tolkien", 13_620);
+        Book lent = new Book(12, "Not in the catalogue", "Someone", 100);
+        Member admin = new Member("admin", true);
+        Member reader = new Member("reader", false);
+        Member former = new Member("former", false);
+        LibrarySnapshot snapshot = new LibrarySnapshot(List.of(hobbit, hurin), List.of(admin, reader),
+                List.of(new Pair<>(reader, List.of(hurin, lent)), new Pair<>(former, List.of(hobbit))), 42);
+
+        Path file = directory.resolve("library.snapshot");
+        snapshot.write(file);
+        LibrarySnapshot read = LibrarySnapshot.read(file);
+
+        assertEquals(42, read.getJournalLsn());
+        assertEquals(2, read.getBooks().size());
+        Book readHurin = read.getBooks().get(1);
+        assertEquals(3, readHurin.getId());
+        assertEquals("The Children of Húrin", readHurin.getTitle());
+        assertEquals(-11_790, read.getBooks().get(0).getPublicationEpochDay());
+        assertEquals(13_620, readHurin.getPublicationEpochDay());
+        assertSame(read.getBooks().get(0).getAuthor(), readHurin.getAuthor());
+        assertEquals(true, read.getMembers().get(0).hasAdminRights());
+
+        Pair<Member, List<Book>> readReader = read.getBorrowers().get(0);
+        assertSame(read.getMembers().get(1), readReader.getFirst());
+        assertSame(readHurin, readReader.getSecond().get(0));
+        assertEquals(12, readReader.getSecond().get(1).getId());
+        assertEquals("former", read.getBorrowers().get(1).getFirst().getUsername());
+        assertSame(read.getBooks().get(0), read.getBorrowers().get(1).getSecond().get(0));
+        assertFalse(Files.exists(directory.resolve("library.snapshot.tmp")));
+    }
+
+    @Test
+    void snapshotOfALibraryIsNotAffectedByLaterLoans(@TempDir Path directory) throws IOException {
+        Library library = new Library();
+        Member member = library.getMemberCollection().getAllMembers().get(0);
+        Book book = library.getBookCollection().getBook(0);
+        library.getBorrowerCatalogue().addBorrower(member, new ArrayList<>(List.of(book)));
+
+        LibrarySnapshot snapshot = LibrarySnapshot.of(library);
+        library.getBorrowerCatalogue().addBookToBorrower(member, library.getBookCollection().getBook(1));
+        library.getBorrowerCatalogue().removeBorrower(member);
+        Path file = directory.resolve("library.snapshot");
+        snapshot.write(file);
+        Library restored = Library.fromSnapshot(file);
+
+        assertEquals(List.of(book), restored.getBorrowerCatalogue().getBooksOfBorrower(
+                restored.getMemberCollection().getMember(member.getUsername())));
+        assertEquals(library.getBookCollection().getAllBooks(), restored.getBookCollection().getAllBooks());
+    }
+
+    @Test
+    void invalidFilesAreRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("library.snapshot");
+        new LibrarySnapshot(List.of(new Book(1, "Emma", "Jane Austen", 0)), List.of(), List.of(), 0).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> LibrarySnapshot.read(truncated));
+
+        bytes[0] ^= 1;
+        Path wrongMagic = directory.resolve("wrong.snapshot");
+        Files.write(wrongMagic, bytes);
+        assertThrows(IOException.class, () -> LibrarySnapshot.read(wrongMagic));
+
+        Path empty = directory.resolve("empty.snapshot");
+        Files.write(empty, new byte[0]);
+        assertThrows(IOException.class, () -> LibrarySnapshot.read(empty));
+    }
+}